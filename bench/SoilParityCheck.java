@@ -0,0 +1,180 @@
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * SoilParityCheck.java
+ * Checks the branch-free soil fast paths against what they replace, kept in bench/ with the other
+ * development-only code:
+ *   SoilBatch.classify         against the original comparisons of calculateFertilizerNeeded()
+ *                              (< 20 deficient, > 100 excess, <= 0 invalid), scalar and column forms
+ *   SoilAnalysis.parseReading  against Double.parseDouble, bit for bit (so -0.0 is not 0.0)
+ *
+ * Edge values (+-0.0, subnormals, NaN, infinities, exactly 20 and 100 and their neighbours,
+ * 16 to 20+ significant digits, exponent limits) are checked exhaustively, then random inputs.
+ * Prints the first mismatches and exits with status 1 if there are any.
+ *
+ * Compile: javac -encoding UTF-8 -d out src/Soil*.java src/FileChunks.java src/RecommendationCache.java bench/SoilParityCheck.java
+ * Run:     java -cp out SoilParityCheck [randomSamples=1000000] [seed=42]
+ */
+public class SoilParityCheck {
+
+    private static final int MAX_REPORTED = 20;
+
+    private static long checks;
+    private static final List<String> mismatches = new ArrayList<>();
+
+    public static void main(String[] args) {
+        int samples = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 42;
+        Random rnd = new Random(seed);
+
+        checkClassify(rnd, samples);
+        long classifyChecks = checks;
+        checkParseReading(rnd, samples);
+
+        System.out.println("classify: " + classifyChecks + " checks, parseReading: " + (checks - classifyChecks) + " checks, seed " + seed);
+        if (mismatches.isEmpty()) {
+            System.out.println("OK: no mismatches");
+            return;
+        }
+        System.out.println(mismatches.size() + " mismatches" + (mismatches.size() > MAX_REPORTED ? ", first " + MAX_REPORTED + ":" : ":"));
+        for (String m : mismatches.subList(0, Math.min(MAX_REPORTED, mismatches.size()))) System.out.println("  " + m);
+        System.exit(1);
+    }
+
+    // -------------------------
+    // classify
+    // -------------------------
+    static final double[] READING_EDGES = {
+            0.0, -0.0, Double.MIN_VALUE, -Double.MIN_VALUE, Double.MIN_NORMAL, Math.nextDown(Double.MIN_NORMAL),
+            Double.MAX_VALUE, -Double.MAX_VALUE, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NaN,
+            Double.longBitsToDouble(0x7ff8_0000_0000_0001L), Double.longBitsToDouble(0xfff8_0000_0000_0000L),
+            1.0, -1.0, 20.0, Math.nextDown(20.0), Math.nextUp(20.0), 100.0, Math.nextDown(100.0), Math.nextUp(100.0),
+            19.5, 55.0, 100.5, 1e-300, 1e300};
+
+    // the comparisons SoilBatch.classify replaced, as calculateFertilizerNeeded() has always made them
+    static byte referenceCode(double n, double p, double k) {
+        int code = 0;
+        if (n < 20) code |= SoilBatch.NITROGEN;
+        if (p < 20) code |= SoilBatch.PHOSPHORUS;
+        if (k < 20) code |= SoilBatch.POTASSIUM;
+        if (n > 100) code |= SoilBatch.NITROGEN << SoilBatch.EXCESS_SHIFT;
+        if (p > 100) code |= SoilBatch.PHOSPHORUS << SoilBatch.EXCESS_SHIFT;
+        if (k > 100) code |= SoilBatch.POTASSIUM << SoilBatch.EXCESS_SHIFT;
+        if (n <= 0 || p <= 0 || k <= 0) code |= SoilBatch.INVALID_BIT;
+        return (byte) code;
+    }
+
+    static void checkClassify(Random rnd, int samples) {
+        for (double n : READING_EDGES) {
+            for (double p : READING_EDGES) {
+                for (double k : READING_EDGES) classify(n, p, k);
+            }
+        }
+        double[] n = new double[samples], p = new double[samples], k = new double[samples];
+        for (int i = 0; i < samples; i++) {
+            n[i] = randomReading(rnd);
+            p[i] = randomReading(rnd);
+            k[i] = randomReading(rnd);
+            classify(n[i], p[i], k[i]);
+        }
+        byte[] codes = new byte[samples];
+        SoilBatch.classify(n, p, k, codes, 0, samples);
+        for (int i = 0; i < samples; i++) {
+            checks++;
+            byte expected = referenceCode(n[i], p[i], k[i]);
+            if (codes[i] != expected) mismatch("classify columns row " + i, n[i] + ", " + p[i] + ", " + k[i], expected, codes[i]);
+        }
+    }
+
+    private static void classify(double n, double p, double k) {
+        checks++;
+        byte expected = referenceCode(n, p, k);
+        byte actual = SoilBatch.classify(n, p, k);
+        if (actual != expected) mismatch("classify", n + ", " + p + ", " + k, expected, actual);
+    }
+
+    // lab-like readings most of the time, any bit pattern (NaNs, infinities, subnormals) otherwise
+    private static double randomReading(Random rnd) {
+        switch (rnd.nextInt(4)) {
+            case 0: return Double.longBitsToDouble(rnd.nextLong());
+            case 1: return READING_EDGES[rnd.nextInt(READING_EDGES.length)];
+            default: return rnd.nextDouble() * 150 - 10;
+        }
+    }
+
+    // -------------------------
+    // parseReading
+    // -------------------------
+    static final String[] NUMBER_EDGES = {
+            "0", "-0", "+0", "0.0", "-0.0", "00000", "0e0", "-0e-5", "0.000000000000000000000000",
+            "4.9e-324", "-4.9e-324", "2.4703282292062327e-324", "2.4703282292062328e-324", "1e-324", "1e-400",
+            "2.2250738585072014E-308", "2.2250738585072011e-308", "2.2250738585072012e-308", "4.9406564584124654E-324",
+            "1.7976931348623157e308", "1.7976931348623158e308", "1.7976931348623159e308", "1.8e308", "-1e309",
+            "20", "20.0", "2e1", "0.2e2", "200e-1", "19.999999999999996", "19.999999999999998", "20.000000000000004",
+            "100", "100.0", "1e2", "1E+2", "10000e-2", "99.99999999999999", "100.00000000000001", "100.000000000000001",
+            "1234567890123456", "12345678901234567", "123456789012345678", "1234567890123456789",
+            "12345678901234567890", "123456789012345678901234567890", "9007199254740992", "9007199254740993",
+            "9007199254740993.0", "0.9007199254740993", "18446744073709551615", "18446744073709551616",
+            "9223372036854775807", "9223372036854775808", "0.1", "0.30000000000000004", "3.141592653589793238462643",
+            "000000000000000000001234567890123456789", "0.000000000000000000001234567890123456789e21",
+            "1e22", "1e23", "1e-22", "1e-23", "123456789012345e-22", "123456789012345e22", "1234567890123456e-22",
+            "1e0", "1e-0", "1e+0", "1e308", "1e309", "1e-307", "1e-308", "1e-323", "1e99999", "1e100000", "1e-99999",
+            "1e2147483647", "1e-2147483648", "1e9999999999", ".5", "5.", "-.5", "+5.", "  42  ", "\t3.5e1\n"};
+
+    // Syntax parseReading deliberately does not accept (see its comment): it must give NaN
+    static final String[] NOT_READINGS = {
+            "", " ", ".", "-", "+", "e5", "1e", "1e+", "1e-", "--1", "1..2", "1.2.3", "1e5.0", "1 2", "0x1p3",
+            "NaN", "-NaN", "Infinity", "-Infinity", "1d", "1f", "1D", "2.5F", "1_000", "\u0661\u0662", "12a"};
+
+    static void checkParseReading(Random rnd, int samples) {
+        for (String s : NUMBER_EDGES) parse(s);
+        for (String s : NOT_READINGS) {
+            checks++;
+            double actual = SoilAnalysis.parseReading(s);
+            if (actual == actual) mismatches.add("parseReading(\"" + s + "\") = " + actual + ", expected NaN");
+        }
+        checks++;
+        if (SoilAnalysis.parseReading(null) == SoilAnalysis.parseReading(null)) mismatches.add("parseReading(null) is not NaN");
+
+        for (int i = 0; i < samples; i++) {
+            switch (i % 4) {
+                case 0: parse(Double.toString(Double.longBitsToDouble(rnd.nextLong()))); break;
+                case 1: parse(new BigDecimal(rnd.nextDouble() * 150).toPlainString()); break;
+                case 2: parse(randomDigits(rnd)); break;
+                default: parse(String.valueOf(rnd.nextInt(200)) + (rnd.nextBoolean() ? "." + rnd.nextInt(1000) : "")); break;
+            }
+        }
+    }
+
+    // 1..25 digits, maybe a point, maybe an exponent around the double range
+    private static String randomDigits(Random rnd) {
+        StringBuilder sb = new StringBuilder();
+        if (rnd.nextInt(4) == 0) sb.append(rnd.nextBoolean() ? '-' : '+');
+        int digits = 1 + rnd.nextInt(25);
+        int point = rnd.nextBoolean() ? rnd.nextInt(digits + 1) : -1;
+        for (int d = 0; d < digits; d++) {
+            if (d == point) sb.append('.');
+            sb.append((char) ('0' + rnd.nextInt(10)));
+        }
+        if (rnd.nextBoolean()) sb.append(rnd.nextBoolean() ? 'e' : 'E').append(rnd.nextInt(700) - 350);
+        return sb.toString();
+    }
+
+    private static void parse(String s) {
+        if (s.indexOf('N') >= 0 || s.indexOf('I') >= 0) return; // Double.toString of NaN / Infinity
+        checks++;
+        double expected = Double.parseDouble(s);
+        double actual = SoilAnalysis.parseReading(s);
+        if (Double.doubleToLongBits(actual) != Double.doubleToLongBits(expected)) {
+            mismatches.add("parseReading(\"" + s + "\") = " + actual + ", Double.parseDouble gives " + expected);
+        }
+    }
+
+    private static void mismatch(String what, String input, byte expected, byte actual) {
+        mismatches.add(what + "(" + input + ") = " + Integer.toBinaryString(actual & 0xFF)
+                + ", the comparisons give " + Integer.toBinaryString(expected & 0xFF));
+    }
+}
@@ -0,0 +1,172 @@
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * AfriGuardJmhPipeline.java
+ * Default-package side of the JMH benchmarks (see afriguard.jmh.Pipeline): generates the alert
+ * fixture and runs the pipeline operations on it.
+ *
+ * The fixture is deterministic (seed 42): countries C0..C53, eight diseases, 200 region names,
+ * outbreakRatio of the alerts are OutbreakAlerts and the rest EndemicAlerts with regionFanOut regions.
+ */
+public class AfriGuardJmhPipeline implements afriguard.jmh.Pipeline {
+
+    private final AfriGuardAWT.SurveillanceDashboard dashboard = new AfriGuardAWT.SurveillanceDashboard(new AfriGuardMetrics.PipelineMetrics());
+    private final AfriGuardMetrics.PipelineMetrics metrics = new AfriGuardMetrics.PipelineMetrics();
+    private final AfriGuardStore.ColumnarAlertStore store = new AfriGuardStore.ColumnarAlertStore();
+    private final AfriGuardRepository.ConcurrentAlertRepository repository = new AfriGuardRepository.ConcurrentAlertRepository();
+    private AfriGuardAWT.HealthAlert[] alerts;
+    private String[] lines;
+    private byte[] feed;
+    private int[] scores;
+
+    @Override
+    public void setUp(int count, double outbreakRatio, int regionFanOut, boolean withFeed) {
+        Random rnd = new Random(42);
+        String[] countries = new String[54];
+        for (int i = 0; i < countries.length; i++) countries[i] = "C" + i;
+        String[] diseases = {"MALARIA", "CHOLERA", "MEASLES", "LASSA_FEVER", "EBOLA", "MPOX", "HEPATITIS", "DENGUE"};
+        String[] regionNames = new String[200];
+        for (int i = 0; i < regionNames.length; i++) regionNames[i] = "Region" + i;
+
+        alerts = new AfriGuardAWT.HealthAlert[count];
+        lines = withFeed ? new String[count] : null;
+        StringBuilder sb = withFeed ? new StringBuilder() : null;
+        for (int i = 0; i < count; i++) {
+            String c = countries[rnd.nextInt(countries.length)];
+            String d = diseases[rnd.nextInt(diseases.length)];
+            int cases = rnd.nextInt(20_000);
+            if (rnd.nextDouble() < outbreakRatio) {
+                int deaths = rnd.nextInt(cases / 10 + 1);
+                alerts[i] = new AfriGuardAWT.OutbreakAlert(c, d, cases, "2025-10-27", cases > 0 ? deaths * 100.0 / cases : 0.0);
+                if (withFeed) lines[i] = c + "," + d + "," + cases + "," + deaths + ",";
+            } else {
+                String[] regions = new String[regionFanOut];
+                for (int r = 0; r < regionFanOut; r++) regions[r] = regionNames[rnd.nextInt(regionNames.length)];
+                alerts[i] = new AfriGuardAWT.EndemicAlert(c, d, cases, "2025-10-27", regions);
+                if (withFeed) lines[i] = c + "," + d + "," + cases + ",," + String.join(" ", regions);
+            }
+            store.add(alerts[i]);
+            if (withFeed) sb.append(lines[i]).append('\n');
+        }
+        repository.appendAll(store);
+        feed = withFeed ? sb.toString().getBytes(StandardCharsets.UTF_8) : null;
+        scores = new int[Math.max(1, count)];
+    }
+
+    @Override
+    public long parseReportData() {
+        long n = 0;
+        for (String line : lines) {
+            if (dashboard.parseReportData(line, AfriGuardAWT.NullReportSink.INSTANCE) != null) n++;
+        }
+        return n;
+    }
+
+    @Override
+    public long streamIngest() throws Exception {
+        long[] n = new long[1];
+        new AfriGuardIngest.ReportStreamParser("2025-10-27", 1 << 16).parse(new ByteArrayInputStream(feed), a -> n[0] += a.getCasesReported());
+        return n[0];
+    }
+
+    @Override
+    public long calculateSeverity() {
+        long sum = 0;
+        for (AfriGuardAWT.HealthAlert a : alerts) sum += a.calculateSeverity();
+        return sum;
+    }
+
+    @Override
+    public long scoreSeveritiesColumnar() {
+        store.scoreSeverities(scores, 0);
+        return scores[scores.length - 1];
+    }
+
+    @Override
+    public long summarizeSequential() {
+        return dashboard.summarizeAlerts(alerts, false).getProcessed();
+    }
+
+    @Override
+    public long summarizeParallel() {
+        return dashboard.summarizeAlerts(alerts, true).getProcessed();
+    }
+
+    @Override
+    public long summarizeColumnar() {
+        return store.summarize().getProcessed();
+    }
+
+    @Override
+    public long summarizeRepositoryCursor() {
+        return dashboard.summarizeAlerts(repository.snapshot(), false).getProcessed();
+    }
+
+    @Override
+    public long processAlertsReport() {
+        CountingSink sink = new CountingSink();
+        dashboard.processAlerts(alerts, sink, false);
+        return sink.chars;
+    }
+
+    @Override
+    public long processAlertsReportParallel() {
+        CountingSink sink = new CountingSink();
+        dashboard.processAlerts(alerts, sink, true);
+        return sink.chars;
+    }
+
+    // what the pipeline records per alert: a parse counter and the sampled latency
+    @Override
+    public long metricsRecord() {
+        long timedSince = 0;
+        boolean timing = false;
+        for (int i = 0; i < alerts.length; i++) {
+            if (timing) {
+                metrics.recordAlertLatency(System.nanoTime() - timedSince);
+                timing = false;
+            }
+            if ((i & AfriGuardMetrics.PipelineMetrics.LATENCY_SAMPLE_MASK) == 0) {
+                timing = true;
+                timedSince = System.nanoTime();
+            }
+            metrics.recordParsed();
+        }
+        return metrics.getReportsParsed();
+    }
+
+    // the defensive copy made on every call
+    @Override
+    public long getAffectedRegions() {
+        long n = 0;
+        for (AfriGuardAWT.HealthAlert a : alerts) {
+            if (a instanceof AfriGuardAWT.EndemicAlert) n += ((AfriGuardAWT.EndemicAlert) a).getAffectedRegions().length;
+        }
+        return n;
+    }
+
+    // the copy-free accessors that replace it on hot paths
+    @Override
+    public long regionsByIndex() {
+        long n = 0;
+        for (AfriGuardAWT.HealthAlert a : alerts) {
+            if (a instanceof AfriGuardAWT.EndemicAlert) {
+                AfriGuardAWT.EndemicAlert ea = (AfriGuardAWT.EndemicAlert) a;
+                for (int i = 0; i < ea.getRegionCount(); i++) n += ea.getRegionId(i);
+            }
+        }
+        return n;
+    }
+
+    // Text sink that formats everything but only counts characters
+    private static final class CountingSink implements AfriGuardAWT.ReportSink {
+        long chars;
+
+        @Override
+        public void append(CharSequence text) {
+            chars += text.length();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package afriguard.jmh;
+
+/**
+ * The alert pipeline operations the benchmarks measure, over one fixture of generated alerts.
+ *
+ * The AfriGuard classes live in the default package, which code in a named package cannot refer
+ * to, while JMH requires benchmarks in a named package. AfriGuardJmhPipeline (default package)
+ * implements this interface and is loaded by name once per trial; each benchmark call is then a
+ * monomorphic interface call that the JIT inlines.
+ *
+ * Every operation works on the whole fixture and returns a value derived from all of it, so the
+ * benchmark can hand it to JMH's Blackhole.
+ */
+public interface Pipeline {
+
+    /** Builds the fixture; withFeed also renders it as report lines and a CSV feed. */
+    void setUp(int alerts, double outbreakRatio, int regionFanOut, boolean withFeed);
+
+    long parseReportData();
+
+    long streamIngest() throws Exception;
+
+    long calculateSeverity();
+
+    long scoreSeveritiesColumnar();
+
+    long summarizeSequential();
+
+    long summarizeParallel();
+
+    long summarizeColumnar();
+
+    long summarizeRepositoryCursor();
+
+    long processAlertsReport();
+
+    long processAlertsReportParallel();
+
+    long metricsRecord();
+
+    long getAffectedRegions();
+
+    long regionsByIndex();
+
+    static Pipeline load() {
+        try {
+            return (Pipeline) Class.forName("AfriGuardJmhPipeline").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("AfriGuardJmhPipeline is not on the class path", e);
+        }
+    }
+}
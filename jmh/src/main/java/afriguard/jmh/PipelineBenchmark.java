@@ -0,0 +1,127 @@
+package afriguard.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+/**
+ * JMH benchmarks of the AfriGuard alert pipeline: parsing, severity scoring, summaries and report
+ * generation over a generated batch of alerts.
+ *
+ * One operation processes the whole batch, so alerts/s is ops/s times the alerts parameter, and
+ * with -prof gc the gc.alloc.rate.norm column (B/op) divided by alerts is bytes per alert.
+ *
+ * Build: mvn -B package                  (produces jmh/target/benchmarks.jar)
+ * Run:   java -jar jmh/target/benchmarks.jar -prof gc
+ *        java -jar jmh/target/benchmarks.jar summarize -p alerts=1000000 -p outbreakRatio=0.5 -p regions=4 -prof gc
+ *
+ * The default parameters cover 1k to 10M alerts, two outbreak/endemic mixes and three region
+ * fan-outs; narrow them with -p for a quick run. The 10M cases need the 8 GB heap the forks get.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = "-Xmx8g")
+public class PipelineBenchmark {
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int alerts;
+
+    /** Share of OutbreakAlerts; the rest are EndemicAlerts. */
+    @Param({"0.2", "0.8"})
+    public double outbreakRatio;
+
+    /** Regions per EndemicAlert. */
+    @Param({"1", "4", "16"})
+    public int regions;
+
+    private Pipeline pipeline;
+
+    // Only the parsing benchmarks need the fixture rendered as text
+    @Setup(Level.Trial)
+    public void setUp(BenchmarkParams params) {
+        String name = params.getBenchmark();
+        String method = name.substring(name.lastIndexOf('.') + 1);
+        pipeline = Pipeline.load();
+        pipeline.setUp(alerts, outbreakRatio, regions, method.startsWith("parse") || method.startsWith("stream"));
+    }
+
+    @Benchmark
+    public long parseReportData() {
+        return pipeline.parseReportData();
+    }
+
+    @Benchmark
+    public long streamIngest() throws Exception {
+        return pipeline.streamIngest();
+    }
+
+    @Benchmark
+    public long calculateSeverity() {
+        return pipeline.calculateSeverity();
+    }
+
+    @Benchmark
+    public long scoreSeveritiesColumnar() {
+        return pipeline.scoreSeveritiesColumnar();
+    }
+
+    @Benchmark
+    public long summarizeSequential() {
+        return pipeline.summarizeSequential();
+    }
+
+    @Benchmark
+    public long summarizeParallel() {
+        return pipeline.summarizeParallel();
+    }
+
+    @Benchmark
+    public long summarizeColumnar() {
+        return pipeline.summarizeColumnar();
+    }
+
+    @Benchmark
+    public long summarizeRepositoryCursor() {
+        return pipeline.summarizeRepositoryCursor();
+    }
+
+    @Benchmark
+    public long processAlertsReport() {
+        return pipeline.processAlertsReport();
+    }
+
+    @Benchmark
+    public long processAlertsReportParallel() {
+        return pipeline.processAlertsReportParallel();
+    }
+
+    @Benchmark
+    public long metricsRecord() {
+        return pipeline.metricsRecord();
+    }
+
+    @Benchmark
+    public long getAffectedRegions() {
+        return pipeline.getAffectedRegions();
+    }
+
+    @Benchmark
+    public long regionsByIndex() {
+        return pipeline.regionsByIndex();
+    }
+}
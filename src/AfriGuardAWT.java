@@ -1,70 +1,185 @@
 import java.awt.*;
 import java.awt.event.*;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 /**
  * AfriGuardAWT.java
  * AWT-based surveillance dashboard for HealthAlert, OutbreakAlert, and EndemicAlert.
  *
- * Compile: javac AfriGuardAWT.java
+ * Compile: javac AfriGuard*.java
  * Run:     java AfriGuardAWT
  *
+ * Report text goes through a ReportSink, so SurveillanceDashboard can also be driven from the
+ * console (see AfriGuardSurveillance) or write to a file without touching AWT.
+ *
  * Option C: Dashboard + Input Form
  */
 public class AfriGuardAWT {
 
+    // -------------------------
+    // Symbol tables
+    // -------------------------
+    /**
+     * Interns a small vocabulary (country codes, disease names, region names) into dense int codes
+     * and canonical String instances. Lookups are lock-free; registering a new symbol takes a lock.
+     */
+    public static final class SymbolTable {
+        public static final SymbolTable COUNTRIES = new SymbolTable();
+        public static final SymbolTable DISEASES = new SymbolTable();
+        public static final SymbolTable REGIONS = new SymbolTable();
+
+        private final ConcurrentHashMap<String, Integer> codes = new ConcurrentHashMap<>();
+        private volatile String[] symbols = new String[64];
+        private int size; // guarded by this
+
+        /** Code of s, registering it on first sight; -1 for null. */
+        public int code(String s) {
+            if (s == null) return -1;
+            Integer c = codes.get(s);
+            return c != null ? c : register(s);
+        }
+
+        /** Code of s, or -1 if it was never registered. */
+        public int find(String s) {
+            if (s == null) return -1;
+            Integer c = codes.get(s);
+            return c != null ? c : -1;
+        }
+
+        /** The canonical instance equal to s. */
+        public String intern(String s) {
+            return s == null ? null : symbol(code(s));
+        }
+
+        /** The canonical string for code; null for -1 (the code of null). */
+        public String symbol(int code) {
+            return code < 0 ? null : symbols[code];
+        }
+
+        public synchronized int size() {
+            return size;
+        }
+
+        private synchronized int register(String s) {
+            Integer c = codes.get(s);
+            if (c != null) return c;
+            int code = size;
+            if (code == symbols.length) symbols = Arrays.copyOf(symbols, code * 2);
+            symbols[code] = s;
+            size++;
+            codes.put(s, code); // publishes symbols[code] to lock-free readers
+            return code;
+        }
+    }
+
     // -------------------------
     // Domain classes
     // -------------------------
+    /**
+     * Alerts are immutable value objects: subclasses compute severity and derived flags once,
+     * in their constructor. Reads go through the getters so views over other storage can override them.
+     * Country and disease are interned, so grouping can compare getCountryId / getDiseaseId.
+     */
     public static abstract class HealthAlert {
-        protected String countryCode;
-        protected String diseaseName;
-        protected int casesReported;
-        protected String reportDate;
+        protected final String countryCode;
+        protected final String diseaseName;
+        protected final int casesReported;
+        protected final String reportDate;
+        protected final int countryId;
+        protected final int diseaseId;
 
         public HealthAlert(String countryCode, String diseaseName, int casesReported, String reportDate) {
-            this.countryCode = countryCode;
-            this.diseaseName = diseaseName;
+            this.countryId = SymbolTable.COUNTRIES.code(countryCode);
+            this.diseaseId = SymbolTable.DISEASES.code(diseaseName);
+            this.countryCode = SymbolTable.COUNTRIES.symbol(countryId);
+            this.diseaseName = SymbolTable.DISEASES.symbol(diseaseId);
             this.casesReported = casesReported;
             this.reportDate = reportDate;
         }
 
         public abstract int calculateSeverity();
 
+        public String getCountryCode() { return countryCode; }
+        public String getDiseaseName() { return diseaseName; }
+        public int getCountryId() { return countryId; }
+        public int getDiseaseId() { return diseaseId; }
+        public int getCasesReported() { return casesReported; }
+        public String getReportDate() { return reportDate; }
+
         public void displayBasicInfo(TextArea output) {
-            output.append("Country: " + countryCode + " | Disease: " + diseaseName + " | Cases: " + casesReported + " | Date: " + reportDate + "\n");
+            output.append(basicInfo() + "\n");
+        }
+
+        public void displayBasicInfo(ReportSink output) {
+            output.append(basicInfo() + "\n");
+        }
+
+        public String basicInfo() {
+            return "Country: " + getCountryCode() + " | Disease: " + getDiseaseName() + " | Cases: " + getCasesReported() + " | Date: " + getReportDate();
         }
 
         public boolean requiresInternationalResponse() {
-            return calculateSeverity() > 70;
+            return requiresInternationalResponseFor(calculateSeverity());
+        }
+
+        public static boolean requiresInternationalResponseFor(int severity) {
+            return severity > 70;
         }
 
         @Override
         public String toString() {
-            return String.format("%s - %s (%d) [%s]", countryCode, diseaseName, casesReported, reportDate);
+            return String.format("%s - %s (%d) [%s]", getCountryCode(), getDiseaseName(), getCasesReported(), getReportDate());
         }
     }
 
     public static class OutbreakAlert extends HealthAlert {
-        private double deathRate; // percent (e.g., 5.5 for 5.5%)
+        private final double deathRate; // percent (e.g., 5.5 for 5.5%)
+        private final int severity;
+        private final String alertLevel;
 
         public OutbreakAlert(String countryCode, String diseaseName, int casesReported, String reportDate, double deathRate) {
             super(countryCode, diseaseName, casesReported, reportDate);
             this.deathRate = deathRate;
+            this.severity = severityFor(casesReported, deathRate);
+            this.alertLevel = levelFor(severity);
         }
 
         @Override
         public int calculateSeverity() {
-            // (casesReported / 10.0) + (deathRate * 20)
+            return severity;
+        }
+
+        public String getAlertLevel() {
+            return alertLevel;
+        }
+
+        // (casesReported / 10.0) + (deathRate * 20)
+        public static int severityFor(int casesReported, double deathRate) {
             double raw = (casesReported / 10.0) + (deathRate * 20.0);
             return (int) Math.round(raw);
         }
 
-        public String getAlertLevel() {
-            int sev = calculateSeverity();
-            if (sev > 80) return "CRITICAL";
-            if (sev > 50) return "HIGH";
+        public static String levelFor(int severity) {
+            if (severity > 80) return "CRITICAL";
+            if (severity > 50) return "HIGH";
             return "MODERATE";
         }
 
@@ -74,114 +189,749 @@ public class AfriGuardAWT {
 
         @Override
         public String toString() {
-            return String.format("Outbreak[%s, deathRate=%.2f%%, severity=%d]", super.toString(), deathRate, calculateSeverity());
+            return String.format("Outbreak[%s, deathRate=%.2f%%, severity=%d]", super.toString(), deathRate, severity);
         }
     }
 
     public static class EndemicAlert extends HealthAlert {
-        private String[] affectedRegions;
+        private final String[] affectedRegions;
+        private final int[] regionIds; // interned ids, parallel to affectedRegions
+        private final int severity;
+        private final boolean widespread;
 
         public EndemicAlert(String countryCode, String diseaseName, int casesReported, String reportDate, String[] affectedRegions) {
             super(countryCode, diseaseName, casesReported, reportDate);
             this.affectedRegions = affectedRegions != null ? affectedRegions.clone() : new String[0];
+            this.regionIds = new int[this.affectedRegions.length];
+            for (int i = 0; i < this.affectedRegions.length; i++) {
+                regionIds[i] = SymbolTable.REGIONS.code(this.affectedRegions[i]);
+                this.affectedRegions[i] = SymbolTable.REGIONS.symbol(regionIds[i]);
+            }
+            this.severity = severityFor(casesReported, this.affectedRegions.length);
+            this.widespread = isWidespreadFor(this.affectedRegions.length);
         }
 
         @Override
         public int calculateSeverity() {
-            // Interpreted formula: (casesReported / 100.0) + (affectedRegions.length * 10)
-            double raw = (casesReported / 100.0) + (affectedRegions.length * 10.0);
-            return (int) Math.round(raw);
+            return severity;
         }
 
         public boolean isWidespread() {
-            return affectedRegions.length > 3;
+            return widespread;
+        }
+
+        // Interpreted formula: (casesReported / 100.0) + (affectedRegions.length * 10)
+        public static int severityFor(int casesReported, int regionCount) {
+            double raw = (casesReported / 100.0) + (regionCount * 10.0);
+            return (int) Math.round(raw);
+        }
+
+        public static boolean isWidespreadFor(int regionCount) {
+            return regionCount > 3;
         }
 
+        /** Defensive copy; hot paths should use getRegionCount / getRegion / getRegionId instead. */
         public String[] getAffectedRegions() {
             return affectedRegions.clone();
         }
 
+        // Read-only access without copying: for (int i = 0; i < getRegionCount(); i++) getRegionId(i) ...
+        public int getRegionCount() { return affectedRegions.length; }
+
+        /** Interned region name, so == comparisons between regions hold. */
+        public String getRegion(int i) { return affectedRegions[i]; }
+
+        /** Id of region i in SymbolTable.REGIONS. */
+        public int getRegionId(int i) { return regionIds[i]; }
+
+        /** Appends the regions in Arrays.toString form. */
+        public StringBuilder appendRegions(StringBuilder sb) {
+            sb.append('[');
+            for (int i = 0; i < affectedRegions.length; i++) {
+                if (i > 0) sb.append(", ");
+                sb.append(affectedRegions[i]);
+            }
+            return sb.append(']');
+        }
+
         @Override
         public String toString() {
-            return String.format("Endemic[%s, regions=%s, severity=%d]", super.toString(), Arrays.toString(affectedRegions), calculateSeverity());
+            return String.format("Endemic[%s, regions=%s, severity=%d]", super.toString(), Arrays.toString(affectedRegions), severity);
+        }
+    }
+
+    // -------------------------
+    // Report sinks
+    // -------------------------
+    /**
+     * Destination for dashboard report text. Lets the processing core run without touching AWT,
+     * so the same code can feed a TextArea, the console or a file. Sinks are not thread-safe.
+     */
+    public interface ReportSink {
+        void append(CharSequence text);
+
+        /** Delivers anything still buffered. */
+        default void flush() {}
+
+        /** False for sinks that drop text, so callers can skip formatting it. */
+        default boolean acceptsText() {
+            return true;
+        }
+    }
+
+    /** Discards all text; for pure computation runs. */
+    public static final class NullReportSink implements ReportSink {
+        public static final NullReportSink INSTANCE = new NullReportSink();
+
+        private NullReportSink() {}
+
+        @Override
+        public void append(CharSequence text) {}
+
+        @Override
+        public boolean acceptsText() {
+            return false;
+        }
+    }
+
+    /**
+     * Coalesces text in a StringBuilder and hands it downstream in batches of roughly batchChars,
+     * e.g. one TextArea.append per batch instead of one per line.
+     */
+    public static class BatchingReportSink implements ReportSink {
+        public static final int DEFAULT_BATCH_CHARS = 64 * 1024;
+
+        private final StringBuilder buffer = new StringBuilder();
+        private final Consumer<String> target;
+        private final int batchChars;
+
+        public BatchingReportSink(Consumer<String> target) {
+            this(target, DEFAULT_BATCH_CHARS);
+        }
+
+        public BatchingReportSink(Consumer<String> target, int batchChars) {
+            this.target = target;
+            this.batchChars = batchChars;
+        }
+
+        /** Posts each batch to the event dispatch thread, so processing may run on any thread. */
+        public static BatchingReportSink forTextArea(TextArea area) {
+            return new BatchingReportSink(text -> EventQueue.invokeLater(() -> area.append(text)));
+        }
+
+        /** Posts each batch to target on the event dispatch thread. */
+        public static BatchingReportSink forEventQueue(ReportSink target) {
+            return new BatchingReportSink(text -> EventQueue.invokeLater(() -> target.append(text)));
+        }
+
+        public static BatchingReportSink forPrintStream(PrintStream out) {
+            return new BatchingReportSink(out::print);
+        }
+
+        @Override
+        public void append(CharSequence text) {
+            buffer.append(text);
+            if (buffer.length() >= batchChars) flush();
+        }
+
+        @Override
+        public void flush() {
+            if (buffer.length() == 0) return;
+            target.accept(buffer.toString());
+            buffer.setLength(0);
+        }
+    }
+
+    /** Writes report text to a file through a buffered NIO writer. */
+    public static class FileReportSink implements ReportSink, Closeable {
+        private final BufferedWriter writer;
+
+        public FileReportSink(Path file, boolean append) throws IOException {
+            this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE,
+                    append ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        @Override
+        public void append(CharSequence text) {
+            try {
+                writer.append(text);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void flush() {
+            try {
+                writer.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.close();
+        }
+    }
+
+    /**
+     * Appends to file until roughly maxBytes have been written, then rolls it over to file.1
+     * (file.1 to file.2, ...), keeping at most `keep` old files.
+     */
+    public static class RollingFileSink implements ReportSink, Closeable {
+        private final Path file;
+        private final long maxBytes;
+        private final int keep;
+        private BufferedWriter writer;
+        private long written;
+
+        public RollingFileSink(Path file, long maxBytes, int keep) throws IOException {
+            if (maxBytes <= 0 || keep < 1) throw new IllegalArgumentException("maxBytes and keep must be positive");
+            this.file = file;
+            this.maxBytes = maxBytes;
+            this.keep = keep;
+            this.written = Files.exists(file) ? Files.size(file) : 0;
+            this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+
+        @Override
+        public void append(CharSequence text) {
+            try {
+                writer.append(text);
+                written += text.length(); // chars, close enough to bytes for rollover
+                if (written >= maxBytes) roll();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void roll() throws IOException {
+            writer.close();
+            for (int i = keep - 1; i >= 1; i--) {
+                Path older = rolled(i);
+                if (Files.exists(older)) Files.move(older, rolled(i + 1), java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+            }
+            Files.move(file, rolled(1), java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+            writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+            written = 0;
+        }
+
+        private Path rolled(int n) {
+            return file.resolveSibling(file.getFileName() + "." + n);
+        }
+
+        @Override
+        public void flush() {
+            try {
+                writer.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.close();
+        }
+    }
+
+    /**
+     * Indexed, read-only access to a batch of alerts for SurveillanceDashboard. alertAt must be safe
+     * to call from several worker threads and may return null for empty slots.
+     */
+    public interface AlertSource {
+        int size();
+
+        HealthAlert alertAt(int index);
+
+        /** Reads alerts by index during a scan; a cursor belongs to one thread. */
+        interface Cursor {
+            HealthAlert at(int index);
+        }
+
+        /**
+         * A cursor for scanning. Columnar sources return a reusable AlertView, so the alert it
+         * gives is only valid until its next call; use alertAt (or AlertView.standalone) to keep one.
+         */
+        default Cursor cursor() {
+            return this::alertAt;
+        }
+
+        static AlertSource of(HealthAlert[] alerts) {
+            return new AlertSource() {
+                @Override
+                public int size() {
+                    return alerts.length;
+                }
+
+                @Override
+                public HealthAlert alertAt(int index) {
+                    return alerts[index];
+                }
+            };
+        }
+    }
+
+    /**
+     * Watermark and running summary for SurveillanceDashboard.processNewAlerts: alerts below the
+     * watermark are already part of the summary.
+     */
+    public static class IncrementalState {
+        private int watermark;
+        private AlertSummary summary = new AlertSummary();
+
+        public synchronized int getWatermark() { return watermark; }
+
+        /** Copy of the running summary. */
+        public synchronized AlertSummary getSummary() { return new AlertSummary().merge(summary); }
+
+        public synchronized void reset() {
+            watermark = 0;
+            summary = new AlertSummary();
+        }
+    }
+
+    /**
+     * Progress and cancellation hook for long processAlerts runs. Polled once per chunk, possibly
+     * from several worker threads at once.
+     */
+    public interface ProgressMonitor {
+        ProgressMonitor NONE = new ProgressMonitor() {
+            @Override
+            public void progress(int done, int total) {}
+
+            @Override
+            public boolean isCancelled() { return false; }
+        };
+
+        void progress(int done, int total);
+
+        boolean isCancelled();
+    }
+
+    /**
+     * Mergeable result of one processAlerts pass (or one chunk of it).
+     * Chunks must be merged in index order so that ties on severity keep the earliest alert,
+     * exactly like the sequential loop.
+     */
+    public static class AlertSummary {
+        private int processed;
+        private int nullAlerts;
+        private int errors;
+        private int international;
+        private int critical;
+        private int high;
+        private int moderate;
+        private int endemic;
+        private int widespread;
+        private HealthAlert highest;
+        private int highestSeverity = Integer.MIN_VALUE;
+
+        void record(HealthAlert alert, int severity, boolean needsInternational) {
+            if (alert instanceof OutbreakAlert) {
+                recordOutbreak(((OutbreakAlert) alert).getAlertLevel(), needsInternational);
+            } else if (alert instanceof EndemicAlert) {
+                recordEndemic(((EndemicAlert) alert).isWidespread(), needsInternational);
+            } else if (alert instanceof AfriGuardStore.AlertView) {
+                AfriGuardStore.AlertView view = (AfriGuardStore.AlertView) alert;
+                if (view.isOutbreak()) recordOutbreak(view.getAlertLevel(), needsInternational);
+                else recordEndemic(view.isWidespread(), needsInternational);
+            } else {
+                recordOther(needsInternational);
+            }
+            offerHighest(alert, severity);
+        }
+
+        // Counting entry points for callers that scan columns instead of alert objects
+        void recordOutbreak(String level, boolean needsInternational) {
+            recordOther(needsInternational);
+            switch (level) {
+                case "CRITICAL": critical++; break;
+                case "HIGH": high++; break;
+                default: moderate++; break;
+            }
+        }
+
+        void recordEndemic(boolean isWidespread, boolean needsInternational) {
+            recordOther(needsInternational);
+            endemic++;
+            if (isWidespread) widespread++;
+        }
+
+        void recordOther(boolean needsInternational) {
+            processed++;
+            if (needsInternational) international++;
+        }
+
+        void recordNull() {
+            nullAlerts++;
+        }
+
+        // a view passed in is copied, and only when it becomes the highest
+        void offerHighest(HealthAlert alert, int severity) {
+            if (severity > highestSeverity) {
+                highestSeverity = severity;
+                highest = AfriGuardStore.AlertView.standalone(alert);
+            }
+        }
+
+        /** Folds a summary of alerts that come after this one in the array into this summary. */
+        public AlertSummary merge(AlertSummary later) {
+            processed += later.processed;
+            nullAlerts += later.nullAlerts;
+            errors += later.errors;
+            international += later.international;
+            critical += later.critical;
+            high += later.high;
+            moderate += later.moderate;
+            endemic += later.endemic;
+            widespread += later.widespread;
+            if (later.highestSeverity > highestSeverity) {
+                highestSeverity = later.highestSeverity;
+                highest = later.highest;
+            }
+            return this;
+        }
+
+        public int getProcessed() { return processed; }
+        public int getNullAlerts() { return nullAlerts; }
+        public int getErrors() { return errors; }
+        public int getInternationalResponseCount() { return international; }
+        public int getCriticalCount() { return critical; }
+        public int getHighCount() { return high; }
+        public int getModerateCount() { return moderate; }
+        public int getEndemicCount() { return endemic; }
+        public int getWidespreadCount() { return widespread; }
+        public HealthAlert getHighest() { return highest; }
+        public int getHighestSeverity() { return highestSeverity; }
+
+        @Override
+        public String toString() {
+            return String.format("processed=%d, null=%d, errors=%d, international=%d, CRITICAL=%d, HIGH=%d, MODERATE=%d, endemic=%d (widespread=%d), highest=%s",
+                    processed, nullAlerts, errors, international, critical, high, moderate, endemic, widespread, highest);
         }
     }
 
     // -------------------------
     // Surveillance Dashboard logic (non-GUI)
     // -------------------------
+    /**
+     * Stateless apart from its arguments, so one instance may serve several threads. Sources that
+     * grow while they are processed (the live repository, the log) should be passed as a fixed-size
+     * snapshot, e.g. ConcurrentAlertRepository.snapshot(), so every pass sees the same alerts.
+     */
     public static class SurveillanceDashboard {
+        /** Alerts per fork-join task in parallel mode. */
+        private static final int PARALLEL_CHUNK_SIZE = 8192;
+
+        // parse outcomes, per-alert latency and level counts (see AfriGuardMetrics)
+        private final AfriGuardMetrics.PipelineMetrics metrics;
+
+        public SurveillanceDashboard() {
+            this(AfriGuardMetrics.PipelineMetrics.GLOBAL);
+        }
+
+        public SurveillanceDashboard(AfriGuardMetrics.PipelineMetrics metrics) {
+            this.metrics = metrics;
+        }
+
         /**
          * Processes an array of HealthAlert objects, using polymorphism.
          * Handles NullPointerException and ArrayIndexOutOfBoundsException when iterating.
          * Displays information to given TextArea.
          */
         public void processAlerts(HealthAlert[] alerts, TextArea output) {
+            processAlerts(alerts, output, false);
+        }
+
+        /**
+         * Same as processAlerts(alerts, output), optionally splitting the array into chunks that are
+         * processed on the common fork-join pool. Output and summary are identical in both modes.
+         */
+        public AlertSummary processAlerts(HealthAlert[] alerts, TextArea output, boolean parallel) {
+            BatchingReportSink sink = new BatchingReportSink(output::append);
+            AlertSummary summary = processAlerts(alerts, sink, parallel);
+            sink.flush();
+            return summary;
+        }
+
+        /**
+         * Processing core shared by the GUI and console runners. Report text is written to the sink
+         * one chunk at a time; the sink decides how it is delivered (see BatchingReportSink).
+         */
+        public AlertSummary processAlerts(HealthAlert[] alerts, ReportSink sink, boolean parallel) {
             if (alerts == null) {
-                output.append("No alerts to process (alerts array is null).\n");
-                return;
+                sink.append("No alerts to process (alerts array is null).\n");
+                return new AlertSummary();
+            }
+            return processAlerts(AlertSource.of(alerts), sink, parallel);
+        }
+
+        public AlertSummary processAlerts(AlertSource alerts, ReportSink sink, boolean parallel) {
+            return processAlerts(alerts, sink, parallel, ProgressMonitor.NONE);
+        }
+
+        /**
+         * Reports progress to the monitor after every chunk and stops with a CancellationException
+         * once it is cancelled; text of the chunks finished so far has then already reached the sink.
+         */
+        public AlertSummary processAlerts(AlertSource alerts, ReportSink sink, boolean parallel, ProgressMonitor monitor) {
+            if (alerts == null) {
+                sink.append("No alerts to process (alerts array is null).\n");
+                return new AlertSummary();
+            }
+
+            sink.append("=== START SURVEILLANCE DASHBOARD ===\n");
+            AlertSummary summary = parallel ? processParallel(alerts, 0, sink, monitor) : processSequential(alerts, 0, sink, monitor);
+            StringBuilder tail = new StringBuilder();
+            appendSummary(summary, tail);
+            sink.append(tail);
+            return summary;
+        }
+
+        /**
+         * Incremental mode: processes only alerts[state.getWatermark(), alerts.size()), reports them,
+         * and folds their summary into the running one kept in state. The summary section shows the
+         * running totals, identical to a full run over all alerts. If the source shrank (it was
+         * cleared) the state starts over. Nothing is recorded when the run is cancelled.
+         */
+        public AlertSummary processNewAlerts(AlertSource alerts, IncrementalState state, ReportSink sink, boolean parallel, ProgressMonitor monitor) {
+            synchronized (state) {
+                int end = alerts.size();
+                if (end < state.watermark) state.reset();
+                int start = state.watermark;
+
+                sink.append("=== START SURVEILLANCE DASHBOARD (new alerts " + start + ".." + end + ") ===\n");
+                if (start == end) sink.append("No new alerts since the last refresh.\n");
+                AlertSummary added = parallel ? processParallel(alerts, start, sink, monitor) : processSequential(alerts, start, sink, monitor);
+                state.summary.merge(added);
+                state.watermark = end;
+
+                StringBuilder tail = new StringBuilder();
+                appendSummary(state.summary, tail);
+                sink.append(tail);
+                return new AlertSummary().merge(state.summary);
+            }
+        }
+
+        /**
+         * Computes only the merged summary (no report text), sequentially or in parallel.
+         */
+        public AlertSummary summarizeAlerts(HealthAlert[] alerts, boolean parallel) {
+            if (alerts == null) return new AlertSummary();
+            return summarizeAlerts(AlertSource.of(alerts), parallel);
+        }
+
+        public AlertSummary summarizeAlerts(AlertSource alerts, boolean parallel) {
+            return parallel
+                    ? processParallel(alerts, 0, NullReportSink.INSTANCE, ProgressMonitor.NONE)
+                    : processSequential(alerts, 0, NullReportSink.INSTANCE, ProgressMonitor.NONE);
+        }
+
+        /**
+         * Bulk severity scoring: out[i] receives the severity of alert i, or Integer.MIN_VALUE
+         * for a null slot. out must be at least alerts.size() long.
+         */
+        public void scoreSeverities(AlertSource alerts, int[] out, boolean parallel) {
+            int n = alerts.size();
+            if (out.length < n) throw new IllegalArgumentException("output array too small: " + out.length + " < " + n);
+            int chunks = (n + PARALLEL_CHUNK_SIZE - 1) / PARALLEL_CHUNK_SIZE;
+            java.util.stream.IntStream ids = java.util.stream.IntStream.range(0, chunks);
+            (parallel ? ids.parallel() : ids).forEach(c -> {
+                AlertSource.Cursor cursor = alerts.cursor();
+                for (int i = c * PARALLEL_CHUNK_SIZE, to = Math.min(n, i + PARALLEL_CHUNK_SIZE); i < to; i++) out[i] = severityOrMin(cursor.at(i));
+            });
+        }
+
+        public int[] scoreSeverities(HealthAlert[] alerts, boolean parallel) {
+            int[] out = new int[alerts.length];
+            scoreSeverities(AlertSource.of(alerts), out, parallel);
+            return out;
+        }
+
+        private static int severityOrMin(HealthAlert alert) {
+            return alert == null ? Integer.MIN_VALUE : alert.calculateSeverity();
+        }
+
+        // Processes alerts[start, size); progress counts alerts from start
+        private AlertSummary processSequential(AlertSource alerts, int start, ReportSink sink, ProgressMonitor monitor) {
+            AlertSummary summary = new AlertSummary();
+            StringBuilder chunk = sink.acceptsText() ? new StringBuilder() : null;
+            int end = alerts.size();
+            int total = end - start;
+            for (int from = start; from < end; from += PARALLEL_CHUNK_SIZE) {
+                if (monitor.isCancelled()) throw cancelled(from - start, total);
+                int to = Math.min(end, from + PARALLEL_CHUNK_SIZE);
+                summary.merge(processRange(alerts, from, to, chunk));
+                if (chunk != null) {
+                    sink.append(chunk);
+                    chunk.setLength(0);
+                }
+                monitor.progress(to - start, total);
+            }
+            return summary;
+        }
+
+        // Chunks run on the common pool at most maxInFlight ahead of the oldest unwritten one, which
+        // is merged and written as soon as it is done, so only the window's report text is held
+        private AlertSummary processParallel(AlertSource alerts, int start, ReportSink sink, ProgressMonitor monitor) {
+            int end = alerts.size();
+            int total = end - start;
+            int maxInFlight = Math.max(2, 2 * ForkJoinPool.getCommonPoolParallelism());
+            ArrayDeque<ChunkTask> inFlight = new ArrayDeque<>();
+            AtomicInteger done = new AtomicInteger();
+            AlertSummary summary = new AlertSummary();
+            try {
+                for (int from = start; from < end; from += PARALLEL_CHUNK_SIZE) {
+                    ChunkTask task = new ChunkTask(alerts, from, Math.min(end, from + PARALLEL_CHUNK_SIZE), sink.acceptsText(), monitor, done, total);
+                    ForkJoinPool.commonPool().execute(task);
+                    inFlight.add(task);
+                    if (inFlight.size() == maxInFlight) writeNext(inFlight, summary, sink, monitor, done, total);
+                }
+                while (!inFlight.isEmpty()) writeNext(inFlight, summary, sink, monitor, done, total);
+            } finally {
+                for (ChunkTask task : inFlight) task.cancel(false);
+            }
+            return summary;
+        }
+
+        // Merges and writes the oldest chunk, in index order so text and tie-breaking match the sequential loop
+        private static void writeNext(ArrayDeque<ChunkTask> inFlight, AlertSummary summary, ReportSink sink,
+                                      ProgressMonitor monitor, AtomicInteger done, int total) {
+            ChunkTask task = inFlight.remove();
+            AlertSummary chunk = task.join();
+            // a chunk that saw the cancellation was skipped; stopping before it leaves no gap in the text
+            if (monitor.isCancelled()) throw cancelled(done.get(), total);
+            summary.merge(chunk);
+            if (task.text != null) sink.append(task.text);
+        }
+
+        private class ChunkTask extends RecursiveTask<AlertSummary> {
+            private final AlertSource alerts;
+            private final int from;
+            private final int to;
+            private final StringBuilder text;
+            private final ProgressMonitor monitor;
+            private final AtomicInteger done;
+            private final int total;
+
+            ChunkTask(AlertSource alerts, int from, int to, boolean withText, ProgressMonitor monitor, AtomicInteger done, int total) {
+                this.alerts = alerts;
+                this.from = from;
+                this.to = to;
+                this.text = withText ? new StringBuilder() : null;
+                this.monitor = monitor;
+                this.done = done;
+                this.total = total;
             }
 
-            output.append("=== START SURVEILLANCE DASHBOARD ===\n");
-            HealthAlert highest = null;
-            int highestSeverity = Integer.MIN_VALUE;
+            @Override
+            protected AlertSummary compute() {
+                if (monitor.isCancelled()) return new AlertSummary();
+                AlertSummary summary = processRange(alerts, from, to, text);
+                monitor.progress(done.addAndGet(to - from), total);
+                return summary;
+            }
+        }
 
-            for (int i = 0; i < alerts.length; i++) {
+        private static CancellationException cancelled(int done, int total) {
+            return new CancellationException("Processing cancelled after " + done + " of " + total + " alerts");
+        }
+
+        // Processes alerts[from, to). When report is null only the summary is computed.
+        private AlertSummary processRange(AlertSource alerts, int from, int to, StringBuilder report) {
+            AlertSummary summary = new AlertSummary();
+            // columnar sources hand out one reused view, so the scan allocates no alerts
+            AlertSource.Cursor cursor = alerts.cursor();
+            // latency of every LATENCY_SAMPLE_EVERY-th alert; a clock read costs more than the rest of the bookkeeping
+            long timedSince = 0;
+            boolean timing = false;
+            for (int i = from; i < to; i++) {
+                if (timing) {
+                    metrics.recordAlertLatency(System.nanoTime() - timedSince);
+                    timing = false;
+                }
+                if ((i & AfriGuardMetrics.PipelineMetrics.LATENCY_SAMPLE_MASK) == 0) {
+                    timing = true;
+                    timedSince = System.nanoTime();
+                }
                 try {
-                    HealthAlert alert = alerts[i]; // may be null
+                    HealthAlert alert = cursor.at(i); // may be null
                     if (alert == null) {
-                        output.append(String.format("Alert at index %d is null — skipping (null handling test).\n", i));
+                        summary.nullAlerts++;
+                        if (report != null) report.append(String.format("Alert at index %d is null — skipping (null handling test).\n", i));
                         continue;
                     }
 
                     // Polymorphic calls
-                    alert.displayBasicInfo(output);
                     int severity = alert.calculateSeverity();
-                    output.append(" -> Calculated severity: " + severity + "\n");
+                    boolean needsInternational = alert.requiresInternationalResponse();
+                    summary.record(alert, severity, needsInternational);
+                    if (report == null) continue;
 
-                    if (alert.requiresInternationalResponse()) {
-                        output.append(" -> ACTION: Requires INTERNATIONAL RESPONSE!\n");
+                    report.append(alert.basicInfo()).append("\n");
+                    report.append(" -> Calculated severity: ").append(severity).append("\n");
+
+                    if (needsInternational) {
+                        report.append(" -> ACTION: Requires INTERNATIONAL RESPONSE!\n");
                     } else {
-                        output.append(" -> Local response likely sufficient.\n");
+                        report.append(" -> Local response likely sufficient.\n");
                     }
 
                     // Subclass-specific info
                     if (alert instanceof OutbreakAlert) {
                         OutbreakAlert oa = (OutbreakAlert) alert;
-                        output.append(String.format("    [Outbreak] Death rate = %.2f%% | Level = %s\n", oa.getDeathRate(), oa.getAlertLevel()));
+                        report.append(String.format("    [Outbreak] Death rate = %.2f%% | Level = %s\n", oa.getDeathRate(), oa.getAlertLevel()));
                     } else if (alert instanceof EndemicAlert) {
                         EndemicAlert ea = (EndemicAlert) alert;
-                        output.append(String.format("    [Endemic] Regions affected = %s | Widespread = %b\n", Arrays.toString(ea.getAffectedRegions()), ea.isWidespread()));
-                    }
-
-                    // Track highest severity
-                    if (severity > highestSeverity) {
-                        highestSeverity = severity;
-                        highest = alert;
+                        ea.appendRegions(report.append("    [Endemic] Regions affected = ")).append(" | Widespread = ").append(ea.isWidespread()).append('\n');
+                    } else if (alert instanceof AfriGuardStore.AlertView) {
+                        AfriGuardStore.AlertView view = (AfriGuardStore.AlertView) alert;
+                        if (view.isOutbreak()) {
+                            report.append(String.format("    [Outbreak] Death rate = %.2f%% | Level = %s\n", view.getDeathRate(), view.getAlertLevel()));
+                        } else {
+                            view.appendRegions(report.append("    [Endemic] Regions affected = ")).append(" | Widespread = ").append(view.isWidespread()).append('\n');
+                        }
                     }
 
                 } catch (NullPointerException npe) {
-                    output.append("Encountered NullPointerException while processing index " + i + ": " + npe.getMessage() + "\n");
+                    summary.errors++;
+                    if (report != null) report.append("Encountered NullPointerException while processing index " + i + ": " + npe.getMessage() + "\n");
                 } catch (ArrayIndexOutOfBoundsException aioobe) {
-                    output.append("Array index error while processing alerts: " + aioobe.getMessage() + "\n");
+                    summary.errors++;
+                    if (report != null) report.append("Array index error while processing alerts: " + aioobe.getMessage() + "\n");
                 } catch (Exception ex) {
-                    output.append("Unexpected error processing alert at index " + i + ": " + ex.getMessage() + "\n");
+                    summary.errors++;
+                    if (report != null) report.append("Unexpected error processing alert at index " + i + ": " + ex.getMessage() + "\n");
                 }
 
-                output.append("-------------------------------------------------\n");
+                if (report != null) report.append("-------------------------------------------------\n");
             }
+            if (timing) metrics.recordAlertLatency(System.nanoTime() - timedSince);
+            metrics.recordChunk(summary);
+            return summary;
+        }
 
-            output.append("=== SUMMARY ===\n");
+        private void appendSummary(AlertSummary summary, StringBuilder report) {
+            report.append("=== SUMMARY ===\n");
+            HealthAlert highest = summary.getHighest();
             if (highest != null) {
-                output.append("Highest severity alert:\n");
-                highest.displayBasicInfo(output);
-                output.append("Severity: " + highest.calculateSeverity() + "\n");
-                output.append("Full details: " + highest.toString() + "\n");
+                report.append("Highest severity alert:\n");
+                report.append(highest.basicInfo()).append("\n");
+                report.append("Severity: ").append(summary.getHighestSeverity()).append("\n");
+                report.append("Full details: ").append(highest.toString()).append("\n");
+                report.append(String.format("Outbreak levels: CRITICAL=%d | HIGH=%d | MODERATE=%d | Endemic=%d (widespread=%d)\n",
+                        summary.getCriticalCount(), summary.getHighCount(), summary.getModerateCount(),
+                        summary.getEndemicCount(), summary.getWidespreadCount()));
+                report.append("Alerts requiring international response: ").append(summary.getInternationalResponseCount()).append("\n");
             } else {
-                output.append("No valid alerts processed.\n");
+                report.append("No valid alerts processed.\n");
             }
 
-            output.append("=== END SURVEILLANCE DASHBOARD ===\n\n");
+            report.append("=== END SURVEILLANCE DASHBOARD ===\n\n");
         }
 
         /**
@@ -192,6 +942,10 @@ public class AfriGuardAWT {
          * Returns null on parsing failure.
          */
         public HealthAlert parseReportData(String reportData, TextArea output) {
+            return parseReportData(reportData, text -> output.append(text.toString()));
+        }
+
+        public HealthAlert parseReportData(String reportData, ReportSink output) {
             if (reportData == null) return null;
 
             try {
@@ -199,6 +953,7 @@ public class AfriGuardAWT {
                 for (int i = 0; i < parts.length; i++) parts[i] = parts[i].trim();
 
                 if (parts.length < 3) {
+                    metrics.recordParseError(AfriGuardMetrics.ParseError.INSUFFICIENT_FIELDS);
                     output.append("Parsing failed: insufficient fields in \"" + reportData + "\"\n");
                     return null;
                 }
@@ -213,7 +968,9 @@ public class AfriGuardAWT {
                     try {
                         int deaths = Integer.parseInt(parts[3]);
                         double deathRate = cases > 0 ? (deaths * 100.0) / cases : 0.0;
-                        return new OutbreakAlert(country, disease, cases, reportDate, deathRate);
+                        OutbreakAlert parsed = new OutbreakAlert(country, disease, cases, reportDate, deathRate);
+                        metrics.recordParsed();
+                        return parsed;
                     } catch (NumberFormatException nfeDeaths) {
                         // Not numeric -> fall through to check regions
                     }
@@ -230,16 +987,21 @@ public class AfriGuardAWT {
                 if (!regionsRaw.isEmpty()) {
                     String[] regions = regionsRaw.split("\\s+|;|\\||,");
                     regions = Arrays.stream(regions).map(String::trim).filter(s -> !s.isEmpty()).toArray(String[]::new);
-                    return new EndemicAlert(country, disease, cases, reportDate, regions);
+                    EndemicAlert parsed = new EndemicAlert(country, disease, cases, reportDate, regions);
+                    metrics.recordParsed();
+                    return parsed;
                 }
 
+                metrics.recordParseError(AfriGuardMetrics.ParseError.AMBIGUOUS);
                 output.append("Parsing ambiguous (no deaths numeric and no regions) for: \"" + reportData + "\"\n");
                 return null;
 
             } catch (NumberFormatException nfe) {
+                metrics.recordParseError(AfriGuardMetrics.ParseError.NUMBER_FORMAT);
                 output.append("Number format error while parsing \"" + reportData + "\": " + nfe.getMessage() + "\n");
                 return null;
             } catch (Exception ex) {
+                metrics.recordParseError(AfriGuardMetrics.ParseError.UNEXPECTED);
                 output.append("Unexpected parse error for \"" + reportData + "\": " + ex.getMessage() + "\n");
                 return null;
             }
@@ -270,14 +1032,62 @@ public class AfriGuardAWT {
         private final Button btnAdd = new Button("Add Alert");
         private final Button btnParse = new Button("Parse Report");
         private final Button btnProcess = new Button("Process Alerts");
+        private final Button btnRefresh = new Button("Process New Alerts");
         private final Button btnDemo = new Button("Run Demo (seed & process)");
         private final Button btnClear = new Button("Clear Output");
+        private final Button btnCancel = new Button("Cancel Processing");
+        private final Label lblStatus = new Label("Idle");
+        private final Button btnTop = new Button("Top Alerts / Percentiles");
+        private final Button btnTrend = new Button("Trends (Country + Disease)");
+        private final Button btnFilter = new Button("Filter (Country/Disease/Region)");
+        private final Button btnImport = new Button("Import File (CSV/TSV/AGB)");
+        private final Button btnExport = new Button("Export File (CSV/TSV/AGB)");
+        private final Button btnRescore = new Button("Rescore (Rules File)");
+
+        // virtual list: paints only the visible rows, reading them from the current model
+        private final AfriGuardViews.VirtualListView alertList = new AfriGuardViews.VirtualListView(new AfriGuardViews.VirtualListView.RowModel() {
+            @Override
+            public int rowCount() {
+                return model.size() + (demoNullRow ? 1 : 0);
+            }
 
-        private final List alertList = new List();
-        private final TextArea outputArea = new TextArea("", 18, 80, TextArea.SCROLLBARS_VERTICAL_ONLY);
-
-        private final ArrayList<HealthAlert> alerts = new ArrayList<>();
+            @Override
+            public String rowText(int row) {
+                return row < model.size() ? alertAt(row).toString() : "NULL (intentional)";
+            }
+        });
+        // the demo lists its intentional null as an extra last row
+        private boolean demoNullRow;
+        // last OUTPUT_MAX_LINES lines only; older lines go to the spill file when one is configured
+        private static final int OUTPUT_MAX_LINES = Integer.getInteger("afriguard.output.maxLines", 10_000);
+        private final RollingFileSink outputSpill = openSpill(System.getProperty("afriguard.output.spill"));
+        private final AfriGuardViews.LogView outputArea = new AfriGuardViews.LogView(OUTPUT_MAX_LINES, outputSpill);
+        private final BatchingReportSink outputSink = BatchingReportSink.forEventQueue(outputArea);
+
+        // columnar storage that feeds on other threads may append to; snapshots of it cost O(1)
+        private AfriGuardRepository.ConcurrentAlertRepository alerts = new AfriGuardRepository.ConcurrentAlertRepository();
+        // persistent alert log (memory-mapped, off-heap); null if it could not be opened
+        private AfriGuardLog.MappedAlertLog log;
+        // what the list, processing and selection read: the log once opened (never replaced), else the in-memory store
+        private AlertSource model = alerts;
+        // EDT-only view over the model for painting, selection and filter output
+        private AlertSource.Cursor modelCursor = model.cursor();
         private final SurveillanceDashboard dashboardLogic = new SurveillanceDashboard();
+        // top-5 and p50/p90/p99 kept up to date on every add
+        private AfriGuardSeverity.SeverityIndex severityIndex = new AfriGuardSeverity.SeverityIndex(5);
+        // day / week / month buckets per (country, disease), updated on every add
+        private AfriGuardTrends.TrendAggregator trends = new AfriGuardTrends.TrendAggregator();
+        // country / disease / region postings of the model's rows, for filtered views
+        private AfriGuardIndex.AlertIndex alertIndex = new AfriGuardIndex.AlertIndex();
+        // (the three are replaced, on the EDT, once an opened log has been indexed)
+
+        // batches at least this large are processed on the fork-join pool
+        private static final int PARALLEL_THRESHOLD = 50_000;
+
+        // processing runs here, never on the event dispatch thread
+        private final AfriGuardJobs.JobExecutor jobs = new AfriGuardJobs.JobExecutor(2, 4);
+        // watermark + running summary for "Process New Alerts"
+        private final IncrementalState incremental = new IncrementalState();
 
         public DashboardFrame() {
             super("AfriGuard - AWT Surveillance Dashboard (Option C)");
@@ -299,8 +1109,9 @@ public class AfriGuardAWT {
             left.add(new Label("Alerts (click to view):"), BorderLayout.NORTH);
             left.add(alertList, BorderLayout.CENTER);
 
-            Panel leftButtons = new Panel(new GridLayout(5,1,4,4));
-            leftButtons.add(btnAdd); leftButtons.add(btnParse); leftButtons.add(btnProcess); leftButtons.add(btnDemo); leftButtons.add(btnClear);
+            Panel leftButtons = new Panel(new GridLayout(13,1,4,4));
+            leftButtons.add(btnAdd); leftButtons.add(btnParse); leftButtons.add(btnProcess); leftButtons.add(btnRefresh); leftButtons.add(btnDemo); leftButtons.add(btnTop); leftButtons.add(btnTrend);
+            leftButtons.add(btnFilter); leftButtons.add(btnImport); leftButtons.add(btnExport); leftButtons.add(btnRescore); leftButtons.add(btnCancel); leftButtons.add(btnClear);
             left.add(leftButtons, BorderLayout.SOUTH);
             add(left, BorderLayout.WEST);
 
@@ -308,19 +1119,96 @@ public class AfriGuardAWT {
             Panel center = new Panel(new BorderLayout(6,6));
             center.add(new Label("Output / Logs:"), BorderLayout.NORTH);
             center.add(outputArea, BorderLayout.CENTER);
+            center.add(lblStatus, BorderLayout.SOUTH);
             add(center, BorderLayout.CENTER);
 
             // add listeners
             btnAdd.addActionListener(this);
             btnParse.addActionListener(this);
             btnProcess.addActionListener(this);
+            btnRefresh.addActionListener(this);
             btnDemo.addActionListener(this);
             btnClear.addActionListener(this);
+            btnCancel.addActionListener(this);
+            btnTop.addActionListener(this);
+            btnTrend.addActionListener(this);
+            btnFilter.addActionListener(this);
+            btnImport.addActionListener(this);
+            btnExport.addActionListener(this);
+            btnRescore.addActionListener(this);
             alertList.addActionListener(this);
 
             // initial size and show
             setSize(1100, 600);
             setVisible(true);
+
+            openLog(java.nio.file.Paths.get(System.getProperty("afriguard.log.dir", "afriguard-log")));
+        }
+
+        // 16 MB per file, 5 rolled files; a spill that cannot be opened just disables spilling
+        private static RollingFileSink openSpill(String file) {
+            if (file == null || file.isEmpty()) return null;
+            try {
+                return new RollingFileSink(java.nio.file.Paths.get(file), 16L << 20, 5);
+            } catch (IOException ex) {
+                System.err.println("Output spill file " + file + " unavailable: " + ex.getMessage());
+                return null;
+            }
+        }
+
+        // records indexed between two progress updates and cancellation checks
+        private static final int RESTORE_CHUNK = 65_536;
+
+        // Maps the persistent log and lists it at once; the severity index, trends and filter
+        // postings are rebuilt from its columns on a worker, then swapped in on the EDT
+        private void openLog(Path dir) {
+            try {
+                log = new AfriGuardLog.MappedAlertLog(dir);
+            } catch (IOException | RuntimeException ex) {
+                outputArea.append("Alert log " + dir + " unavailable, alerts are kept in memory only: " + ex.getMessage() + "\n");
+                return;
+            }
+            setModel(log);
+            alertList.rowsChanged();
+            AfriGuardLog.MappedAlertLog restoring = log;
+            int restored = restoring.size();
+            outputArea.append("Alert log " + dir.toAbsolutePath() + ": " + restored + " alerts restored from " + restoring.segmentCount() + " segment(s), indexing ...\n");
+            processInBackground("Indexing alert log", (sink, monitor) -> {
+                AfriGuardSeverity.SeverityIndex severities = new AfriGuardSeverity.SeverityIndex(5);
+                AfriGuardTrends.TrendAggregator trendsOfLog = new AfriGuardTrends.TrendAggregator();
+                AfriGuardIndex.AlertIndex postings = new AfriGuardIndex.AlertIndex();
+                AfriGuardStore.AlertView view = restoring.cursor();
+                for (int from = 0; from < restored; from += RESTORE_CHUNK) {
+                    if (monitor.isCancelled()) {
+                        throw new CancellationException("Indexing cancelled after " + from + " of " + restored + " alerts; top alerts, trends and filters cover new alerts only");
+                    }
+                    int to = Math.min(restored, from + RESTORE_CHUNK);
+                    for (int row = from; row < to; row++) {
+                        view.moveTo(row);
+                        severities.add(view);
+                        postings.add(row, view);
+                    }
+                    trendsOfLog.addRows(restoring, from, to);
+                    monitor.progress(to, restored);
+                }
+                EventQueue.invokeLater(() -> installLogIndexes(severities, trendsOfLog, postings, restored));
+                sink.append("Alert log indexed: " + restored + " alerts.\n");
+            });
+        }
+
+        // Catches the rebuilt indexes up with the alerts appended while they were built, then uses them
+        private void installLogIndexes(AfriGuardSeverity.SeverityIndex severities, AfriGuardTrends.TrendAggregator trendsOfLog,
+                                       AfriGuardIndex.AlertIndex postings, int indexed) {
+            AfriGuardStore.AlertView view = log.cursor();
+            for (int row = indexed; row < log.size(); row++) {
+                view.moveTo(row);
+                severities.add(view);
+                postings.add(row, view);
+            }
+            trendsOfLog.addRows(log, indexed, log.size());
+            severityIndex = severities;
+            trends = trendsOfLog;
+            alertIndex = postings;
         }
 
         @Override
@@ -332,14 +1220,33 @@ public class AfriGuardAWT {
                 parseReportFromForm();
             } else if (src == btnProcess) {
                 processAlertsCurrent();
+            } else if (src == btnRefresh) {
+                processNewAlerts();
             } else if (src == btnDemo) {
                 seedDemoAlertsAndProcess();
+            } else if (src == btnTop) {
+                // Country / Disease fields narrow the report when filled in
+                severityIndex.report(outputSink, tfCountry.getText().trim(), tfDisease.getText().trim());
+                outputSink.flush();
+            } else if (src == btnTrend) {
+                showTrends();
+            } else if (src == btnFilter) {
+                showFiltered();
+            } else if (src == btnImport) {
+                importFromFile();
+            } else if (src == btnExport) {
+                exportToFile();
+            } else if (src == btnRescore) {
+                rescoreWithRules();
+            } else if (src == btnCancel) {
+                if (jobs.activeCount() == 0) outputArea.append("Nothing to cancel.\n");
+                jobs.cancelAll();
             } else if (src == btnClear) {
-                outputArea.setText("");
+                outputArea.clear();
             } else if (src == alertList) {
                 int idx = alertList.getSelectedIndex();
-                if (idx >= 0 && idx < alerts.size()) {
-                    HealthAlert ha = alerts.get(idx);
+                if (idx >= 0) {
+                    HealthAlert ha = idx < model.size() ? alertAt(idx) : null;
                     outputArea.append("Selected: " + (ha == null ? "NULL" : ha.toString()) + "\n");
                 }
             }
@@ -367,21 +1274,18 @@ public class AfriGuardAWT {
                     int deaths = Integer.parseInt(deathsStr);
                     double deathRate = cases > 0 ? (deaths * 100.0) / cases : 0.0;
                     OutbreakAlert oa = new OutbreakAlert(c, d, cases, date, deathRate);
-                    alerts.add(oa);
-                    alertList.add(oa.toString());
+                    storeAlert(oa);
                     outputArea.append("Added OutbreakAlert: " + oa.toString() + "\n");
                 } else if (!regionsStr.isEmpty()) {
                     // create EndemicAlert
                     String[] regions = regionsStr.split("\\s+");
                     EndemicAlert ea = new EndemicAlert(c, d, cases, date, regions);
-                    alerts.add(ea);
-                    alertList.add(ea.toString());
+                    storeAlert(ea);
                     outputArea.append("Added EndemicAlert: " + ea.toString() + "\n");
                 } else {
                     // If neither deaths nor regions, default to Endemic with zero regions (ambiguous)
                     EndemicAlert ea = new EndemicAlert(c, d, cases, date, new String[]{});
-                    alerts.add(ea);
-                    alertList.add(ea.toString());
+                    storeAlert(ea);
                     outputArea.append("Added EndemicAlert (no regions): " + ea.toString() + "\n");
                 }
 
@@ -405,60 +1309,349 @@ public class AfriGuardAWT {
 
             HealthAlert parsed = dashboardLogic.parseReportData(report, outputArea);
             if (parsed != null) {
-                alerts.add(parsed);
-                alertList.add(parsed.toString());
-                outputArea.append("Parsed and added alert: " + parsed.toString() + "\n");
+                try {
+                    storeAlert(parsed);
+                    outputArea.append("Parsed and added alert: " + parsed.toString() + "\n");
+                } catch (UncheckedIOException ex) {
+                    showDialog(ex.getMessage() + ": " + ex.getCause().getMessage());
+                }
             } else {
                 outputArea.append("Parsing returned null for: " + report + "\n");
             }
         }
 
-        // Convert alerts to array (intentionally insert null to test handling) then call processAlerts
+        // Process the stored alerts plus one trailing null slot (to test null handling)
         private void processAlertsCurrent() {
-            // build array, include a null if the list doesn't have one (to test handling)
-            HealthAlert[] arr = new HealthAlert[alerts.size() + 1]; // add extra slot for null test
-            for (int i = 0; i < alerts.size(); i++) arr[i] = alerts.get(i);
-            arr[arr.length - 1] = null; // intentional null element
-            outputArea.append("Processing " + arr.length + " alerts (includes intentional null) ...\n");
-            dashboardLogic.processAlerts(arr, outputArea);
+            AlertSource batch = withTrailingNull(snapshotModel(0));
+            outputArea.append("Processing " + batch.size() + " alerts (includes intentional null) ...\n");
+            processInBackground("Processing", (sink, monitor) ->
+                    dashboardLogic.processAlerts(batch, sink, batch.size() >= PARALLEL_THRESHOLD, monitor));
         }
 
-        // Seed with at least 6 alerts (mix), include null, and process
-        private void seedDemoAlertsAndProcess() {
-            alerts.clear();
-            alertList.removeAll();
+        // Incremental refresh: only alerts stored since the previous refresh are processed
+        private void processNewAlerts() {
+            int from = incremental.getWatermark();
+            if (from > model.size()) {
+                incremental.reset();
+                from = 0;
+            }
+            AlertSource batch = snapshotModel(from);
+            int fresh = batch.size() - from;
+            outputArea.append("Processing " + fresh + " new alerts (" + from + " already processed) ...\n");
+            processInBackground("Refreshing", (sink, monitor) ->
+                    dashboardLogic.processNewAlerts(batch, incremental, sink, fresh >= PARALLEL_THRESHOLD, monitor));
+        }
 
-            // 1) OutbreakAlert
-            alerts.add(new OutbreakAlert("NG", "LASSA_FEVER", 450, "2025-10-27", 5.1));
-            alertList.add(alerts.get(alerts.size()-1).toString());
+        /**
+         * Fixed view of the alerts stored so far; alerts added while a job runs are not part of it.
+         * Only indexes from fromRow on are readable; earlier alerts were processed by a previous run.
+         */
+        private AlertSource snapshotModel(int fromRow) {
+            int n = model.size();
+            // published repository rows and log records below size never change
+            AlertSource source = model == alerts ? alerts.snapshot() : model;
+            return new AlertSource() {
+                @Override
+                public int size() {
+                    return n;
+                }
+
+                @Override
+                public HealthAlert alertAt(int index) {
+                    checkStart(index);
+                    return source.alertAt(index);
+                }
+
+                @Override
+                public Cursor cursor() {
+                    Cursor cursor = source.cursor();
+                    return index -> cursor.at(checkStart(index));
+                }
+
+                private int checkStart(int index) {
+                    if (index < fromRow) throw new IndexOutOfBoundsException("alert " + index + " is before the snapshot start " + fromRow);
+                    return index;
+                }
+            };
+        }
+
+        private static AlertSource withTrailingNull(AlertSource source) {
+            return new AlertSource() {
+                @Override
+                public int size() {
+                    return source.size() + 1;
+                }
+
+                @Override
+                public HealthAlert alertAt(int index) {
+                    return index < source.size() ? source.alertAt(index) : null;
+                }
+
+                @Override
+                public Cursor cursor() {
+                    Cursor cursor = source.cursor();
+                    int n = source.size();
+                    return index -> index < n ? cursor.at(index) : null;
+                }
+            };
+        }
+
+        // Runs work on a worker; its report reaches the output area in batched invokeLater chunks
+        private void processInBackground(String name, java.util.function.BiConsumer<ReportSink, ProgressMonitor> work) {
+            BatchingReportSink sink = BatchingReportSink.forEventQueue(outputArea);
+            try {
+                jobs.submit(name, job -> {
+                    try {
+                        work.accept(sink, job);
+                    } finally {
+                        sink.flush();
+                    }
+                }, new AfriGuardJobs.JobListener() {
+                    @Override
+                    public void progress(AfriGuardJobs.Job job) {
+                        lblStatus.setText(job.toString());
+                    }
+
+                    @Override
+                    public void finished(AfriGuardJobs.Job job, Throwable error) {
+                        lblStatus.setText(job.toString());
+                        if (error instanceof CancellationException) {
+                            outputArea.append(error.getMessage() + "\n");
+                        } else if (error != null) {
+                            outputArea.append(name + " failed: " + error + "\n");
+                        }
+                    }
+                });
+                lblStatus.setText(name + " queued");
+            } catch (RejectedExecutionException ex) {
+                showDialog("Too many processing jobs are running. Wait for one to finish or cancel it.");
+            }
+        }
+
+        // Bulk import on a worker: the file is parsed in parallel chunks, then handed to the EDT
+        // IMPORT_BATCH alerts at a time so the dashboard stays responsive
+        private static final int IMPORT_BATCH = 10_000;
+
+        private void importFromFile() {
+            Path file = chooseFile("Import alerts", FileDialog.LOAD);
+            if (file == null) return;
+            String date = tfDate.getText().trim();
+            String defaultDate = date.isEmpty() ? java.time.LocalDate.now().toString() : date;
+            outputArea.append("Importing " + file + " ...\n");
+            processInBackground("Importing", (sink, monitor) -> {
+                AfriGuardTransfer.ImportResult result;
+                try {
+                    result = AfriGuardTransfer.importFile(file, defaultDate);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException("Could not import " + file, ex);
+                }
+                AfriGuardStore.ColumnarAlertStore imported = result.getAlerts();
+                for (int from = 0; from < imported.size(); from += IMPORT_BATCH) {
+                    if (monitor.isCancelled()) throw new CancellationException("Import cancelled after " + from + " of " + imported.size() + " alerts");
+                    int start = from, end = Math.min(imported.size(), from + IMPORT_BATCH);
+                    try {
+                        EventQueue.invokeAndWait(() -> storeAlerts(imported, start, end));
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        throw new CancellationException("Import interrupted");
+                    } catch (java.lang.reflect.InvocationTargetException ex) {
+                        throw new IllegalStateException("Could not store imported alerts", ex.getCause());
+                    }
+                    monitor.progress(end, imported.size());
+                }
+                StringBuilder report = new StringBuilder("Imported " + file.getFileName() + ": " + result + "\n");
+                int shown = 0;
+                for (AfriGuardTransfer.Rejection r : result.getRejections()) {
+                    if (shown++ == 20) {
+                        report.append("  ... ").append(result.getRejected() - 20).append(" more rejected lines\n");
+                        break;
+                    }
+                    report.append("  rejected ").append(r).append('\n');
+                }
+                sink.append(report);
+            });
+        }
+
+        // Exports a snapshot of the current model; alerts added meanwhile are not included
+        private void exportToFile() {
+            Path file = chooseFile("Export alerts", FileDialog.SAVE);
+            if (file == null) return;
+            AlertSource batch = snapshotModel(0);
+            outputArea.append("Exporting " + batch.size() + " alerts to " + file + " ...\n");
+            processInBackground("Exporting", (sink, monitor) -> {
+                try {
+                    int n = AfriGuardTransfer.exportFile(batch, file);
+                    sink.append("Exported " + n + " alerts to " + file + " (" + AfriGuardTransfer.Format.forPath(file) + ")\n");
+                } catch (IOException ex) {
+                    throw new UncheckedIOException("Could not export to " + file, ex);
+                }
+            });
+        }
+
+        // Scores a snapshot of the model under a rules file without changing the stored alerts
+        private void rescoreWithRules() {
+            Path file = chooseFile("Severity rules", FileDialog.LOAD);
+            if (file == null) return;
+            // the repository snapshot and the log are columnar, so rescoring never materializes alerts
+            AlertSource batch = model == alerts ? alerts.snapshot() : model;
+            outputArea.append("Rescoring " + batch.size() + " alerts with " + file + " ...\n");
+            processInBackground("Rescoring", (sink, monitor) -> {
+                AfriGuardRules.SeverityRules rules;
+                try {
+                    rules = AfriGuardRules.SeverityRules.load(file);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException("Could not read " + file, ex);
+                }
+                int[] severities = new int[batch.size()];
+                long t0 = System.nanoTime();
+                AlertSummary summary = rules.rescore(batch, severities, batch.size() >= PARALLEL_THRESHOLD);
+                long millis = (System.nanoTime() - t0) / 1_000_000;
+                sink.append("Rescored " + batch.size() + " alerts in " + millis + " ms with " + rules + "\n  " + summary + "\n");
+            });
+        }
+
+        private Path chooseFile(String title, int mode) {
+            FileDialog fd = new FileDialog(this, title, mode);
+            fd.setVisible(true);
+            return fd.getFile() == null ? null : java.nio.file.Paths.get(fd.getDirectory(), fd.getFile());
+        }
 
-            // 2) EndemicAlert (widespread)
-            alerts.add(new EndemicAlert("KE", "MALARIA", 12000, "2025-10-26", new String[]{"Nairobi","Mombasa","Kisumu","Nakuru"}));
-            alertList.add(alerts.get(alerts.size()-1).toString());
+        // Stores rows [from, to) of a bulk import through one view; the list is refreshed once per batch
+        private void storeAlerts(AfriGuardStore.ColumnarAlertStore source, int from, int to) {
+            AfriGuardStore.AlertView view = source.view();
+            for (int row = from; row < to; row++) record(view.moveTo(row));
+            alertList.rowsChanged();
+        }
 
-            // 3) Outbreak requiring international response
-            alerts.add(new OutbreakAlert("ET", "VHF", 2000, "2025-10-25", 3.5));
-            alertList.add(alerts.get(alerts.size()-1).toString());
+        // Every new alert goes to the model (log or memory), the severity index, the trends and the visible list
+        private void storeAlert(HealthAlert alert) {
+            record(alert);
+            alertList.rowsChanged();
+        }
 
-            // 4) EndemicAlert
-            alerts.add(new EndemicAlert("UG", "CHOLERA", 800, "2025-10-20", new String[]{"Central","East"}));
-            alertList.add(alerts.get(alerts.size()-1).toString());
+        private void record(HealthAlert alert) {
+            int row;
+            if (model == log) {
+                try {
+                    row = log.append(alert);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException("Could not append to the alert log", ex);
+                }
+            } else {
+                row = alerts.append(alert);
+            }
+            severityIndex.add(alert);
+            trends.add(alert);
+            alertIndex.add(row, alert);
+        }
 
-            // 5) Another Outbreak
-            alerts.add(new OutbreakAlert("ZA", "MEASLES", 300, "2025-10-23", 1.2));
-            alertList.add(alerts.get(alerts.size()-1).toString());
+        // Alerts matching the filled-in Country / Disease fields and the first Regions entry,
+        // answered from the secondary indexes without scanning the alerts
+        private static final int FILTER_SHOWN = 20;
 
-            // 6) EndemicAlert
-            alerts.add(new EndemicAlert("GH", "HEPATITIS", 2500, "2025-10-22", new String[]{"Accra","Kumasi","Tamale"}));
-            alertList.add(alerts.get(alerts.size()-1).toString());
+        private void showFiltered() {
+            String c = tfCountry.getText().trim();
+            String d = tfDisease.getText().trim();
+            String[] regions = tfRegions.getText().trim().split("\\s+");
+            String r = regions[0];
+            if (c.isEmpty() && d.isEmpty() && r.isEmpty()) {
+                showDialog("Please fill Country, Disease and/or Regions to filter on.");
+                return;
+            }
+            long t0 = System.nanoTime();
+            AfriGuardIndex.RowBitmap rows = alertIndex.query(c, d, r);
+            long micros = (System.nanoTime() - t0) / 1_000;
+            StringBuilder sb = new StringBuilder();
+            sb.append("Filter country=").append(c.isEmpty() ? "*" : c).append(" disease=").append(d.isEmpty() ? "*" : d)
+              .append(" region=").append(r.isEmpty() ? "*" : r).append(": ").append(rows.cardinality())
+              .append(" of ").append(alertIndex.getRows()).append(" alerts (").append(micros).append(" us)\n");
+            for (int row : rows.toArray(FILTER_SHOWN)) sb.append("  #").append(row).append(' ').append(alertAt(row)).append('\n');
+            if (rows.cardinality() > FILTER_SHOWN) sb.append("  ... ").append(rows.cardinality() - FILTER_SHOWN).append(" more\n");
+            outputSink.append(sb);
+            outputSink.flush();
+        }
 
-            // Add an explicit null into the ArrayList to test null handling (this will also appear in process array)
-            alerts.add(null);
-            alertList.add("NULL (intentional)");
+        // Read through the EDT cursor: valid until the next call, so use it right away
+        private HealthAlert alertAt(int row) {
+            return modelCursor.at(row);
+        }
 
-            outputArea.append("Demo alerts seeded (" + alerts.size() + " items, including null). Now processing...\n");
-            HealthAlert[] arr = alerts.toArray(new HealthAlert[0]);
-            dashboardLogic.processAlerts(arr, outputArea);
+        private void setModel(AlertSource source) {
+            model = source;
+            modelCursor = source.cursor();
+        }
+
+        // Trend report for the Country / Disease fields, ending at the Date field (today if empty)
+        private void showTrends() {
+            String c = tfCountry.getText().trim();
+            String d = tfDisease.getText().trim();
+            if (c.isEmpty() || d.isEmpty()) {
+                showDialog("Please fill Country and Disease to show their trend.");
+                return;
+            }
+            String date = tfDate.getText().trim();
+            int endDay = date.isEmpty() ? (int) java.time.LocalDate.now().toEpochDay() : AfriGuardStore.ColumnarAlertStore.toEpochDay(date);
+            if (endDay == AfriGuardStore.ColumnarAlertStore.UNKNOWN_DAY) {
+                showDialog("Date must be in YYYY-MM-DD format.");
+                return;
+            }
+            trends.report(outputSink, c, d, endDay);
+            outputSink.flush();
+        }
+
+        // Seed with at least 6 alerts (mix), include null, and process
+        // Demo alerts are kept in memory only; the persistent log is left untouched
+        private void seedDemoAlertsAndProcess() {
+            if (log != null) {
+                runDemoBesideLog();
+                return;
+            }
+            alerts = new AfriGuardRepository.ConcurrentAlertRepository();
+            setModel(alerts);
+            incremental.reset();
+            severityIndex.clear();
+            trends.clear();
+            alertIndex.clear();
+            demoNullRow = false;
+            alertList.rowsChanged();
+
+            for (HealthAlert alert : demoAlerts()) storeAlert(alert);
+
+            // The columnar store holds no nulls; the intentional null is the trailing slot added at processing time
+            demoNullRow = true;
+            alertList.rowsChanged();
+
+            outputArea.append("Demo alerts seeded in memory (" + (alerts.size() + 1) + " items, including null). Now processing...\n");
+            AlertSource batch = withTrailingNull(alerts.snapshot());
+            processInBackground("Demo processing", (sink, monitor) -> dashboardLogic.processAlerts(batch, sink, false, monitor));
+        }
+
+        // With a log open the demo gets a repository of its own: the list, the indexes and where
+        // new alerts are stored all stay on the log
+        private void runDemoBesideLog() {
+            AfriGuardRepository.ConcurrentAlertRepository demo = new AfriGuardRepository.ConcurrentAlertRepository();
+            for (HealthAlert alert : demoAlerts()) demo.append(alert);
+            outputArea.append("Demo alerts seeded in a separate in-memory store (" + (demo.size() + 1) + " items, including null); "
+                    + "the alert log stays the model and new alerts keep going to it. Now processing...\n");
+            AlertSource batch = withTrailingNull(demo.snapshot());
+            processInBackground("Demo processing", (sink, monitor) -> dashboardLogic.processAlerts(batch, sink, false, monitor));
+        }
+
+        private static HealthAlert[] demoAlerts() {
+            return new HealthAlert[] {
+                // 1) OutbreakAlert
+                new OutbreakAlert("NG", "LASSA_FEVER", 450, "2025-10-27", 5.1),
+                // 2) EndemicAlert (widespread)
+                new EndemicAlert("KE", "MALARIA", 12000, "2025-10-26", new String[]{"Nairobi","Mombasa","Kisumu","Nakuru"}),
+                // 3) Outbreak requiring international response
+                new OutbreakAlert("ET", "VHF", 2000, "2025-10-25", 3.5),
+                // 4) EndemicAlert
+                new EndemicAlert("UG", "CHOLERA", 800, "2025-10-20", new String[]{"Central","East"}),
+                // 5) Another Outbreak
+                new OutbreakAlert("ZA", "MEASLES", 300, "2025-10-23", 1.2),
+                // 6) EndemicAlert
+                new EndemicAlert("GH", "HEPATITIS", 2500, "2025-10-22", new String[]{"Accra","Kumasi","Tamale"}),
+            };
         }
 
         private void showDialog(String msg) {
@@ -479,7 +1672,24 @@ public class AfriGuardAWT {
 
         // WindowListener
         public void windowOpened(WindowEvent e) {}
-        public void windowClosing(WindowEvent e) { dispose(); }
+        public void windowClosing(WindowEvent e) {
+            jobs.shutdown();
+            if (outputSpill != null) {
+                try {
+                    outputSpill.close();
+                } catch (IOException ex) {
+                    System.err.println("Could not close the output spill file: " + ex.getMessage());
+                }
+            }
+            if (log != null) {
+                try {
+                    log.close();
+                } catch (IOException ex) {
+                    System.err.println("Could not close the alert log: " + ex.getMessage());
+                }
+            }
+            dispose();
+        }
         public void windowClosed(WindowEvent e) { System.exit(0); }
         public void windowIconified(WindowEvent e) {}
         public void windowDeiconified(WindowEvent e) {}
@@ -491,6 +1701,9 @@ public class AfriGuardAWT {
     // Main
     // -------------------------
     public static void main(String[] args) {
+        // JMX MBean, optional snapshot dump, and timing of everything the EDT dispatches
+        AfriGuardMetrics.PipelineMetrics.publish();
+        AfriGuardMetrics.TimedEventQueue.install(AfriGuardMetrics.PipelineMetrics.GLOBAL);
         // Run GUI on AWT event thread
         EventQueue.invokeLater(() -> {
             try {
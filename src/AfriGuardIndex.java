@@ -0,0 +1,310 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * AfriGuardIndex.java
+ * Secondary indexes over alert row numbers, by country, disease and region.
+ *
+ * - RowBitmap: compressed set of row numbers in the roaring style. Rows are split by their high
+ *   16 bits into containers; a container is a sorted short array while it holds up to 4096 rows
+ *   and a 65536-bit bitmap beyond that, so sparse and dense postings both stay compact.
+ *   Intersections work container by container (merge, probe or word-wise AND).
+ * - AlertIndex: one RowBitmap per interned country, disease and region id, maintained on every add.
+ *   query() intersects the postings of the given keys, smallest first, without touching any alert.
+ *
+ * Compile: javac AfriGuard*.java
+ */
+public class AfriGuardIndex {
+
+    // -------------------------
+    // Compressed row bitmap
+    // -------------------------
+    public static class RowBitmap {
+        static final int ARRAY_MAX = 4096;
+        static final int BITMAP_WORDS = 1 << 10; // 65536 bits
+
+        private char[] keys = new char[4];          // high 16 bits of the rows in containers[i], ascending
+        private Object[] containers = new Object[4]; // char[] (sorted low bits) or long[] (bitmap)
+        private int[] cardinalities = new int[4];
+        private int size;                            // containers in use
+        private long cardinality;
+
+        /** Adds row (>= 0); appending in ascending order is the fast path. */
+        public void add(int row) {
+            if (row < 0) throw new IllegalArgumentException("row must be >= 0: " + row);
+            char key = (char) (row >>> 16);
+            char low = (char) row;
+            int c = size > 0 && keys[size - 1] == key ? size - 1 : containerIndex(key);
+            if (c < 0) {
+                c = -c - 1;
+                insertContainer(c, key);
+            }
+            Object container = containers[c];
+            if (container instanceof long[]) {
+                long[] bits = (long[]) container;
+                long mask = 1L << low;
+                if ((bits[low >>> 6] & mask) != 0) return;
+                bits[low >>> 6] |= mask;
+            } else {
+                char[] values = (char[]) container;
+                int n = cardinalities[c];
+                int pos = n > 0 && values[n - 1] < low ? -n - 1 : Arrays.binarySearch(values, 0, n, low);
+                if (pos >= 0) return;
+                pos = -pos - 1;
+                if (n == ARRAY_MAX) {
+                    long[] bits = toBitmap(values, n);
+                    bits[low >>> 6] |= 1L << low;
+                    containers[c] = bits;
+                } else {
+                    if (n == values.length) containers[c] = values = Arrays.copyOf(values, Math.min(ARRAY_MAX, n * 2));
+                    System.arraycopy(values, pos, values, pos + 1, n - pos);
+                    values[pos] = low;
+                }
+            }
+            cardinalities[c]++;
+            cardinality++;
+        }
+
+        public boolean contains(int row) {
+            if (row < 0) return false;
+            int c = containerIndex((char) (row >>> 16));
+            if (c < 0) return false;
+            char low = (char) row;
+            Object container = containers[c];
+            if (container instanceof long[]) return (((long[]) container)[low >>> 6] & (1L << low)) != 0;
+            return Arrays.binarySearch((char[]) container, 0, cardinalities[c], low) >= 0;
+        }
+
+        public long cardinality() {
+            return cardinality;
+        }
+
+        public boolean isEmpty() {
+            return cardinality == 0;
+        }
+
+        /** Rows in ascending order. */
+        public int[] toArray() {
+            return toArray(Integer.MAX_VALUE);
+        }
+
+        /** The first (lowest) limit rows, in ascending order. */
+        public int[] toArray(int limit) {
+            int[] out = new int[(int) Math.min(limit, cardinality)];
+            int k = 0;
+            for (int c = 0; c < size && k < out.length; c++) {
+                int high = keys[c] << 16;
+                Object container = containers[c];
+                if (container instanceof long[]) {
+                    long[] bits = (long[]) container;
+                    for (int w = 0; w < BITMAP_WORDS && k < out.length; w++) {
+                        long word = bits[w];
+                        while (word != 0 && k < out.length) {
+                            out[k++] = high | (w << 6) | Long.numberOfTrailingZeros(word);
+                            word &= word - 1;
+                        }
+                    }
+                } else {
+                    char[] values = (char[]) container;
+                    for (int i = 0; i < cardinalities[c] && k < out.length; i++) out[k++] = high | values[i];
+                }
+            }
+            return out;
+        }
+
+        /** Rows present in both bitmaps. */
+        public RowBitmap and(RowBitmap other) {
+            RowBitmap result = new RowBitmap();
+            int i = 0, j = 0;
+            while (i < size && j < other.size) {
+                char ki = keys[i], kj = other.keys[j];
+                if (ki < kj) {
+                    i++;
+                } else if (ki > kj) {
+                    j++;
+                } else {
+                    result.appendIntersection(ki, containers[i], cardinalities[i], other.containers[j], other.cardinalities[j]);
+                    i++;
+                    j++;
+                }
+            }
+            return result;
+        }
+
+        private void appendIntersection(char key, Object a, int na, Object b, int nb) {
+            Object container;
+            int n;
+            if (a instanceof long[] && b instanceof long[]) {
+                long[] x = (long[]) a, y = (long[]) b;
+                long[] bits = new long[BITMAP_WORDS];
+                n = 0;
+                for (int w = 0; w < BITMAP_WORDS; w++) n += Long.bitCount(bits[w] = x[w] & y[w]);
+                container = n > ARRAY_MAX ? bits : toArray(bits, n);
+            } else if (a instanceof long[] || b instanceof long[]) {
+                long[] bits = (long[]) (a instanceof long[] ? a : b);
+                char[] values = (char[]) (a instanceof long[] ? b : a);
+                int count = a instanceof long[] ? nb : na;
+                char[] out = new char[count];
+                n = 0;
+                for (int k = 0; k < count; k++) {
+                    char v = values[k];
+                    if ((bits[v >>> 6] & (1L << v)) != 0) out[n++] = v;
+                }
+                container = out;
+            } else {
+                char[] x = (char[]) a, y = (char[]) b;
+                char[] out = new char[Math.min(na, nb)];
+                n = 0;
+                for (int p = 0, q = 0; p < na && q < nb; ) {
+                    if (x[p] < y[q]) p++;
+                    else if (x[p] > y[q]) q++;
+                    else { out[n++] = x[p]; p++; q++; }
+                }
+                container = out;
+            }
+            if (n == 0) return;
+            insertContainer(size, key);
+            containers[size - 1] = container;
+            cardinalities[size - 1] = n;
+            cardinality += n;
+        }
+
+        private int containerIndex(char key) {
+            return Arrays.binarySearch(keys, 0, size, key);
+        }
+
+        private void insertContainer(int at, char key) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                containers = Arrays.copyOf(containers, size * 2);
+                cardinalities = Arrays.copyOf(cardinalities, size * 2);
+            }
+            System.arraycopy(keys, at, keys, at + 1, size - at);
+            System.arraycopy(containers, at, containers, at + 1, size - at);
+            System.arraycopy(cardinalities, at, cardinalities, at + 1, size - at);
+            keys[at] = key;
+            containers[at] = new char[4];
+            cardinalities[at] = 0;
+            size++;
+        }
+
+        private static long[] toBitmap(char[] values, int n) {
+            long[] bits = new long[BITMAP_WORDS];
+            for (int i = 0; i < n; i++) bits[values[i] >>> 6] |= 1L << values[i];
+            return bits;
+        }
+
+        private static char[] toArray(long[] bits, int n) {
+            char[] out = new char[n];
+            int k = 0;
+            for (int w = 0; w < BITMAP_WORDS; w++) {
+                for (long word = bits[w]; word != 0; word &= word - 1) out[k++] = (char) ((w << 6) | Long.numberOfTrailingZeros(word));
+            }
+            return out;
+        }
+
+        /** Approximate heap footprint of the containers, for capacity planning. */
+        public long memoryBytes() {
+            long bytes = keys.length * 2L + containers.length * 8L + cardinalities.length * 4L;
+            for (int c = 0; c < size; c++) {
+                Object container = containers[c];
+                bytes += container instanceof long[] ? BITMAP_WORDS * 8L : ((char[]) container).length * 2L;
+            }
+            return bytes;
+        }
+    }
+
+    // -------------------------
+    // Country / disease / region index
+    // -------------------------
+    /**
+     * Row postings per country, disease and region. Rows are whatever numbering the caller uses
+     * (the dashboard uses the model's row index). Not thread-safe; the dashboard updates and
+     * queries it on the event dispatch thread.
+     */
+    public static class AlertIndex {
+        private final List<RowBitmap> byCountry = new ArrayList<>();
+        private final List<RowBitmap> byDisease = new ArrayList<>();
+        private final List<RowBitmap> byRegion = new ArrayList<>();
+        private long rows;
+
+        /**
+         * Adds the alert's keys for row. A null country, disease or region (SymbolTable code -1)
+         * has no posting and is skipped; the row is checked before any posting changes, so a
+         * rejected add leaves the index as it was.
+         * @throws IllegalArgumentException if row is negative
+         */
+        public void add(int row, AfriGuardAWT.HealthAlert alert) {
+            if (alert == null) return;
+            if (row < 0) throw new IllegalArgumentException("row must be >= 0: " + row);
+            addKey(byCountry, alert.getCountryId(), row);
+            addKey(byDisease, alert.getDiseaseId(), row);
+            if (alert instanceof AfriGuardAWT.EndemicAlert) {
+                AfriGuardAWT.EndemicAlert ea = (AfriGuardAWT.EndemicAlert) alert;
+                for (int i = 0; i < ea.getRegionCount(); i++) addKey(byRegion, ea.getRegionId(i), row);
+            } else if (alert instanceof AfriGuardStore.AlertView) {
+                AfriGuardStore.AlertView view = (AfriGuardStore.AlertView) alert;
+                for (int i = 0; i < view.getRegionCount(); i++) addKey(byRegion, view.getRegionId(i), row);
+            }
+            rows++;
+        }
+
+        public void clear() {
+            byCountry.clear();
+            byDisease.clear();
+            byRegion.clear();
+            rows = 0;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public RowBitmap country(String country) { return lookup(byCountry, AfriGuardAWT.SymbolTable.COUNTRIES.find(country)); }
+        public RowBitmap disease(String disease) { return lookup(byDisease, AfriGuardAWT.SymbolTable.DISEASES.find(disease)); }
+        public RowBitmap region(String region) { return lookup(byRegion, AfriGuardAWT.SymbolTable.REGIONS.find(region)); }
+
+        /**
+         * Rows matching every given key; null or empty keys are not filtered on.
+         * @throws IllegalArgumentException if no key is given
+         */
+        public RowBitmap query(String country, String disease, String region) {
+            List<RowBitmap> postings = new ArrayList<>(3);
+            if (country != null && !country.isEmpty()) postings.add(country(country));
+            if (disease != null && !disease.isEmpty()) postings.add(disease(disease));
+            if (region != null && !region.isEmpty()) postings.add(region(region));
+            if (postings.isEmpty()) throw new IllegalArgumentException("Give at least one of country, disease or region");
+            // smallest first keeps every intermediate result as small as possible
+            postings.sort((a, b) -> Long.compare(a.cardinality(), b.cardinality()));
+            RowBitmap result = postings.get(0);
+            for (int i = 1; i < postings.size() && !result.isEmpty(); i++) result = result.and(postings.get(i));
+            return result;
+        }
+
+        public long memoryBytes() {
+            long bytes = 0;
+            for (List<RowBitmap> postings : List.of(byCountry, byDisease, byRegion)) {
+                for (RowBitmap b : postings) if (b != null) bytes += b.memoryBytes();
+            }
+            return bytes;
+        }
+
+        // id is a SymbolTable code; only null maps below 0, and a null key is not indexed
+        private static void addKey(List<RowBitmap> postings, int id, int row) {
+            if (id < 0) return;
+            while (postings.size() <= id) postings.add(null);
+            RowBitmap b = postings.get(id);
+            if (b == null) postings.set(id, b = new RowBitmap());
+            b.add(row);
+        }
+
+        private static final RowBitmap EMPTY = new RowBitmap();
+
+        // the shared empty bitmap is never handed to add(), only returned for read
+        private static RowBitmap lookup(List<RowBitmap> postings, int id) {
+            RowBitmap b = id >= 0 && id < postings.size() ? postings.get(id) : null;
+            return b != null ? b : EMPTY;
+        }
+    }
+}
@@ -0,0 +1,368 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * AfriGuardIngest.java
+ * Streaming bulk ingest of "COUNTRY,DISEASE,CASES,DEATHS,REGIONS" surveillance feeds.
+ *
+ * Reads a file, InputStream or ReadableByteChannel line by line through a reusable byte buffer
+ * and tokenizes fields by hand (no String.split, no regex, no streams). Each good line becomes
+ * an OutbreakAlert or EndemicAlert handed to a callback; bad lines are only counted. The counts
+ * reach PipelineMetrics.GLOBAL in one update per stream, not per line.
+ *
+ * Compile: javac AfriGuard*.java
+ * Run:     java AfriGuardIngest feed.csv
+ */
+public class AfriGuardIngest {
+
+    // -------------------------
+    // Ingest statistics
+    // -------------------------
+    public static class IngestStats {
+        private long lines;
+        private long parsed;
+        private long outbreaks;
+        private long endemics;
+        private long blankLines;
+        private long insufficientFields;
+        private long numberFormatErrors;
+        private long ambiguous;
+
+        public long getLines() { return lines; }
+        public long getParsed() { return parsed; }
+        public long getOutbreaks() { return outbreaks; }
+        public long getEndemics() { return endemics; }
+        public long getBlankLines() { return blankLines; }
+        public long getInsufficientFields() { return insufficientFields; }
+        public long getNumberFormatErrors() { return numberFormatErrors; }
+        public long getAmbiguous() { return ambiguous; }
+
+        public long getRejected() {
+            return insufficientFields + numberFormatErrors + ambiguous;
+        }
+
+        /** Rejected lines indexed by ParseError ordinal, as PipelineMetrics.recordParsed takes them. */
+        public long[] errorsByReason() {
+            long[] errors = new long[AfriGuardMetrics.ParseError.values().length];
+            errors[AfriGuardMetrics.ParseError.INSUFFICIENT_FIELDS.ordinal()] = insufficientFields;
+            errors[AfriGuardMetrics.ParseError.NUMBER_FORMAT.ordinal()] = numberFormatErrors;
+            errors[AfriGuardMetrics.ParseError.AMBIGUOUS.ordinal()] = ambiguous;
+            return errors;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("lines=%d, parsed=%d (outbreak=%d, endemic=%d), blank=%d, rejected=%d "
+                            + "[insufficientFields=%d, numberFormat=%d, ambiguous=%d]",
+                    lines, parsed, outbreaks, endemics, blankLines, getRejected(),
+                    insufficientFields, numberFormatErrors, ambiguous);
+        }
+    }
+
+    // -------------------------
+    // Streaming parser
+    // -------------------------
+    /**
+     * Line-oriented parser producing the same alerts as SurveillanceDashboard.parseReportData,
+     * but without per-line split/regex work. Not thread-safe: use one instance per stream.
+     */
+    public static class ReportStreamParser {
+        private static final int MAX_FIELDS = 5;
+        private static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+        private final String reportDate;
+        private final SymbolCache countries = new SymbolCache(AfriGuardAWT.SymbolTable.COUNTRIES);
+        private final SymbolCache diseases = new SymbolCache(AfriGuardAWT.SymbolTable.DISEASES);
+        private final SymbolCache regions = new SymbolCache(AfriGuardAWT.SymbolTable.REGIONS);
+        private final int[] fieldStart = new int[MAX_FIELDS];
+        private final int[] fieldEnd = new int[MAX_FIELDS];
+        private final int bufferSize;
+
+        public ReportStreamParser() {
+            this(java.time.LocalDate.now().toString(), DEFAULT_BUFFER_SIZE);
+        }
+
+        /**
+         * @param reportDate date stamped on every alert of this stream (parseReportData uses today's date)
+         * @param bufferSize initial read buffer size; grows if a single line is longer
+         */
+        public ReportStreamParser(String reportDate, int bufferSize) {
+            this.reportDate = reportDate;
+            this.bufferSize = Math.max(bufferSize, 64);
+        }
+
+        public IngestStats parse(Path file, Consumer<AfriGuardAWT.HealthAlert> callback) throws IOException {
+            try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+                return parse(ch, callback);
+            }
+        }
+
+        public IngestStats parse(InputStream in, Consumer<AfriGuardAWT.HealthAlert> callback) throws IOException {
+            return parse(Channels.newChannel(in), callback);
+        }
+
+        /**
+         * Reads the channel to EOF, invoking callback once per successfully parsed line.
+         * The channel is not closed. The lines read are added to PipelineMetrics.GLOBAL at the end,
+         * also when reading or the callback fails.
+         */
+        public IngestStats parse(ReadableByteChannel ch, Consumer<AfriGuardAWT.HealthAlert> callback) throws IOException {
+            IngestStats stats = new IngestStats();
+            try {
+                read(ch, callback, stats);
+            } finally {
+                AfriGuardMetrics.PipelineMetrics.GLOBAL.recordParsed(stats.parsed, stats.errorsByReason());
+            }
+            return stats;
+        }
+
+        private void read(ReadableByteChannel ch, Consumer<AfriGuardAWT.HealthAlert> callback, IngestStats stats) throws IOException {
+            ByteBuffer buf = ByteBuffer.allocate(bufferSize);
+
+            while (true) {
+                int n = ch.read(buf);
+                byte[] a = buf.array();
+                int limit = buf.position();
+                int lineStart = 0;
+
+                for (int i = 0; i < limit; i++) {
+                    if (a[i] == '\n') {
+                        parseLine(a, lineStart, i, stats, callback);
+                        lineStart = i + 1;
+                    }
+                }
+
+                if (n < 0) {
+                    if (lineStart < limit) parseLine(a, lineStart, limit, stats, callback);
+                    break;
+                }
+
+                if (lineStart == 0 && limit == buf.capacity()) {
+                    // single line longer than the buffer: grow and keep reading
+                    ByteBuffer bigger = ByteBuffer.allocate(buf.capacity() * 2);
+                    buf.flip();
+                    bigger.put(buf);
+                    buf = bigger;
+                } else {
+                    // move the unfinished tail to the front
+                    buf.limit(limit).position(lineStart);
+                    buf.compact();
+                }
+            }
+        }
+
+        // Parses a single line [start, end) (without the '\n'); CR before LF is ignored.
+        private void parseLine(byte[] a, int start, int end, IngestStats stats, Consumer<AfriGuardAWT.HealthAlert> callback) {
+            stats.lines++;
+            if (end > start && a[end - 1] == '\r') end--;
+
+            if (isBlank(a, start, end)) {
+                stats.blankLines++;
+                return;
+            }
+
+            // locate up to MAX_FIELDS comma-separated fields (extra fields are ignored like parts[5..])
+            int fields = 0;
+            int fs = start;
+            for (int i = start; i <= end && fields < MAX_FIELDS; i++) {
+                if (i == end || a[i] == ',') {
+                    fieldStart[fields] = fs;
+                    fieldEnd[fields] = i;
+                    trim(a, fields);
+                    fields++;
+                    fs = i + 1;
+                }
+            }
+
+            if (fields < 3) {
+                stats.insufficientFields++;
+                return;
+            }
+
+            long cases = parseInt(a, fieldStart[2], fieldEnd[2]);
+            if (cases == NOT_A_NUMBER) {
+                stats.numberFormatErrors++;
+                return;
+            }
+
+            String country = countries.lookup(a, fieldStart[0], fieldEnd[0]);
+            String disease = diseases.lookup(a, fieldStart[1], fieldEnd[1]);
+
+            // deaths field present and numeric -> OutbreakAlert
+            boolean deathsPresent = fields >= 4 && fieldEnd[3] > fieldStart[3];
+            if (deathsPresent) {
+                long deaths = parseInt(a, fieldStart[3], fieldEnd[3]);
+                if (deaths != NOT_A_NUMBER) {
+                    double deathRate = cases > 0 ? (deaths * 100.0) / cases : 0.0;
+                    stats.parsed++;
+                    stats.outbreaks++;
+                    callback.accept(new AfriGuardAWT.OutbreakAlert(country, disease, (int) cases, reportDate, deathRate));
+                    return;
+                }
+            }
+
+            // regions: 5th field, or a non-numeric 4th field when there is no 5th
+            int regionField = -1;
+            if (fields >= 5) regionField = 4;
+            else if (deathsPresent) regionField = 3;
+
+            if (regionField >= 0 && fieldEnd[regionField] > fieldStart[regionField]) {
+                String[] regions = splitRegions(a, fieldStart[regionField], fieldEnd[regionField], this.regions);
+                stats.parsed++;
+                stats.endemics++;
+                callback.accept(new AfriGuardAWT.EndemicAlert(country, disease, (int) cases, reportDate, regions));
+                return;
+            }
+
+            stats.ambiguous++;
+        }
+
+        private void trim(byte[] a, int f) {
+            int s = fieldStart[f], e = fieldEnd[f];
+            while (s < e && (a[s] & 0xFF) <= ' ') s++;
+            while (e > s && (a[e - 1] & 0xFF) <= ' ') e--;
+            fieldStart[f] = s;
+            fieldEnd[f] = e;
+        }
+    }
+
+    // -------------------------
+    // Symbol cache
+    // -------------------------
+    /**
+     * Per-parser cache from raw field bytes to the canonical interned String, so repeated
+     * country / disease / region values cost a hash probe instead of a String allocation.
+     * Unknown values are decoded once and registered in the shared SymbolTable.
+     */
+    static final class SymbolCache {
+        private static final int CAPACITY = 4096; // power of two; cache stops growing at half full
+
+        private final AfriGuardAWT.SymbolTable table;
+        private final byte[][] keys = new byte[CAPACITY][];
+        private final String[] values = new String[CAPACITY];
+        private int size;
+
+        SymbolCache(AfriGuardAWT.SymbolTable table) {
+            this.table = table;
+        }
+
+        String lookup(byte[] a, int start, int end) {
+            int h = 0x811C9DC5;
+            for (int i = start; i < end; i++) h = (h ^ a[i]) * 0x01000193;
+            int slot = (h ^ (h >>> 16)) & (CAPACITY - 1);
+            int len = end - start;
+            while (keys[slot] != null) {
+                byte[] k = keys[slot];
+                if (k.length == len && Arrays.equals(k, 0, len, a, start, end)) return values[slot];
+                slot = (slot + 1) & (CAPACITY - 1);
+            }
+            String value = table.intern(new String(a, start, len, StandardCharsets.UTF_8));
+            if (size < CAPACITY / 2) {
+                keys[slot] = Arrays.copyOfRange(a, start, end);
+                values[slot] = value;
+                size++;
+            }
+            return value;
+        }
+    }
+
+    // -------------------------
+    // Byte-level helpers
+    // -------------------------
+    private static final long NOT_A_NUMBER = Long.MIN_VALUE;
+
+    // Integer.parseInt semantics on an ASCII range: optional sign, digits only, int range.
+    static long parseInt(byte[] a, int start, int end) {
+        if (start >= end) return NOT_A_NUMBER;
+        boolean negative = false;
+        int i = start;
+        if (a[i] == '-' || a[i] == '+') {
+            negative = a[i] == '-';
+            i++;
+            if (i == end) return NOT_A_NUMBER;
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            int d = a[i] - '0';
+            if (d < 0 || d > 9) return NOT_A_NUMBER;
+            value = value * 10 + d;
+            if (value > (long) Integer.MAX_VALUE + 1) return NOT_A_NUMBER;
+        }
+        if (negative) value = -value;
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) return NOT_A_NUMBER;
+        return value;
+    }
+
+    // Matches regionsRaw.split("\\s+|;|\\||,") followed by trim() and dropping empty tokens.
+    static String[] splitRegions(byte[] a, int start, int end, SymbolCache symbols) {
+        int count = 0;
+        for (int i = start; i < end; ) {
+            while (i < end && isRegionSeparator(a[i])) i++;
+            int ts = i;
+            while (i < end && !isRegionSeparator(a[i])) i++;
+            if (trimmedLength(a, ts, i) > 0) count++;
+        }
+
+        String[] regions = new String[count];
+        int r = 0;
+        for (int i = start; i < end; ) {
+            while (i < end && isRegionSeparator(a[i])) i++;
+            int ts = i;
+            while (i < end && !isRegionSeparator(a[i])) i++;
+            int te = i;
+            while (ts < te && (a[ts] & 0xFF) <= ' ') ts++;
+            while (te > ts && (a[te - 1] & 0xFF) <= ' ') te--;
+            if (te > ts) regions[r++] = symbols.lookup(a, ts, te);
+        }
+        return regions;
+    }
+
+    private static boolean isRegionSeparator(byte b) {
+        switch (b) {
+            case ' ': case '\t': case '\n': case 0x0B: case '\f': case '\r':
+            case ';': case '|': case ',':
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static int trimmedLength(byte[] a, int s, int e) {
+        while (s < e && (a[s] & 0xFF) <= ' ') s++;
+        while (e > s && (a[e - 1] & 0xFF) <= ' ') e--;
+        return e - s;
+    }
+
+    private static boolean isBlank(byte[] a, int s, int e) {
+        return trimmedLength(a, s, e) == 0;
+    }
+
+    // -------------------------
+    // Main
+    // -------------------------
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: java AfriGuardIngest <feed.csv>");
+            return;
+        }
+
+        long[] severitySum = new long[1];
+        long t0 = System.nanoTime();
+        IngestStats stats = new ReportStreamParser().parse(Paths.get(args[0]),
+                alert -> severitySum[0] += alert.calculateSeverity());
+        long elapsedMs = (System.nanoTime() - t0) / 1_000_000;
+
+        System.out.println("Ingest complete in " + elapsedMs + " ms: " + stats);
+        System.out.println("Total severity: " + severitySum[0]);
+    }
+}
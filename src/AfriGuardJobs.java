@@ -0,0 +1,181 @@
+import java.awt.EventQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * AfriGuardJobs.java
+ * Background jobs for the AWT dashboard, so long processing never runs on the event dispatch thread.
+ *
+ * JobExecutor is a small bounded pool of daemon workers with a bounded queue (submissions beyond it
+ * are rejected instead of piling up). Each Job is a ProgressMonitor: the job body reports progress
+ * and polls for cancellation, and the JobListener sees progress and completion on the EDT.
+ * Progress updates are coalesced: at most one is queued on the EDT per job at any time.
+ *
+ * Compile: javac AfriGuard*.java
+ */
+public class AfriGuardJobs {
+
+    /** Work run on a worker thread; throw CancellationException (or just return) once job.isCancelled(). */
+    public interface JobBody {
+        void run(Job job) throws Exception;
+    }
+
+    /** Callbacks delivered on the AWT event dispatch thread. */
+    public interface JobListener {
+        void progress(Job job);
+
+        /** error is null on success; a CancellationException if the job was cancelled. */
+        void finished(Job job, Throwable error);
+    }
+
+    public enum State { QUEUED, RUNNING, DONE, CANCELLED, FAILED }
+
+    // -------------------------
+    // Job
+    // -------------------------
+    public static class Job implements AfriGuardAWT.ProgressMonitor {
+        private final String name;
+        private final JobListener listener;
+        private volatile State state = State.QUEUED;
+        private volatile boolean cancelled;
+        // set by whichever of run() and cancel() gets there first, so a job finishes exactly once
+        private final AtomicBoolean started = new AtomicBoolean();
+        private final AtomicInteger done = new AtomicInteger();
+        private volatile int total;
+        private final AtomicBoolean progressQueued = new AtomicBoolean();
+        private volatile Future<?> future;
+
+        Job(String name, JobListener listener) {
+            this.name = name;
+            this.listener = listener;
+        }
+
+        public String getName() { return name; }
+        public State getState() { return state; }
+        public int getDone() { return done.get(); }
+        public int getTotal() { return total; }
+
+        /** 0..100, or -1 while the total is unknown. */
+        public int getPercent() {
+            int t = total;
+            return t <= 0 ? -1 : (int) (100L * done.get() / t);
+        }
+
+        @Override
+        public void progress(int done, int total) {
+            // parallel chunks report out of order; keep the highest count
+            this.done.accumulateAndGet(done, Math::max);
+            this.total = total;
+            // coalesce: the queued update reads the latest values when it runs
+            if (progressQueued.compareAndSet(false, true)) {
+                EventQueue.invokeLater(() -> {
+                    progressQueued.set(false);
+                    listener.progress(this);
+                });
+            }
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        /** Cooperative: a queued job never starts, a running one stops at its next progress check. */
+        public void cancel() {
+            cancelled = true;
+            if (started.compareAndSet(false, true)) {
+                Future<?> f = future;
+                // no interrupt: it would close any FileChannel the job is using
+                if (f != null) f.cancel(false);
+                finish(State.CANCELLED, new CancellationException(name + " cancelled before it started"));
+            }
+        }
+
+        void run(JobBody body) {
+            if (!started.compareAndSet(false, true)) return; // cancelled while queued
+            state = State.RUNNING;
+            try {
+                body.run(this);
+                if (cancelled) finish(State.CANCELLED, new CancellationException(name + " cancelled"));
+                else finish(State.DONE, null);
+            } catch (CancellationException ce) {
+                finish(State.CANCELLED, ce);
+            } catch (Throwable t) {
+                finish(State.FAILED, t);
+            }
+        }
+
+        private void finish(State end, Throwable error) {
+            state = end;
+            EventQueue.invokeLater(() -> listener.finished(this, error));
+        }
+
+        @Override
+        public String toString() {
+            int pct = getPercent();
+            return name + " " + state.name().toLowerCase() + (pct >= 0 ? String.format(" %d%% (%d/%d)", pct, done.get(), total) : "");
+        }
+    }
+
+    // -------------------------
+    // Executor
+    // -------------------------
+    public static class JobExecutor {
+        private final ThreadPoolExecutor pool;
+        private final java.util.Set<Job> active = java.util.concurrent.ConcurrentHashMap.newKeySet();
+
+        public JobExecutor(int workers, int queueCapacity) {
+            AtomicInteger ids = new AtomicInteger();
+            pool = new ThreadPoolExecutor(workers, workers, 30, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueCapacity), r -> {
+                Thread t = new Thread(r, "afriguard-job-" + ids.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+            pool.allowCoreThreadTimeOut(true);
+        }
+
+        /** @throws RejectedExecutionException if all workers are busy and the queue is full */
+        public Job submit(String name, JobBody body, JobListener listener) {
+            Job job = new Job(name, new JobListener() {
+                @Override
+                public void progress(Job j) {
+                    listener.progress(j);
+                }
+
+                @Override
+                public void finished(Job j, Throwable error) {
+                    active.remove(j);
+                    listener.finished(j, error);
+                }
+            });
+            active.add(job);
+            try {
+                job.future = pool.submit(() -> job.run(body));
+            } catch (RejectedExecutionException ex) {
+                active.remove(job);
+                throw ex;
+            }
+            return job;
+        }
+
+        /** Jobs that are queued or running. */
+        public int activeCount() {
+            return active.size();
+        }
+
+        public void cancelAll() {
+            for (Job job : active) job.cancel();
+        }
+
+        public void shutdown() {
+            cancelAll();
+            pool.shutdown();
+        }
+    }
+}
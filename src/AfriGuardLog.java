@@ -0,0 +1,524 @@
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * AfriGuardLog.java
+ * Persistent, append-only alert log kept off the Java heap in memory-mapped segment files.
+ *
+ * Each alert is one fixed-width record (RECORD_SIZE bytes) in a segment mapped with FileChannel.map,
+ * so record i lives at a computed offset: random access is O(1) and sequential scans read the
+ * mapping directly. Strings (country, disease, region, free-form dates) are stored once in an
+ * append-only dictionary file and referenced from records by number, so the dictionary grows with
+ * the vocabulary, not with the alerts. A record's regions are a run of dictionary ids in a mapped
+ * side table. When a segment is full a new one is created (rollover); reopening the directory maps
+ * the existing segments and carries on.
+ *
+ * Layout of a log directory:
+ *   symbols.txt          one dictionary string per line, id = line number
+ *   regions.tbl          header + one dictionary id (int) per region of every endemic record
+ *   alerts-000000.seg    header (HEADER_SIZE bytes) + recordsPerSegment records
+ *   alerts-000001.seg    ...
+ *
+ * Compile: javac AfriGuard*.java
+ * Run:     java AfriGuardLog <log-dir> [feed.csv]   (append a feed, then print the log summary)
+ */
+public class AfriGuardLog {
+
+    public static class MappedAlertLog implements AfriGuardStore.AlertRows, Closeable {
+        public static final int DEFAULT_RECORDS_PER_SEGMENT = 1 << 20;
+
+        static final int MAGIC = 0x41474C47; // "AGLG"
+        static final int VERSION = 1;
+
+        // segment header
+        static final int HEADER_SIZE = 32;
+        static final int H_MAGIC = 0;
+        static final int H_VERSION = 4;
+        static final int H_RECORD_SIZE = 8;
+        static final int H_CAPACITY = 12;
+        static final int H_COUNT = 16;
+
+        // record layout
+        static final int RECORD_SIZE = 40;
+        static final int R_KIND = 0;          // byte: ColumnarAlertStore.OUTBREAK / ENDEMIC
+        static final int R_REGION_COUNT = 2;  // short (unsigned)
+        static final int R_COUNTRY = 4;       // int dictionary id
+        static final int R_DISEASE = 8;       // int dictionary id
+        static final int R_CASES = 12;        // int
+        static final int R_DAY = 16;          // int epoch day, UNKNOWN_DAY if not ISO
+        static final int R_REGIONS = 20;      // int index of the first region in regions.tbl, -1 if none
+        static final int R_DATE = 24;         // int dictionary id of a free-form date, -1 if none
+        static final int R_DEATH_RATE = 32;   // double
+
+        // a single mapping is limited to Integer.MAX_VALUE bytes
+        public static final int MAX_RECORDS_PER_SEGMENT = (Integer.MAX_VALUE - HEADER_SIZE) / RECORD_SIZE;
+
+        /** Most regions one alert can have: the record keeps the count in an unsigned short. */
+        public static final int MAX_REGIONS = 0xFFFF;
+
+        private static final String DICTIONARY_FILE = "symbols.txt";
+        private static final String REGIONS_FILE = "regions.tbl";
+
+        private final Path dir;
+        private final int recordsPerSegment;
+        private final List<FileChannel> channels = new ArrayList<>();
+        // replaced (never mutated) on rollover, so readers can index it without locking
+        private volatile MappedByteBuffer[] segments = new MappedByteBuffer[0];
+        private volatile int size;
+
+        // dictionary: kept on heap, it only grows with distinct strings, not with alerts
+        private final HashMap<String, Integer> symbolIds = new HashMap<>();
+        private volatile String[] symbols = new String[64];
+        private int symbolCount;
+        // dictionary id -> shared SymbolTable code, one map per role a string can play in a record
+        private final CodeMap countryCodes = new CodeMap(AfriGuardAWT.SymbolTable.COUNTRIES, 64);
+        private final CodeMap diseaseCodes = new CodeMap(AfriGuardAWT.SymbolTable.DISEASES, 64);
+        private final CodeMap regionCodes = new CodeMap(AfriGuardAWT.SymbolTable.REGIONS, 64);
+        private final BufferedWriter dictionary;
+        private final RegionTable regionTable;
+
+        public MappedAlertLog(Path dir) throws IOException {
+            this(dir, DEFAULT_RECORDS_PER_SEGMENT);
+        }
+
+        /** Opens (or creates) the log in dir; recordsPerSegment only applies to segments created from now on. */
+        public MappedAlertLog(Path dir, int recordsPerSegment) throws IOException {
+            if (recordsPerSegment <= 0 || recordsPerSegment > MAX_RECORDS_PER_SEGMENT) {
+                throw new IllegalArgumentException("recordsPerSegment must be in 1.." + MAX_RECORDS_PER_SEGMENT + ": " + recordsPerSegment);
+            }
+            this.dir = dir;
+            Files.createDirectories(dir);
+            Path dictionaryPath = dir.resolve(DICTIONARY_FILE);
+            if (Files.exists(dictionaryPath)) {
+                for (String s : Files.readAllLines(dictionaryPath, StandardCharsets.UTF_8)) register(s);
+            }
+            dictionary = Files.newBufferedWriter(dictionaryPath, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            regionTable = new RegionTable(dir.resolve(REGIONS_FILE));
+
+            int existingCapacity = openSegments();
+            this.recordsPerSegment = existingCapacity > 0 ? existingCapacity : recordsPerSegment;
+        }
+
+        // Maps every existing segment in name order; returns their record capacity (0 if none)
+        private int openSegments() throws IOException {
+            List<Path> files = new ArrayList<>();
+            try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, "alerts-*.seg")) {
+                for (Path p : ds) files.add(p);
+            }
+            files.sort(null);
+            int capacity = 0;
+            int total = 0;
+            for (int i = 0; i < files.size(); i++) {
+                Path p = files.get(i);
+                if (!p.getFileName().toString().equals(segmentName(i))) throw new IOException("Missing alert log segment before " + p);
+                FileChannel ch = FileChannel.open(p, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_WRITE, 0, ch.size());
+                if (buf.capacity() < HEADER_SIZE || buf.getInt(H_MAGIC) != MAGIC) {
+                    ch.close();
+                    throw new IOException("Not an alert log segment: " + p);
+                }
+                if (buf.getInt(H_VERSION) != VERSION || buf.getInt(H_RECORD_SIZE) != RECORD_SIZE) {
+                    ch.close();
+                    throw new IOException("Unsupported alert log segment format: " + p);
+                }
+                int cap = buf.getInt(H_CAPACITY);
+                if (capacity == 0) capacity = cap;
+                int count = buf.getInt(H_COUNT);
+                if (cap != capacity || count < 0 || count > cap || (count < cap && i < files.size() - 1)) {
+                    ch.close();
+                    throw new IOException("Corrupt alert log segment header: " + p);
+                }
+                channels.add(ch);
+                addSegment(buf);
+                total += count;
+            }
+            size = total;
+            return capacity;
+        }
+
+        private static String segmentName(int index) {
+            return String.format("alerts-%06d.seg", index);
+        }
+
+        private MappedByteBuffer newSegment() throws IOException {
+            Path p = dir.resolve(segmentName(segments.length));
+            FileChannel ch = FileChannel.open(p, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) recordsPerSegment * RECORD_SIZE);
+            buf.putInt(H_MAGIC, MAGIC);
+            buf.putInt(H_VERSION, VERSION);
+            buf.putInt(H_RECORD_SIZE, RECORD_SIZE);
+            buf.putInt(H_CAPACITY, recordsPerSegment);
+            buf.putInt(H_COUNT, 0);
+            channels.add(ch);
+            addSegment(buf);
+            return buf;
+        }
+
+        private void addSegment(MappedByteBuffer buf) {
+            MappedByteBuffer[] grown = Arrays.copyOf(segments, segments.length + 1);
+            grown[grown.length - 1] = buf;
+            segments = grown;
+        }
+
+        // -------------------------
+        // Appending
+        // -------------------------
+        /**
+         * Appends an OutbreakAlert, EndemicAlert or store AlertView and returns its record index.
+         * @throws IllegalArgumentException for an alert with more than MAX_REGIONS regions
+         */
+        public synchronized int append(AfriGuardAWT.HealthAlert alert) throws IOException {
+            if (alert instanceof AfriGuardAWT.OutbreakAlert) {
+                return write(AfriGuardStore.ColumnarAlertStore.OUTBREAK, alert, ((AfriGuardAWT.OutbreakAlert) alert).getDeathRate(), 0);
+            }
+            if (alert instanceof AfriGuardAWT.EndemicAlert) {
+                return write(AfriGuardStore.ColumnarAlertStore.ENDEMIC, alert, 0.0, ((AfriGuardAWT.EndemicAlert) alert).getRegionCount());
+            }
+            if (alert instanceof AfriGuardStore.AlertView) {
+                AfriGuardStore.AlertView v = (AfriGuardStore.AlertView) alert;
+                if (v.isOutbreak()) return write(AfriGuardStore.ColumnarAlertStore.OUTBREAK, v, v.getDeathRate(), 0);
+                return write(AfriGuardStore.ColumnarAlertStore.ENDEMIC, v, 0.0, v.getRegionCount());
+            }
+            throw new IllegalArgumentException("Unsupported alert type: " + (alert == null ? "null" : alert.getClass().getName()));
+        }
+
+        private int write(byte kind, AfriGuardAWT.HealthAlert alert, double deathRate, int regionCount) throws IOException {
+            // checked before anything is written, so a rejected alert leaves no trace
+            if (regionCount > MAX_REGIONS) {
+                throw new IllegalArgumentException("An alert log record holds at most " + MAX_REGIONS + " regions, got " + regionCount);
+            }
+            int index = size;
+            int seg = index / recordsPerSegment;
+            MappedByteBuffer buf = seg < segments.length ? segments[seg] : newSegment();
+            int slot = index - seg * recordsPerSegment;
+            int at = HEADER_SIZE + slot * RECORD_SIZE;
+
+            String date = alert.getReportDate();
+            int day = AfriGuardStore.ColumnarAlertStore.toEpochDay(date);
+            int firstRegion = -1;
+            if (regionCount > 0) {
+                firstRegion = regionTable.reserve(regionCount);
+                for (int i = 0; i < regionCount; i++) regionTable.set(firstRegion + i, symbolId(AfriGuardStore.AlertView.regionOf(alert, i)));
+                regionTable.commit();
+            }
+
+            buf.put(at + R_KIND, kind);
+            buf.put(at + 1, (byte) 0);
+            buf.putShort(at + R_REGION_COUNT, (short) regionCount);
+            buf.putInt(at + R_COUNTRY, symbolId(alert.getCountryCode()));
+            buf.putInt(at + R_DISEASE, symbolId(alert.getDiseaseName()));
+            buf.putInt(at + R_CASES, alert.getCasesReported());
+            buf.putInt(at + R_DAY, day);
+            buf.putInt(at + R_REGIONS, firstRegion);
+            buf.putInt(at + R_DATE, day == AfriGuardStore.ColumnarAlertStore.UNKNOWN_DAY ? symbolId(date) : -1);
+            buf.putInt(at + 28, 0);
+            buf.putDouble(at + R_DEATH_RATE, deathRate);
+
+            // the count is published last, so a reader never sees a half-written record
+            buf.putInt(H_COUNT, slot + 1);
+            size = index + 1;
+            return index;
+        }
+
+        /** Writes dirty pages of every segment to disk. */
+        public synchronized void force() throws IOException {
+            dictionary.flush();
+            regionTable.force();
+            for (MappedByteBuffer buf : segments) buf.force();
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            force();
+            dictionary.close();
+            regionTable.close();
+            for (FileChannel ch : channels) ch.close();
+        }
+
+        // -------------------------
+        // Dictionary
+        // -------------------------
+        // -1 for null; new strings are written to symbols.txt before any record refers to them
+        private int symbolId(String s) throws IOException {
+            if (s == null) return -1;
+            Integer id = symbolIds.get(s);
+            if (id != null) return id;
+            String stored = s.replace('\n', ' ').replace('\r', ' ');
+            if (!stored.equals(s)) return symbolId(stored);
+            dictionary.write(stored);
+            dictionary.newLine();
+            dictionary.flush();
+            return register(stored);
+        }
+
+        private int register(String s) {
+            int id = symbolCount;
+            String[] table = symbols;
+            if (id == table.length) {
+                table = Arrays.copyOf(table, id * 2);
+                countryCodes.grow(table.length);
+                diseaseCodes.grow(table.length);
+                regionCodes.grow(table.length);
+            }
+            table[id] = s;
+            symbols = table;
+            symbolCount = id + 1;
+            symbolIds.put(s, id);
+            return id;
+        }
+
+        private String symbol(int id) {
+            return id < 0 ? null : symbols[id];
+        }
+
+        // -------------------------
+        // Record access (reads straight from the mapped segments)
+        // -------------------------
+        @Override
+        public int size() { return size; }
+
+        public int segmentCount() { return segments.length; }
+
+        private ByteBuffer segmentOf(int index) {
+            if (index < 0 || index >= size) throw new IndexOutOfBoundsException("record " + index + " of " + size);
+            return segments[index / recordsPerSegment];
+        }
+
+        private int offsetOf(int index) {
+            return HEADER_SIZE + (index % recordsPerSegment) * RECORD_SIZE;
+        }
+
+        @Override
+        public byte kind(int index) { return segmentOf(index).get(offsetOf(index) + R_KIND); }
+
+        @Override
+        public int cases(int index) { return segmentOf(index).getInt(offsetOf(index) + R_CASES); }
+
+        @Override
+        public double deathRate(int index) { return segmentOf(index).getDouble(offsetOf(index) + R_DEATH_RATE); }
+
+        @Override
+        public int regionCount(int index) { return segmentOf(index).getShort(offsetOf(index) + R_REGION_COUNT) & 0xFFFF; }
+
+        @Override
+        public int reportDay(int index) { return segmentOf(index).getInt(offsetOf(index) + R_DAY); }
+
+        @Override
+        public String country(int index) { return symbol(segmentOf(index).getInt(offsetOf(index) + R_COUNTRY)); }
+
+        @Override
+        public String disease(int index) { return symbol(segmentOf(index).getInt(offsetOf(index) + R_DISEASE)); }
+
+        /** Region i of the record, read from the region table without copying the list. */
+        @Override
+        public String region(int index, int i) { return symbol(regionSymbolId(index, i)); }
+
+        private int regionSymbolId(int index, int i) {
+            ByteBuffer buf = segmentOf(index);
+            int at = offsetOf(index);
+            int n = buf.getShort(at + R_REGION_COUNT) & 0xFFFF;
+            if (i < 0 || i >= n) throw new IndexOutOfBoundsException("region " + i + " of " + n);
+            return regionTable.get(buf.getInt(at + R_REGIONS) + i);
+        }
+
+        // Records hold log dictionary ids; views and indexes want the shared SymbolTable codes, which
+        // come from the code maps, so a scan does no string hashing
+        @Override
+        public int countryId(int index) { return countryCodes.code(segmentOf(index).getInt(offsetOf(index) + R_COUNTRY), symbols); }
+
+        @Override
+        public int diseaseId(int index) { return diseaseCodes.code(segmentOf(index).getInt(offsetOf(index) + R_DISEASE), symbols); }
+
+        @Override
+        public int regionId(int index, int i) { return regionCodes.code(regionSymbolId(index, i), symbols); }
+
+        @Override
+        public String reportDate(int index) {
+            ByteBuffer buf = segmentOf(index);
+            int at = offsetOf(index);
+            int day = buf.getInt(at + R_DAY);
+            return day == AfriGuardStore.ColumnarAlertStore.UNKNOWN_DAY ? symbol(buf.getInt(at + R_DATE)) : LocalDate.ofEpochDay(day).toString();
+        }
+
+        public String[] regions(int index) {
+            String[] names = new String[regionCount(index)];
+            for (int i = 0; i < names.length; i++) names[i] = region(index, i);
+            return names;
+        }
+
+        /** Same value calculateSeverity() gives for the alert, computed from the record fields. */
+        @Override
+        public int severity(int index) {
+            return kind(index) == AfriGuardStore.ColumnarAlertStore.OUTBREAK
+                    ? AfriGuardAWT.OutbreakAlert.severityFor(cases(index), deathRate(index))
+                    : AfriGuardAWT.EndemicAlert.severityFor(cases(index), regionCount(index));
+        }
+
+        /** Materializes record index as an OutbreakAlert or EndemicAlert. */
+        @Override
+        public AfriGuardAWT.HealthAlert materialize(int index) {
+            if (kind(index) == AfriGuardStore.ColumnarAlertStore.OUTBREAK) {
+                return new AfriGuardAWT.OutbreakAlert(country(index), disease(index), cases(index), reportDate(index), deathRate(index));
+            }
+            return new AfriGuardAWT.EndemicAlert(country(index), disease(index), cases(index), reportDate(index), regions(index));
+        }
+    }
+
+    // -------------------------
+    // Code map
+    // -------------------------
+    /**
+     * Log dictionary id -> SymbolTable code for one role (country, disease or region). Sized with
+     * the dictionary when the log opens and grown as symbols are appended. An entry is looked up in
+     * the SymbolTable the first time a record uses the string in this role (the dictionary does not
+     * record roles), after which reading it is an array load. Filling an entry is idempotent, so
+     * concurrent readers may race on it harmlessly.
+     */
+    static final class CodeMap {
+        private static final int UNMAPPED = -2;
+
+        private final AfriGuardAWT.SymbolTable table;
+        // replaced (never shrunk) when the dictionary grows
+        private volatile int[] codes;
+
+        CodeMap(AfriGuardAWT.SymbolTable table, int capacity) {
+            this.table = table;
+            codes = new int[capacity];
+            Arrays.fill(codes, UNMAPPED);
+        }
+
+        void grow(int capacity) {
+            int[] old = codes;
+            int[] grown = Arrays.copyOf(old, capacity);
+            Arrays.fill(grown, old.length, capacity, UNMAPPED);
+            codes = grown;
+        }
+
+        /** The code of dictionary string id (-1 for none); symbols is the log's dictionary. */
+        int code(int id, String[] symbols) {
+            if (id < 0) return -1;
+            int[] c = codes;
+            int code = id < c.length ? c[id] : UNMAPPED;
+            if (code == UNMAPPED) {
+                code = table.code(symbols[id]);
+                if (id < c.length) c[id] = code;
+            }
+            return code;
+        }
+    }
+
+    // -------------------------
+    // Region table
+    // -------------------------
+    /**
+     * Region lists of the log's records: one dictionary id (int) per region, each record's regions
+     * consecutive. The file is mapped in CHUNK_IDS-entry chunks; a list never spans two chunks, so
+     * reading region i of a record is one indexed get. Appends are made under the log's lock.
+     */
+    static final class RegionTable implements Closeable {
+        static final int MAGIC = 0x41475247; // "AGRG"
+        static final int HEADER_SIZE = 16;
+        static final int H_MAGIC = 0;
+        static final int H_COUNT = 8;        // entries in use; written before records refer to them
+        static final int CHUNK_IDS = 1 << 20;
+
+        private final Path file;
+        private final FileChannel channel;
+        private final MappedByteBuffer header;
+        // replaced (never mutated) when a chunk is added, like the log's segment array
+        private volatile MappedByteBuffer[] chunks = new MappedByteBuffer[0];
+        private int count;
+
+        RegionTable(Path file) throws IOException {
+            this.file = file;
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            boolean created = channel.size() == 0;
+            header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+            if (created) {
+                header.putInt(H_MAGIC, MAGIC);
+                header.putInt(H_COUNT, 0);
+            } else if (header.getInt(H_MAGIC) != MAGIC || header.getInt(H_COUNT) < 0) {
+                channel.close();
+                throw new IOException("Not an alert log region table: " + file);
+            }
+            count = header.getInt(H_COUNT);
+            while ((long) chunks.length * CHUNK_IDS < count) addChunk();
+        }
+
+        private void addChunk() throws IOException {
+            MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE + (long) chunks.length * CHUNK_IDS * 4, CHUNK_IDS * 4L);
+            MappedByteBuffer[] grown = Arrays.copyOf(chunks, chunks.length + 1);
+            grown[grown.length - 1] = chunk;
+            chunks = grown;
+        }
+
+        /** Reserves n (at most CHUNK_IDS) consecutive entries within one chunk; returns the first. */
+        int reserve(int n) throws IOException {
+            int start = count;
+            if (start % CHUNK_IDS + n > CHUNK_IDS) start = (start / CHUNK_IDS + 1) * CHUNK_IDS;
+            if ((long) start + n > Integer.MAX_VALUE) throw new IOException("Alert log region table is full: " + file);
+            while ((long) chunks.length * CHUNK_IDS < (long) start + n) addChunk();
+            count = start + n;
+            return start;
+        }
+
+        void set(int index, int symbolId) {
+            chunks[index / CHUNK_IDS].putInt((index % CHUNK_IDS) * 4, symbolId);
+        }
+
+        int get(int index) {
+            return chunks[index / CHUNK_IDS].getInt((index % CHUNK_IDS) * 4);
+        }
+
+        /** Publishes the reserved entries; called before a record refers to them. */
+        void commit() {
+            header.putInt(H_COUNT, count);
+        }
+
+        void force() {
+            header.force();
+            for (MappedByteBuffer chunk : chunks) chunk.force();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: java AfriGuardLog <log-dir> [feed.csv]");
+            return;
+        }
+        try (MappedAlertLog log = new MappedAlertLog(Paths.get(args[0]))) {
+            if (args.length > 1) {
+                AfriGuardIngest.IngestStats stats = new AfriGuardIngest.ReportStreamParser().parse(Paths.get(args[1]), a -> {
+                    try {
+                        log.append(a);
+                    } catch (IOException e) {
+                        throw new java.io.UncheckedIOException(e);
+                    }
+                });
+                System.out.println("Appended " + args[1] + ": " + stats);
+            }
+            System.out.println("Alert log " + args[0] + ": " + log.size() + " records in " + log.segmentCount() + " segment(s)");
+            System.out.println(new AfriGuardAWT.SurveillanceDashboard().summarizeAlerts(log, log.size() >= 50_000));
+        }
+    }
+}
@@ -0,0 +1,368 @@
+import java.awt.AWTEvent;
+import java.awt.EventQueue;
+import java.awt.Toolkit;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+/**
+ * AfriGuardMetrics.java
+ * Always-on metrics for the alert pipeline, exposed over JMX and as a periodic snapshot line.
+ *
+ * - parseReportData: reports parsed and rejected, by reason
+ * - processAlerts: per-alert latency histogram and alert counts by level (added once per chunk)
+ * - GUI: time each AWT event spends on the event dispatch thread (TimedEventQueue)
+ *
+ * Recording is a LongAdder increment or a histogram bucket increment (no locks, no allocation).
+ * A clock read alone can cost ~40 ns on virtualized nodes, so processing latency is measured on
+ * every 16th alert (LATENCY_SAMPLE_MASK); level counts are added once per chunk. The
+ * metricsRecord benchmark measures the per-alert cost.
+ *
+ * JMX:      afriguard:type=PipelineMetrics (jconsole, jcmd, any JMX exporter)
+ * Snapshot: -Dafriguard.metrics.dumpSeconds=N prints a snapshot line to stdout every N seconds
+ *
+ * Compile: javac AfriGuard*.java
+ */
+public class AfriGuardMetrics {
+
+    public enum ParseError { INSUFFICIENT_FIELDS, NUMBER_FORMAT, AMBIGUOUS, UNEXPECTED }
+
+    // -------------------------
+    // Latency histogram
+    // -------------------------
+    /**
+     * Log2 buckets: bucket b counts durations in [2^(b-1), 2^b) ns (bucket 0: 0 ns), so
+     * percentiles are upper bounds within a factor of 2. Lock-free and mergeable.
+     */
+    public static class LatencyHistogram {
+        private final LongAdder[] buckets = new LongAdder[65];
+        private final LongAdder totalNanos = new LongAdder();
+
+        public LatencyHistogram() {
+            for (int b = 0; b < buckets.length; b++) buckets[b] = new LongAdder();
+        }
+
+        public void record(long nanos) {
+            if (nanos < 0) nanos = 0;
+            buckets[64 - Long.numberOfLeadingZeros(nanos)].increment();
+            totalNanos.add(nanos);
+        }
+
+        public long[] counts() {
+            long[] out = new long[buckets.length];
+            for (int b = 0; b < out.length; b++) out[b] = buckets[b].sum();
+            return out;
+        }
+
+        public long count() {
+            long n = 0;
+            for (LongAdder b : buckets) n += b.sum();
+            return n;
+        }
+
+        public long totalNanos() {
+            return totalNanos.sum();
+        }
+
+        public double meanNanos() {
+            long n = count();
+            return n == 0 ? 0.0 : (double) totalNanos() / n;
+        }
+
+        /** Upper bound of the bucket holding the q-quantile (0 < q <= 1); 0 when empty. */
+        public long percentileNanos(double q) {
+            long[] c = counts();
+            long n = 0;
+            for (long v : c) n += v;
+            if (n == 0) return 0;
+            long rank = (long) Math.ceil(q * n);
+            long seen = 0;
+            for (int b = 0; b < c.length; b++) {
+                seen += c[b];
+                if (seen >= rank) return b == 0 ? 0 : b >= 63 ? Long.MAX_VALUE : 1L << b;
+            }
+            return Long.MAX_VALUE;
+        }
+
+        public void reset() {
+            for (LongAdder b : buckets) b.reset();
+            totalNanos.reset();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("n=%d mean=%.0fns p50<=%dns p99<=%dns p99.9<=%dns",
+                    count(), meanNanos(), percentileNanos(0.5), percentileNanos(0.99), percentileNanos(0.999));
+        }
+    }
+
+    // -------------------------
+    // JMX interface
+    // -------------------------
+    public interface PipelineMetricsMBean {
+        long getReportsParsed();
+        long getParseErrors();
+        long getParseErrorsInsufficientFields();
+        long getParseErrorsNumberFormat();
+        long getParseErrorsAmbiguous();
+        long getParseErrorsUnexpected();
+        double getParseRatePerSecond();
+
+        long getAlertsProcessed();
+        long getNullAlerts();
+        long getProcessingErrors();
+        long getCriticalAlerts();
+        long getHighAlerts();
+        long getModerateAlerts();
+        long getEndemicAlerts();
+        long getWidespreadAlerts();
+        long getInternationalResponses();
+
+        double getAlertLatencyMeanNanos();
+        long getAlertLatencyP50Nanos();
+        long getAlertLatencyP99Nanos();
+        long getAlertLatencyP999Nanos();
+
+        long getEdtEvents();
+        double getEdtDispatchMeanMicros();
+        long getEdtDispatchP99Micros();
+        long getEdtBlockedOver100ms();
+        long getEdtDispatchTotalMillis();
+
+        String getSnapshot();
+
+        void reset();
+    }
+
+    // -------------------------
+    // Pipeline metrics
+    // -------------------------
+    public static final class PipelineMetrics implements PipelineMetricsMBean {
+        /** The process-wide instance every pipeline stage records into. */
+        public static final PipelineMetrics GLOBAL = new PipelineMetrics();
+
+        static final long EDT_BLOCKING_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+        /** Alerts whose index has none of these bits set are timed (1 in 16). */
+        public static final int LATENCY_SAMPLE_MASK = 15;
+
+        private final LongAdder parsed = new LongAdder();
+        private final LongAdder[] parseErrors = new LongAdder[ParseError.values().length];
+        private final LongAdder processed = new LongAdder();
+        private final LongAdder nullAlerts = new LongAdder();
+        private final LongAdder processingErrors = new LongAdder();
+        private final LongAdder critical = new LongAdder();
+        private final LongAdder high = new LongAdder();
+        private final LongAdder moderate = new LongAdder();
+        private final LongAdder endemic = new LongAdder();
+        private final LongAdder widespread = new LongAdder();
+        private final LongAdder international = new LongAdder();
+        private final LatencyHistogram alertLatency = new LatencyHistogram();
+        private final LatencyHistogram edtDispatch = new LatencyHistogram();
+        private final LongAdder edtBlocked = new LongAdder();
+        private volatile long startNanos = System.nanoTime();
+        private final Object dumpLock = new Object();
+        private ScheduledExecutorService dumper; // guarded by dumpLock
+
+        public PipelineMetrics() {
+            for (int i = 0; i < parseErrors.length; i++) parseErrors[i] = new LongAdder();
+        }
+
+        // -------------------------
+        // Recording (hot paths)
+        // -------------------------
+        public void recordParsed() {
+            parsed.increment();
+        }
+
+        public void recordParseError(ParseError reason) {
+            parseErrors[reason.ordinal()].increment();
+        }
+
+        /** Bulk form for batch parsers, which count locally and add once per chunk. */
+        public void recordParsed(long count, long[] errorsByReason) {
+            parsed.add(count);
+            for (int i = 0; i < parseErrors.length; i++) if (errorsByReason[i] != 0) parseErrors[i].add(errorsByReason[i]);
+        }
+
+        public void recordAlertLatency(long nanos) {
+            alertLatency.record(nanos);
+        }
+
+        /** Adds the counts of one processed chunk; called once per chunk, not per alert. */
+        public void recordChunk(AfriGuardAWT.AlertSummary chunk) {
+            processed.add(chunk.getProcessed());
+            nullAlerts.add(chunk.getNullAlerts());
+            processingErrors.add(chunk.getErrors());
+            critical.add(chunk.getCriticalCount());
+            high.add(chunk.getHighCount());
+            moderate.add(chunk.getModerateCount());
+            endemic.add(chunk.getEndemicCount());
+            widespread.add(chunk.getWidespreadCount());
+            international.add(chunk.getInternationalResponseCount());
+        }
+
+        public void recordEdtDispatch(long nanos) {
+            edtDispatch.record(nanos);
+            if (nanos >= EDT_BLOCKING_NANOS) edtBlocked.increment();
+        }
+
+        public LatencyHistogram alertLatency() { return alertLatency; }
+        public LatencyHistogram edtDispatch() { return edtDispatch; }
+
+        // -------------------------
+        // MBean attributes
+        // -------------------------
+        @Override public long getReportsParsed() { return parsed.sum(); }
+
+        @Override
+        public long getParseErrors() {
+            long n = 0;
+            for (LongAdder a : parseErrors) n += a.sum();
+            return n;
+        }
+
+        @Override public long getParseErrorsInsufficientFields() { return parseErrors[ParseError.INSUFFICIENT_FIELDS.ordinal()].sum(); }
+        @Override public long getParseErrorsNumberFormat() { return parseErrors[ParseError.NUMBER_FORMAT.ordinal()].sum(); }
+        @Override public long getParseErrorsAmbiguous() { return parseErrors[ParseError.AMBIGUOUS.ordinal()].sum(); }
+        @Override public long getParseErrorsUnexpected() { return parseErrors[ParseError.UNEXPECTED.ordinal()].sum(); }
+
+        /** Reports parsed (successfully or not) per second since start or the last reset. */
+        @Override
+        public double getParseRatePerSecond() {
+            double seconds = (System.nanoTime() - startNanos) / 1e9;
+            return seconds <= 0 ? 0.0 : (getReportsParsed() + getParseErrors()) / seconds;
+        }
+
+        @Override public long getAlertsProcessed() { return processed.sum(); }
+        @Override public long getNullAlerts() { return nullAlerts.sum(); }
+        @Override public long getProcessingErrors() { return processingErrors.sum(); }
+        @Override public long getCriticalAlerts() { return critical.sum(); }
+        @Override public long getHighAlerts() { return high.sum(); }
+        @Override public long getModerateAlerts() { return moderate.sum(); }
+        @Override public long getEndemicAlerts() { return endemic.sum(); }
+        @Override public long getWidespreadAlerts() { return widespread.sum(); }
+        @Override public long getInternationalResponses() { return international.sum(); }
+
+        @Override public double getAlertLatencyMeanNanos() { return alertLatency.meanNanos(); }
+        @Override public long getAlertLatencyP50Nanos() { return alertLatency.percentileNanos(0.5); }
+        @Override public long getAlertLatencyP99Nanos() { return alertLatency.percentileNanos(0.99); }
+        @Override public long getAlertLatencyP999Nanos() { return alertLatency.percentileNanos(0.999); }
+
+        @Override public long getEdtEvents() { return edtDispatch.count(); }
+        @Override public double getEdtDispatchMeanMicros() { return edtDispatch.meanNanos() / 1_000.0; }
+        @Override public long getEdtDispatchP99Micros() { return edtDispatch.percentileNanos(0.99) / 1_000; }
+        @Override public long getEdtBlockedOver100ms() { return edtBlocked.sum(); }
+        @Override public long getEdtDispatchTotalMillis() { return edtDispatch.totalNanos() / 1_000_000; }
+
+        @Override
+        public String getSnapshot() {
+            return String.format("parsed=%d parseErrors=%d [insufficient=%d numberFormat=%d ambiguous=%d unexpected=%d] parse/s=%.1f | "
+                            + "processed=%d null=%d errors=%d CRITICAL=%d HIGH=%d MODERATE=%d endemic=%d widespread=%d international=%d | "
+                            + "alertLatency %s | edt %s blocked>100ms=%d",
+                    getReportsParsed(), getParseErrors(), getParseErrorsInsufficientFields(), getParseErrorsNumberFormat(),
+                    getParseErrorsAmbiguous(), getParseErrorsUnexpected(), getParseRatePerSecond(),
+                    getAlertsProcessed(), getNullAlerts(), getProcessingErrors(), getCriticalAlerts(), getHighAlerts(),
+                    getModerateAlerts(), getEndemicAlerts(), getWidespreadAlerts(), getInternationalResponses(),
+                    alertLatency, edtDispatch, getEdtBlockedOver100ms());
+        }
+
+        @Override
+        public void reset() {
+            parsed.reset();
+            for (LongAdder a : parseErrors) a.reset();
+            for (LongAdder a : new LongAdder[]{processed, nullAlerts, processingErrors, critical, high, moderate, endemic, widespread, international, edtBlocked}) a.reset();
+            alertLatency.reset();
+            edtDispatch.reset();
+            startNanos = System.nanoTime();
+        }
+
+        @Override
+        public String toString() {
+            return getSnapshot();
+        }
+
+        // -------------------------
+        // Publishing
+        // -------------------------
+        /** Registers this instance as afriguard:type=PipelineMetrics; returns false if already registered. */
+        public boolean registerMBean() {
+            try {
+                MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+                ObjectName name = new ObjectName("afriguard:type=PipelineMetrics");
+                if (server.isRegistered(name)) return false;
+                server.registerMBean(new StandardMBean(this, PipelineMetricsMBean.class), name);
+                return true;
+            } catch (JMException ex) {
+                throw new IllegalStateException("Could not register the pipeline metrics MBean", ex);
+            }
+        }
+
+        /** Appends a snapshot line to sink every periodSeconds on a daemon thread; replaces any earlier dump. */
+        public void startDump(AfriGuardAWT.ReportSink sink, long periodSeconds) {
+            if (periodSeconds <= 0) throw new IllegalArgumentException("periodSeconds must be positive: " + periodSeconds);
+            synchronized (dumpLock) {
+                stopDump();
+                dumper = Executors.newSingleThreadScheduledExecutor(r -> {
+                    Thread t = new Thread(r, "afriguard-metrics-dump");
+                    t.setDaemon(true);
+                    return t;
+                });
+                dumper.scheduleAtFixedRate(() -> {
+                    sink.append("[metrics " + java.time.LocalTime.now().withNano(0) + "] " + getSnapshot() + "\n");
+                    sink.flush();
+                }, periodSeconds, periodSeconds, TimeUnit.SECONDS);
+            }
+        }
+
+        public void stopDump() {
+            synchronized (dumpLock) {
+                if (dumper != null) dumper.shutdownNow();
+                dumper = null;
+            }
+        }
+
+        /**
+         * Registers the MBean and, if -Dafriguard.metrics.dumpSeconds is set, starts the snapshot
+         * dump to stdout. Safe to call more than once.
+         */
+        public static PipelineMetrics publish() {
+            GLOBAL.registerMBean();
+            long seconds = Long.getLong("afriguard.metrics.dumpSeconds", 0);
+            if (seconds > 0) GLOBAL.startDump(AfriGuardAWT.BatchingReportSink.forPrintStream(System.out), seconds);
+            return GLOBAL;
+        }
+    }
+
+    // -------------------------
+    // EDT instrumentation
+    // -------------------------
+    /** Event queue that times every event dispatched on the EDT. */
+    public static class TimedEventQueue extends EventQueue {
+        private final PipelineMetrics metrics;
+
+        public TimedEventQueue(PipelineMetrics metrics) {
+            this.metrics = metrics;
+        }
+
+        @Override
+        protected void dispatchEvent(AWTEvent event) {
+            long t0 = System.nanoTime();
+            try {
+                super.dispatchEvent(event);
+            } finally {
+                metrics.recordEdtDispatch(System.nanoTime() - t0);
+            }
+        }
+
+        /** Pushes a timing queue onto the system event queue; events posted earlier move over to it. */
+        public static void install(PipelineMetrics metrics) {
+            Toolkit.getDefaultToolkit().getSystemEventQueue().push(new TimedEventQueue(metrics));
+        }
+    }
+}
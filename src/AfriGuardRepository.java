@@ -0,0 +1,375 @@
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * AfriGuardRepository.java
+ * Lock-free alert repository for many concurrent producers (one per national feed) and live readers.
+ *
+ * Rows live in fixed-size columnar chunks laid out like ColumnarAlertStore: report dates are epoch
+ * days, with free-form dates kept aside, and each chunk has one flat region id column that rows
+ * address by offset and length. A producer reserves a range of row indexes with one atomic add
+ * (and the region slots for them with another), fills in the columns of its own rows and marks
+ * each one ready. The repository size
+ * is the committed watermark: the longest prefix of rows that are all ready. Whichever producer
+ * finishes a row moves the watermark as far as it can, so no producer waits for another and no
+ * lock is ever taken.
+ *
+ * Rows below the watermark never change, so snapshot() is O(1): it fixes the current size and reads
+ * the shared chunks. processAlerts can run on a snapshot while feeds keep appending.
+ *
+ * Compile: javac AfriGuard*.java
+ */
+public class AfriGuardRepository {
+
+    public static class ConcurrentAlertRepository implements AfriGuardStore.AlertRows {
+        static final int CHUNK_BITS = 14;
+        static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+        static final int CHUNK_MASK = CHUNK_SIZE - 1;
+        /** Most regions one alert may list; it keeps a full chunk's region slots within int range. */
+        static final int MAX_REGIONS = 0xFFFF;
+
+        private final AfriGuardAWT.SymbolTable countries = AfriGuardAWT.SymbolTable.COUNTRIES;
+        private final AfriGuardAWT.SymbolTable diseases = AfriGuardAWT.SymbolTable.DISEASES;
+        private final AfriGuardAWT.SymbolTable regions = AfriGuardAWT.SymbolTable.REGIONS;
+
+        // chunks are created on first use by whichever producer reaches them first
+        private final AtomicReferenceArray<Chunk> chunks = new AtomicReferenceArray<>((Integer.MAX_VALUE >>> CHUNK_BITS) + 1);
+        private final AtomicInteger reserved = new AtomicInteger();
+        private final AtomicInteger committed = new AtomicInteger();
+
+        // report dates that are not ISO yyyy-MM-dd, by row; their day column holds UNKNOWN_DAY
+        private final ConcurrentHashMap<Integer, String> freeFormDates = new ConcurrentHashMap<>();
+        private final AfriGuardStore.ColumnarAlertStore.DayLabels dayLabels = new AfriGuardStore.ColumnarAlertStore.DayLabels();
+
+        // One column per field; a row is written by the producer that reserved it, before it is marked ready
+        static final class Chunk {
+            final byte[] kinds = new byte[CHUNK_SIZE];
+            final int[] cases = new int[CHUNK_SIZE];
+            final double[] deathRates = new double[CHUNK_SIZE];
+            final int[] countryIds = new int[CHUNK_SIZE];
+            final int[] diseaseIds = new int[CHUNK_SIZE];
+            final int[] reportDays = new int[CHUNK_SIZE];
+            // regions of row i are region slots [regionStart[i], regionStart[i] + regionCount[i])
+            final int[] regionStart = new int[CHUNK_SIZE];
+            final int[] regionCount = new int[CHUNK_SIZE];
+            final RegionColumn regionIds = new RegionColumn();
+            // volatile writes and reads: they publish the plain column writes above
+            final AtomicIntegerArray ready = new AtomicIntegerArray(CHUNK_SIZE);
+        }
+
+        /**
+         * A chunk's region ids. Producers take slots with one atomic add, so rows of different
+         * producers interleave and each row keeps its own offset and length. The column grows in
+         * pages that double in size and are never moved, so a producer writing its slots never
+         * races a copy; a row's slots may continue on the next page.
+         */
+        static final class RegionColumn {
+            static final int FIRST_PAGE_BITS = 10;
+            // page p holds slots [(2^p - 1) << FIRST_PAGE_BITS, (2^(p+1) - 1) << FIRST_PAGE_BITS)
+            private final AtomicReferenceArray<int[]> pages = new AtomicReferenceArray<>(32 - FIRST_PAGE_BITS);
+            private final AtomicInteger reserved = new AtomicInteger();
+
+            int reserve(int n) {
+                if (n == 0) return 0;
+                // cannot overflow: a chunk holds at most CHUNK_SIZE * MAX_REGIONS < 2^30 slots
+                return reserved.getAndAdd(n);
+            }
+
+            void set(int slot, int id) {
+                int p = page(slot);
+                int[] page = pages.get(p);
+                if (page == null) {
+                    pages.compareAndSet(p, null, new int[1 << (p + FIRST_PAGE_BITS)]);
+                    page = pages.get(p);
+                }
+                page[slot - pageStart(p)] = id;
+            }
+
+            int get(int slot) {
+                int p = page(slot);
+                return pages.get(p)[slot - pageStart(p)];
+            }
+
+            private static int page(int slot) {
+                return 31 - Integer.numberOfLeadingZeros((slot >>> FIRST_PAGE_BITS) + 1);
+            }
+
+            private static int pageStart(int p) {
+                return ((1 << p) - 1) << FIRST_PAGE_BITS;
+            }
+        }
+
+        /**
+         * Appends an OutbreakAlert or EndemicAlert (or a store view) and returns its row index.
+         * Safe to call from any number of threads.
+         */
+        public int append(AfriGuardAWT.HealthAlert alert) {
+            byte kind;
+            double deathRate = 0.0;
+            int regionCount = 0;
+            if (alert instanceof AfriGuardAWT.OutbreakAlert) {
+                kind = AfriGuardStore.ColumnarAlertStore.OUTBREAK;
+                deathRate = ((AfriGuardAWT.OutbreakAlert) alert).getDeathRate();
+            } else if (alert instanceof AfriGuardAWT.EndemicAlert) {
+                kind = AfriGuardStore.ColumnarAlertStore.ENDEMIC;
+                regionCount = ((AfriGuardAWT.EndemicAlert) alert).getRegionCount();
+            } else if (alert instanceof AfriGuardStore.AlertView) {
+                // copied column by column, without materializing the row
+                AfriGuardStore.AlertView view = (AfriGuardStore.AlertView) alert;
+                if (view.isOutbreak()) {
+                    kind = AfriGuardStore.ColumnarAlertStore.OUTBREAK;
+                    deathRate = view.getDeathRate();
+                } else {
+                    kind = AfriGuardStore.ColumnarAlertStore.ENDEMIC;
+                    regionCount = view.getRegionCount();
+                }
+            } else {
+                throw new IllegalArgumentException("Unsupported alert type: " + (alert == null ? "null" : alert.getClass().getName()));
+            }
+            // everything that can fail happens before the row is reserved: a reserved row must always be published
+            checkRegionCount(regionCount);
+            int country = countries.code(alert.getCountryCode());
+            int disease = diseases.code(alert.getDiseaseName());
+            String date = alert.getReportDate();
+            int day = epochDay(date);
+
+            int row = reserve(1);
+            Chunk c = chunk(row >>> CHUNK_BITS);
+            int i = row & CHUNK_MASK;
+            c.kinds[i] = kind;
+            c.cases[i] = alert.getCasesReported();
+            c.deathRates[i] = deathRate;
+            c.countryIds[i] = country;
+            c.diseaseIds[i] = disease;
+            c.reportDays[i] = day;
+            if (day == AfriGuardStore.ColumnarAlertStore.UNKNOWN_DAY && date != null) freeFormDates.put(row, date);
+            int slot = c.regionIds.reserve(regionCount);
+            for (int k = 0; k < regionCount; k++) c.regionIds.set(slot + k, AfriGuardStore.AlertView.regionIdOf(alert, k));
+            c.regionStart[i] = slot;
+            c.regionCount[i] = regionCount;
+            c.ready.set(i, 1);
+            advance(row);
+            return row;
+        }
+
+        /**
+         * Appends all rows of a producer-local batch as one contiguous range, with a single
+         * reservation; returns the index of its first row. Feeds should parse into a
+         * ColumnarAlertStore and publish it here in batches.
+         */
+        public int appendAll(AfriGuardStore.ColumnarAlertStore batch) {
+            int n = batch.size();
+            for (int r = 0; r < n; r++) checkRegionCount(batch.regionCount(r));
+            int start = reserve(n);
+            for (int r = 0; r < n; ) {
+                int row = start + r;
+                Chunk c = chunk(row >>> CHUNK_BITS);
+                int i = row & CHUNK_MASK;
+                int len = Math.min(n - r, CHUNK_SIZE - i);
+                // the batch's regions for this chunk take one contiguous run of slots
+                int regions = 0;
+                for (int k = 0; k < len; k++) regions += batch.regionCount(r + k);
+                int slot = c.regionIds.reserve(regions);
+                for (int k = 0; k < len; k++, r++) {
+                    c.kinds[i + k] = batch.kind(r);
+                    c.cases[i + k] = batch.cases(r);
+                    c.deathRates[i + k] = batch.deathRate(r);
+                    c.countryIds[i + k] = batch.countryId(r);
+                    c.diseaseIds[i + k] = batch.diseaseId(r);
+                    int day = batch.reportDay(r);
+                    c.reportDays[i + k] = day;
+                    if (day == AfriGuardStore.ColumnarAlertStore.UNKNOWN_DAY) {
+                        String date = batch.reportDate(r);
+                        if (date != null) freeFormDates.put(row + k, date);
+                    }
+                    int count = batch.regionCount(r);
+                    c.regionStart[i + k] = slot;
+                    c.regionCount[i + k] = count;
+                    for (int j = 0; j < count; j++) c.regionIds.set(slot++, batch.regionId(r, j));
+                }
+                for (int k = 0; k < len; k++) c.ready.set(i + k, 1);
+            }
+            advance(start);
+            return start;
+        }
+
+        private static void checkRegionCount(int n) {
+            if (n > MAX_REGIONS) throw new IllegalArgumentException("An alert may list at most " + MAX_REGIONS + " regions, not " + n);
+        }
+
+        // feeds report one date for many alerts: the last parse is shared through an immutable holder
+        private volatile ParsedDay lastDay = new ParsedDay(null, AfriGuardStore.ColumnarAlertStore.UNKNOWN_DAY);
+
+        private static final class ParsedDay {
+            final String date;
+            final int day;
+
+            ParsedDay(String date, int day) {
+                this.date = date;
+                this.day = day;
+            }
+        }
+
+        private int epochDay(String date) {
+            ParsedDay last = lastDay;
+            if (date == null || date.equals(last.date)) return date == null ? AfriGuardStore.ColumnarAlertStore.UNKNOWN_DAY : last.day;
+            int day = AfriGuardStore.ColumnarAlertStore.toEpochDay(date);
+            lastDay = new ParsedDay(date, day);
+            return day;
+        }
+
+        private int reserve(int n) {
+            int start = reserved.getAndAdd(n);
+            if (start < 0 || start > Integer.MAX_VALUE - n) throw new IllegalStateException("Alert repository is full");
+            return start;
+        }
+
+        private Chunk chunk(int index) {
+            Chunk c = chunks.get(index);
+            if (c == null) {
+                chunks.compareAndSet(index, null, new Chunk());
+                c = chunks.get(index);
+            }
+            return c;
+        }
+
+        private boolean isReady(int row) {
+            Chunk c = chunks.get(row >>> CHUNK_BITS);
+            return c != null && c.ready.get(row & CHUNK_MASK) == 1;
+        }
+
+        /*
+         * Called after publishing rows from start on. While an earlier row is still being written, the
+         * watermark is left to the producer of that row, which carries it over ours once it gets there.
+         * Flags and watermark are volatile: a producer that moved the watermark rescans after its CAS,
+         * and a producer that found the watermark below its rows had set its flags first, so of two
+         * neighbouring producers at least one always sees the other's progress and no row is stranded.
+         */
+        private void advance(int start) {
+            for (;;) {
+                int from = committed.get();
+                if (from < start) return;
+                int limit = reserved.get();
+                int to = from;
+                while (to < limit && isReady(to)) to++;
+                if (to == from) return;
+                committed.compareAndSet(from, to);
+            }
+        }
+
+        /** Rows that are fully published; grows while producers append. */
+        @Override
+        public int size() {
+            return committed.get();
+        }
+
+        /** Rows reserved by producers, including those still being written. */
+        public int reservedCount() {
+            return Math.max(0, reserved.get());
+        }
+
+        /** Fixed view of the rows published so far, sharing storage with this repository. */
+        public Snapshot snapshot() {
+            return new Snapshot(this, committed.get());
+        }
+
+        // -------------------------
+        // Column access (rows below size() only)
+        // -------------------------
+        private Chunk published(int row) {
+            if (row < 0 || row >= committed.get()) throw new IndexOutOfBoundsException("row " + row + " of " + committed.get());
+            return chunks.get(row >>> CHUNK_BITS);
+        }
+
+        @Override public byte kind(int row) { return published(row).kinds[row & CHUNK_MASK]; }
+        @Override public int cases(int row) { return published(row).cases[row & CHUNK_MASK]; }
+        @Override public double deathRate(int row) { return published(row).deathRates[row & CHUNK_MASK]; }
+        @Override public int countryId(int row) { return published(row).countryIds[row & CHUNK_MASK]; }
+        @Override public int diseaseId(int row) { return published(row).diseaseIds[row & CHUNK_MASK]; }
+        @Override public int reportDay(int row) { return published(row).reportDays[row & CHUNK_MASK]; }
+        @Override public int regionCount(int row) { return published(row).regionCount[row & CHUNK_MASK]; }
+
+        @Override
+        public String reportDate(int row) {
+            int day = reportDay(row);
+            return day == AfriGuardStore.ColumnarAlertStore.UNKNOWN_DAY ? freeFormDates.get(row) : dayLabels.label(day);
+        }
+
+        @Override
+        public int regionId(int row, int i) {
+            Chunk c = published(row);
+            int r = row & CHUNK_MASK;
+            if (i < 0 || i >= c.regionCount[r]) throw new IndexOutOfBoundsException("region " + i + " of " + c.regionCount[r]);
+            return c.regionIds.get(c.regionStart[r] + i);
+        }
+
+        @Override
+        public int severity(int row) {
+            Chunk c = published(row);
+            int i = row & CHUNK_MASK;
+            return c.kinds[i] == AfriGuardStore.ColumnarAlertStore.OUTBREAK
+                    ? AfriGuardAWT.OutbreakAlert.severityFor(c.cases[i], c.deathRates[i])
+                    : AfriGuardAWT.EndemicAlert.severityFor(c.cases[i], c.regionCount[i]);
+        }
+
+        @Override
+        public AfriGuardAWT.HealthAlert materialize(int row) {
+            Chunk c = published(row);
+            int i = row & CHUNK_MASK;
+            String country = countries.symbol(c.countryIds[i]);
+            String disease = diseases.symbol(c.diseaseIds[i]);
+            String date = reportDate(row);
+            if (c.kinds[i] == AfriGuardStore.ColumnarAlertStore.OUTBREAK) {
+                return new AfriGuardAWT.OutbreakAlert(country, disease, c.cases[i], date, c.deathRates[i]);
+            }
+            String[] names = new String[c.regionCount[i]];
+            for (int k = 0; k < names.length; k++) names[k] = regions.symbol(c.regionIds.get(c.regionStart[i] + k));
+            return new AfriGuardAWT.EndemicAlert(country, disease, c.cases[i], date, names);
+        }
+    }
+
+    // -------------------------
+    // Snapshot
+    // -------------------------
+    /**
+     * The first size() rows of a repository at the time of the snapshot. Those rows are immutable,
+     * so every reader sees the same alerts however much the repository grows meanwhile.
+     */
+    public static class Snapshot implements AfriGuardStore.AlertRows {
+        private final ConcurrentAlertRepository repository;
+        private final int size;
+
+        Snapshot(ConcurrentAlertRepository repository, int size) {
+            this.repository = repository;
+            this.size = size;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        private int check(int row) {
+            if (row >= size) throw new IndexOutOfBoundsException("row " + row + " of " + size);
+            return row;
+        }
+
+        @Override public byte kind(int row) { return repository.kind(check(row)); }
+        @Override public int cases(int row) { return repository.cases(check(row)); }
+        @Override public double deathRate(int row) { return repository.deathRate(check(row)); }
+        @Override public int countryId(int row) { return repository.countryId(check(row)); }
+        @Override public int diseaseId(int row) { return repository.diseaseId(check(row)); }
+        @Override public String reportDate(int row) { return repository.reportDate(check(row)); }
+        @Override public int reportDay(int row) { return repository.reportDay(check(row)); }
+        @Override public int regionCount(int row) { return repository.regionCount(check(row)); }
+        @Override public int regionId(int row, int i) { return repository.regionId(check(row), i); }
+        @Override public int severity(int row) { return repository.severity(check(row)); }
+        @Override public AfriGuardAWT.HealthAlert materialize(int row) { return repository.materialize(check(row)); }
+
+        public ConcurrentAlertRepository getRepository() {
+            return repository;
+        }
+    }
+}
@@ -0,0 +1,498 @@
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.stream.IntStream;
+
+/**
+ * AfriGuardRules.java
+ * Configurable severity rules: formulas and level thresholds come from a properties file and are
+ * compiled once into MethodHandle trees, so rescoring runs compiled code instead of interpreting
+ * the formula for every alert.
+ *
+ * Properties (every key is optional; the defaults are the built-in formulas and thresholds):
+ *   outbreak.severity = cases / 10 + deathRate * 20
+ *   endemic.severity  = cases / 100 + regions * 10
+ *   threshold.critical = 80          (level CRITICAL above this)
+ *   threshold.high = 50              (level HIGH above this)
+ *   threshold.international = 70     (international response above this)
+ *   disease.CHOLERA.weight = 1.5                          (multiplies that disease's severity)
+ *   disease.EBOLA.outbreak.severity = cases / 2 + deathRate * 40
+ *   disease.MALARIA.endemic.severity = max(cases / 200, regions * 15)
+ *
+ * Formulas use + - * / and parentheses, numbers, the variables cases, deathRate (percent),
+ * deaths and regions (region count), and the functions min, max, sqrt, log1p. The result is
+ * rounded to the nearest int, like the built-in severity.
+ *
+ * Compile: javac AfriGuard*.java
+ * Run:     java AfriGuardRules rules.properties feed.csv   (rescore a feed and print the summary)
+ */
+public class AfriGuardRules {
+
+    // -------------------------
+    // Formula compiler
+    // -------------------------
+    /** Compiles formula text into a handle of type (double cases, double deathRate, double regions)double. */
+    public static final class FormulaCompiler {
+        static final MethodType FORMULA = MethodType.methodType(double.class, double.class, double.class, double.class);
+        private static final String[] VARIABLES = {"cases", "deathRate", "regions"};
+
+        private static final MethodHandle ADD = op("add", 2);
+        private static final MethodHandle SUB = op("sub", 2);
+        private static final MethodHandle MUL = op("mul", 2);
+        private static final MethodHandle DIV = op("div", 2);
+        private static final MethodHandle NEG = op("neg", 1);
+        private static final MethodHandle MIN = op("min", 2);
+        private static final MethodHandle MAX = op("max", 2);
+        private static final MethodHandle SQRT = op("sqrt", 1);
+        private static final MethodHandle LOG1P = op("log1p", 1);
+
+        static double add(double a, double b) { return a + b; }
+        static double sub(double a, double b) { return a - b; }
+        static double mul(double a, double b) { return a * b; }
+        static double div(double a, double b) { return a / b; }
+        static double neg(double a) { return -a; }
+        static double min(double a, double b) { return Math.min(a, b); }
+        static double max(double a, double b) { return Math.max(a, b); }
+        static double sqrt(double a) { return Math.sqrt(a); }
+        static double log1p(double a) { return Math.log1p(a); }
+
+        private static MethodHandle op(String name, int arity) {
+            MethodType type = arity == 1 ? MethodType.methodType(double.class, double.class)
+                    : MethodType.methodType(double.class, double.class, double.class);
+            try {
+                return MethodHandles.lookup().findStatic(FormulaCompiler.class, name, type);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private final String text;
+        private int pos;
+
+        private FormulaCompiler(String text) {
+            this.text = text;
+        }
+
+        /** @throws IllegalArgumentException with the position of the first syntax error */
+        public static MethodHandle compile(String formula) {
+            FormulaCompiler c = new FormulaCompiler(formula);
+            Node root = c.expression();
+            c.skipSpaces();
+            if (c.pos < formula.length()) throw c.error("unexpected '" + formula.charAt(c.pos) + "'");
+            return root.handle();
+        }
+
+        // Subtrees of constants are folded while compiling, so they cost nothing per alert
+        private static final class Node {
+            final MethodHandle handle;
+            final boolean constant;
+            final double value;
+
+            Node(MethodHandle handle) {
+                this.handle = handle;
+                this.constant = false;
+                this.value = 0;
+            }
+
+            Node(double value) {
+                this.handle = null;
+                this.constant = true;
+                this.value = value;
+            }
+
+            MethodHandle handle() {
+                if (!constant) return handle;
+                return MethodHandles.dropArguments(MethodHandles.constant(double.class, value), 0, double.class, double.class, double.class);
+            }
+        }
+
+        private static Node variable(int index) {
+            return new Node(MethodHandles.permuteArguments(MethodHandles.identity(double.class), FORMULA, index));
+        }
+
+        private static Node apply(MethodHandle op, Node a) {
+            if (a.constant) return new Node(invoke(op, a.value));
+            return new Node(MethodHandles.collectArguments(op, 0, a.handle()));
+        }
+
+        private static Node apply(MethodHandle op, Node a, Node b) {
+            if (a.constant && b.constant) return new Node(invoke(op, a.value, b.value));
+            // op(a(c, d, r), b(c, d, r)): both operands read the same three arguments
+            MethodHandle both = MethodHandles.collectArguments(MethodHandles.collectArguments(op, 1, b.handle()), 0, a.handle());
+            return new Node(MethodHandles.permuteArguments(both, FORMULA, 0, 1, 2, 0, 1, 2));
+        }
+
+        private static double invoke(MethodHandle op, double... args) {
+            try {
+                return args.length == 1 ? (double) op.invokeExact(args[0]) : (double) op.invokeExact(args[0], args[1]);
+            } catch (Throwable t) {
+                throw new IllegalStateException(t);
+            }
+        }
+
+        // expression := term (('+' | '-') term)*
+        private Node expression() {
+            Node left = term();
+            for (;;) {
+                if (accept('+')) left = apply(ADD, left, term());
+                else if (accept('-')) left = apply(SUB, left, term());
+                else return left;
+            }
+        }
+
+        // term := factor (('*' | '/') factor)*
+        private Node term() {
+            Node left = factor();
+            for (;;) {
+                if (accept('*')) left = apply(MUL, left, factor());
+                else if (accept('/')) left = apply(DIV, left, factor());
+                else return left;
+            }
+        }
+
+        // factor := number | variable | function '(' args ')' | '(' expression ')' | '-' factor
+        private Node factor() {
+            skipSpaces();
+            if (accept('-')) return apply(NEG, factor());
+            if (accept('(')) {
+                Node inner = expression();
+                expect(')');
+                return inner;
+            }
+            int start = pos;
+            if (pos < text.length() && (Character.isDigit(text.charAt(pos)) || text.charAt(pos) == '.')) {
+                while (pos < text.length() && (Character.isDigit(text.charAt(pos)) || text.charAt(pos) == '.')) pos++;
+                try {
+                    return new Node(Double.parseDouble(text.substring(start, pos)));
+                } catch (NumberFormatException e) {
+                    pos = start;
+                    throw error("bad number");
+                }
+            }
+            while (pos < text.length() && Character.isLetterOrDigit(text.charAt(pos))) pos++;
+            String name = text.substring(start, pos);
+            if (name.isEmpty()) throw error(pos < text.length() ? "unexpected '" + text.charAt(pos) + "'" : "unexpected end of formula");
+            if (accept('(')) return function(name, start);
+            for (int v = 0; v < VARIABLES.length; v++) if (VARIABLES[v].equals(name)) return variable(v);
+            // deaths = cases * deathRate / 100, as in the report format
+            if (name.equals("deaths")) return apply(DIV, apply(MUL, variable(0), variable(1)), new Node(100.0));
+            pos = start;
+            throw error("unknown variable '" + name + "' (use cases, deathRate, deaths, regions)");
+        }
+
+        private Node function(String name, int start) {
+            Node first = expression();
+            Node second = accept(',') ? expression() : null;
+            expect(')');
+            switch (name) {
+                case "min": if (second != null) return apply(MIN, first, second); break;
+                case "max": if (second != null) return apply(MAX, first, second); break;
+                case "sqrt": if (second == null) return apply(SQRT, first); break;
+                case "log1p": if (second == null) return apply(LOG1P, first); break;
+                default:
+                    pos = start;
+                    throw error("unknown function '" + name + "' (use min, max, sqrt, log1p)");
+            }
+            pos = start;
+            throw error("wrong number of arguments for " + name);
+        }
+
+        private void skipSpaces() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) pos++;
+        }
+
+        private boolean accept(char c) {
+            skipSpaces();
+            if (pos < text.length() && text.charAt(pos) == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char c) {
+            if (!accept(c)) throw error("expected '" + c + "'");
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException("Formula error at position " + (pos + 1) + ": " + message + " in \"" + text + "\"");
+        }
+    }
+
+    // -------------------------
+    // Rule set
+    // -------------------------
+    /** Immutable compiled rules; safe to share between threads. */
+    public static final class SeverityRules {
+        public static final String DEFAULT_OUTBREAK = "cases / 10 + deathRate * 20";
+        public static final String DEFAULT_ENDEMIC = "cases / 100 + regions * 10";
+
+        private static final MethodHandle TO_SEVERITY;
+        static {
+            try {
+                TO_SEVERITY = MethodHandles.lookup().findStatic(SeverityRules.class, "toSeverity", MethodType.methodType(int.class, double.class));
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        static int toSeverity(double raw) {
+            return (int) Math.round(raw);
+        }
+
+        private final MethodHandle outbreak; // (double cases, double deathRate, double regions)int
+        private final MethodHandle endemic;
+        // per disease id; null entries use the defaults above
+        private final MethodHandle[] outbreakByDisease;
+        private final MethodHandle[] endemicByDisease;
+        private final int critical;
+        private final int high;
+        private final int international;
+
+        private SeverityRules(MethodHandle outbreak, MethodHandle endemic, MethodHandle[] outbreakByDisease, MethodHandle[] endemicByDisease,
+                              int critical, int high, int international) {
+            this.outbreak = outbreak;
+            this.endemic = endemic;
+            this.outbreakByDisease = outbreakByDisease;
+            this.endemicByDisease = endemicByDisease;
+            this.critical = critical;
+            this.high = high;
+            this.international = international;
+        }
+
+        /** The built-in formulas and thresholds. */
+        public static SeverityRules defaults() {
+            return fromProperties(new Properties());
+        }
+
+        public static SeverityRules load(Path file) throws IOException {
+            Properties p = new Properties();
+            try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                p.load(in);
+            }
+            return fromProperties(p);
+        }
+
+        /** @throws IllegalArgumentException for unknown keys, bad numbers or formula syntax errors */
+        public static SeverityRules fromProperties(Properties p) {
+            String outbreakText = p.getProperty("outbreak.severity", DEFAULT_OUTBREAK);
+            String endemicText = p.getProperty("endemic.severity", DEFAULT_ENDEMIC);
+            MethodHandle outbreakFormula = FormulaCompiler.compile(outbreakText);
+            MethodHandle endemicFormula = FormulaCompiler.compile(endemicText);
+
+            int diseases = 0;
+            for (String key : p.stringPropertyNames()) {
+                if (key.startsWith("disease.")) diseases = Math.max(diseases, diseaseId(key) + 1);
+            }
+            MethodHandle[] outbreakByDisease = new MethodHandle[diseases];
+            MethodHandle[] endemicByDisease = new MethodHandle[diseases];
+            for (String key : p.stringPropertyNames()) {
+                switch (key) {
+                    case "outbreak.severity": case "endemic.severity":
+                    case "threshold.critical": case "threshold.high": case "threshold.international":
+                        continue;
+                    default:
+                        break;
+                }
+                if (!key.startsWith("disease.")) throw new IllegalArgumentException("Unknown severity rule key: " + key);
+                int id = diseaseId(key);
+                String disease = AfriGuardAWT.SymbolTable.DISEASES.symbol(id);
+                String rest = key.substring("disease.".length() + disease.length() + 1);
+                if (rest.equals("weight")) continue;
+                if (rest.equals("outbreak.severity")) outbreakByDisease[id] = FormulaCompiler.compile(p.getProperty(key));
+                else if (rest.equals("endemic.severity")) endemicByDisease[id] = FormulaCompiler.compile(p.getProperty(key));
+                else throw new IllegalArgumentException("Unknown severity rule key: " + key);
+            }
+            for (int id = 0; id < diseases; id++) {
+                String disease = AfriGuardAWT.SymbolTable.DISEASES.symbol(id);
+                double weight = number(p, "disease." + disease + ".weight", 1.0);
+                boolean configured = outbreakByDisease[id] != null || endemicByDisease[id] != null || weight != 1.0;
+                if (!configured) continue;
+                outbreakByDisease[id] = finish(outbreakByDisease[id] != null ? outbreakByDisease[id] : outbreakFormula, weight);
+                endemicByDisease[id] = finish(endemicByDisease[id] != null ? endemicByDisease[id] : endemicFormula, weight);
+            }
+            return new SeverityRules(finish(outbreakFormula, 1.0), finish(endemicFormula, 1.0), outbreakByDisease, endemicByDisease,
+                    (int) number(p, "threshold.critical", 80), (int) number(p, "threshold.high", 50), (int) number(p, "threshold.international", 70));
+        }
+
+        // "disease.<NAME>.<rule>": the name may itself contain dots, the rule is one of three suffixes
+        private static int diseaseId(String key) {
+            String body = key.substring("disease.".length());
+            for (String suffix : new String[]{".weight", ".outbreak.severity", ".endemic.severity"}) {
+                if (body.endsWith(suffix) && body.length() > suffix.length()) {
+                    return AfriGuardAWT.SymbolTable.DISEASES.code(body.substring(0, body.length() - suffix.length()));
+                }
+            }
+            throw new IllegalArgumentException("Unknown severity rule key: " + key);
+        }
+
+        private static double number(Properties p, String key, double fallback) {
+            String v = p.getProperty(key);
+            if (v == null) return fallback;
+            try {
+                return Double.parseDouble(v.trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Not a number for " + key + ": " + v);
+            }
+        }
+
+        // weight * formula, rounded: (double, double, double)int
+        private static MethodHandle finish(MethodHandle formula, double weight) {
+            MethodHandle weighted = formula;
+            if (weight != 1.0) {
+                MethodHandle times = MethodHandles.insertArguments(FormulaCompiler.MUL, 1, weight);
+                weighted = MethodHandles.filterReturnValue(formula, times);
+            }
+            return MethodHandles.filterReturnValue(weighted, TO_SEVERITY);
+        }
+
+        // -------------------------
+        // Evaluation
+        // -------------------------
+        public int outbreakSeverity(int diseaseId, int cases, double deathRate) {
+            MethodHandle h = diseaseId >= 0 && diseaseId < outbreakByDisease.length && outbreakByDisease[diseaseId] != null ? outbreakByDisease[diseaseId] : outbreak;
+            try {
+                return (int) h.invokeExact((double) cases, deathRate, 0.0);
+            } catch (Throwable t) {
+                throw new IllegalStateException("Severity formula failed", t);
+            }
+        }
+
+        public int endemicSeverity(int diseaseId, int cases, int regionCount) {
+            MethodHandle h = diseaseId >= 0 && diseaseId < endemicByDisease.length && endemicByDisease[diseaseId] != null ? endemicByDisease[diseaseId] : endemic;
+            try {
+                return (int) h.invokeExact((double) cases, 0.0, (double) regionCount);
+            } catch (Throwable t) {
+                throw new IllegalStateException("Severity formula failed", t);
+            }
+        }
+
+        /** Severity of an OutbreakAlert / EndemicAlert (or store view) under these rules. */
+        public int severity(AfriGuardAWT.HealthAlert alert) {
+            if (alert instanceof AfriGuardAWT.OutbreakAlert) {
+                return outbreakSeverity(alert.getDiseaseId(), alert.getCasesReported(), ((AfriGuardAWT.OutbreakAlert) alert).getDeathRate());
+            }
+            if (alert instanceof AfriGuardAWT.EndemicAlert) {
+                return endemicSeverity(alert.getDiseaseId(), alert.getCasesReported(), ((AfriGuardAWT.EndemicAlert) alert).getRegionCount());
+            }
+            if (alert instanceof AfriGuardStore.AlertView) {
+                AfriGuardStore.AlertView v = (AfriGuardStore.AlertView) alert;
+                return v.isOutbreak() ? outbreakSeverity(v.getDiseaseId(), v.getCasesReported(), v.getDeathRate())
+                        : endemicSeverity(v.getDiseaseId(), v.getCasesReported(), v.getRegionCount());
+            }
+            throw new IllegalArgumentException("Unsupported alert type: " + (alert == null ? "null" : alert.getClass().getName()));
+        }
+
+        public String levelFor(int severity) {
+            if (severity > critical) return "CRITICAL";
+            if (severity > high) return "HIGH";
+            return "MODERATE";
+        }
+
+        public boolean requiresInternationalResponse(int severity) {
+            return severity > international;
+        }
+
+        // -------------------------
+        // Bulk rescoring
+        // -------------------------
+        private static final int RESCORE_CHUNK = 1 << 16;
+
+        /**
+         * Scores every alert of source under these rules: out[i] receives its severity (Integer.MIN_VALUE
+         * for a null slot) and the returned summary counts levels, widespread endemics and international
+         * responses as processAlerts would under the new rules. Columnar sources (store, repository
+         * snapshot, log) are read column by column without materializing alerts.
+         */
+        public AfriGuardAWT.AlertSummary rescore(AfriGuardAWT.AlertSource source, int[] out, boolean parallel) {
+            int n = source.size();
+            if (out.length < n) throw new IllegalArgumentException("output array too small: " + out.length + " < " + n);
+            // columnar sources (store, repository snapshot, log) are read without materializing alerts
+            AfriGuardStore.AlertRows columns = source instanceof AfriGuardStore.AlertRows ? (AfriGuardStore.AlertRows) source : null;
+            int chunks = (n + RESCORE_CHUNK - 1) / RESCORE_CHUNK;
+            IntStream ids = IntStream.range(0, chunks);
+            AfriGuardAWT.AlertSummary[] parts = (parallel ? ids.parallel() : ids)
+                    .mapToObj(c -> rescoreRange(source, columns, c * RESCORE_CHUNK, Math.min(n, (c + 1) * RESCORE_CHUNK), out))
+                    .toArray(AfriGuardAWT.AlertSummary[]::new);
+            // in index order, so ties on severity keep the earliest alert
+            AfriGuardAWT.AlertSummary summary = new AfriGuardAWT.AlertSummary();
+            for (AfriGuardAWT.AlertSummary part : parts) summary.merge(part);
+            return summary;
+        }
+
+        private AfriGuardAWT.AlertSummary rescoreRange(AfriGuardAWT.AlertSource source, AfriGuardStore.AlertRows columns, int from, int to, int[] out) {
+            AfriGuardAWT.AlertSummary summary = new AfriGuardAWT.AlertSummary();
+            int highestRow = -1;
+            int highest = Integer.MIN_VALUE;
+            AfriGuardAWT.AlertSource.Cursor cursor = columns == null ? source.cursor() : null;
+            for (int i = from; i < to; i++) {
+                int severity;
+                boolean outbreak;
+                int regionCount;
+                if (columns != null) {
+                    outbreak = columns.kind(i) == AfriGuardStore.ColumnarAlertStore.OUTBREAK;
+                    regionCount = outbreak ? 0 : columns.regionCount(i);
+                    severity = outbreak ? outbreakSeverity(columns.diseaseId(i), columns.cases(i), columns.deathRate(i))
+                            : endemicSeverity(columns.diseaseId(i), columns.cases(i), regionCount);
+                } else {
+                    AfriGuardAWT.HealthAlert alert = cursor.at(i);
+                    if (alert == null) {
+                        out[i] = Integer.MIN_VALUE;
+                        summary.recordNull();
+                        continue;
+                    }
+                    outbreak = alert instanceof AfriGuardAWT.OutbreakAlert
+                            || (alert instanceof AfriGuardStore.AlertView && ((AfriGuardStore.AlertView) alert).isOutbreak());
+                    regionCount = alert instanceof AfriGuardAWT.EndemicAlert ? ((AfriGuardAWT.EndemicAlert) alert).getRegionCount()
+                            : alert instanceof AfriGuardStore.AlertView ? ((AfriGuardStore.AlertView) alert).getRegionCount() : 0;
+                    severity = severity(alert);
+                }
+                out[i] = severity;
+                boolean needsInternational = requiresInternationalResponse(severity);
+                if (outbreak) summary.recordOutbreak(levelFor(severity), needsInternational);
+                else summary.recordEndemic(AfriGuardAWT.EndemicAlert.isWidespreadFor(regionCount), needsInternational);
+                if (severity > highest) {
+                    highest = severity;
+                    highestRow = i;
+                }
+            }
+            if (highestRow >= 0) summary.offerHighest(source.alertAt(highestRow), highest);
+            return summary;
+        }
+
+        @Override
+        public String toString() {
+            return "SeverityRules{critical>" + critical + ", high>" + high + ", international>" + international
+                    + ", per-disease rules for " + Arrays.stream(outbreakByDisease).filter(h -> h != null).count() + " disease(s)}";
+        }
+    }
+
+    // -------------------------
+    // Main
+    // -------------------------
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: java AfriGuardRules <rules.properties> <feed.csv|.tsv|.agb>");
+            return;
+        }
+        SeverityRules rules = SeverityRules.load(Paths.get(args[0]));
+        System.out.println("Loaded " + rules);
+        AfriGuardTransfer.ImportResult imported = AfriGuardTransfer.importFile(Paths.get(args[1]), java.time.LocalDate.now().toString());
+        AfriGuardStore.ColumnarAlertStore alerts = imported.getAlerts();
+        System.out.println("Imported " + args[1] + ": " + imported);
+
+        int[] severities = new int[alerts.size()];
+        long t0 = System.nanoTime();
+        AfriGuardAWT.AlertSummary summary = rules.rescore(alerts, severities, alerts.size() >= 50_000);
+        long millis = (System.nanoTime() - t0) / 1_000_000;
+        System.out.println("Rescored " + alerts.size() + " alerts in " + millis + " ms: " + summary);
+    }
+}
@@ -0,0 +1,346 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * AfriGuardSeverity.java
+ * Incremental severity index: top-K alerts and severity percentiles, overall and per
+ * country / disease, maintained on every add instead of rescanning all alerts.
+ *
+ * - TopKHeap: bounded min-heap of the K most severe alerts (ties keep the earliest alert,
+ *   like the processAlerts summary).
+ * - SeveritySketch: mergeable log-linear histogram; exact for severities 0..255,
+ *   within ~1% above that.
+ *
+ * Compile: javac AfriGuard*.java
+ */
+public class AfriGuardSeverity {
+
+    // -------------------------
+    // Bounded top-K heap
+    // -------------------------
+    public static class TopKHeap {
+        private final int capacity;
+        private final int[] severities;
+        private final long[] sequence;
+        private final AfriGuardAWT.HealthAlert[] items;
+        private int size;
+
+        public TopKHeap(int capacity) {
+            if (capacity <= 0) throw new IllegalArgumentException("capacity must be > 0");
+            this.capacity = capacity;
+            this.severities = new int[capacity];
+            this.sequence = new long[capacity];
+            this.items = new AfriGuardAWT.HealthAlert[capacity];
+        }
+
+        /**
+         * Offers an alert; seq is its arrival number (lower = earlier). O(log K).
+         * @return true if the alert is now among the top K
+         */
+        public boolean offer(AfriGuardAWT.HealthAlert alert, int severity, long seq) {
+            // a store view is copied only once it makes the top K
+            if (size < capacity) {
+                severities[size] = severity;
+                sequence[size] = seq;
+                items[size] = AfriGuardStore.AlertView.standalone(alert);
+                siftUp(size++);
+                return true;
+            }
+            if (!ranksAbove(severity, seq, severities[0], sequence[0])) return false;
+            severities[0] = severity;
+            sequence[0] = seq;
+            items[0] = AfriGuardStore.AlertView.standalone(alert);
+            siftDown(0);
+            return true;
+        }
+
+        public void merge(TopKHeap other) {
+            for (int i = 0; i < other.size; i++) offer(other.items[i], other.severities[i], other.sequence[i]);
+        }
+
+        public int size() {
+            return size;
+        }
+
+        /** Lowest severity that is still in the top K, or Integer.MIN_VALUE while not full. */
+        public int threshold() {
+            return size < capacity ? Integer.MIN_VALUE : severities[0];
+        }
+
+        /** The retained alerts, most severe first. O(K log K) on at most K elements. */
+        public List<AfriGuardAWT.HealthAlert> sorted() {
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) order[i] = i;
+            Arrays.sort(order, (a, b) -> a.equals(b) ? 0
+                    : ranksAbove(severities[a], sequence[a], severities[b], sequence[b]) ? -1 : 1);
+            List<AfriGuardAWT.HealthAlert> out = new ArrayList<>(size);
+            for (Integer i : order) out.add(items[i]);
+            return out;
+        }
+
+        // higher severity wins; on a tie the earlier alert wins
+        private static boolean ranksAbove(int sevA, long seqA, int sevB, long seqB) {
+            return sevA > sevB || (sevA == sevB && seqA < seqB);
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!ranksAbove(severities[parent], sequence[parent], severities[i], sequence[i])) break;
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int l = 2 * i + 1, r = l + 1, min = i;
+                if (l < size && ranksAbove(severities[min], sequence[min], severities[l], sequence[l])) min = l;
+                if (r < size && ranksAbove(severities[min], sequence[min], severities[r], sequence[r])) min = r;
+                if (min == i) return;
+                swap(i, min);
+                i = min;
+            }
+        }
+
+        private void swap(int a, int b) {
+            int s = severities[a]; severities[a] = severities[b]; severities[b] = s;
+            long q = sequence[a]; sequence[a] = sequence[b]; sequence[b] = q;
+            AfriGuardAWT.HealthAlert t = items[a]; items[a] = items[b]; items[b] = t;
+        }
+    }
+
+    // -------------------------
+    // Mergeable quantile sketch
+    // -------------------------
+    public static class SeveritySketch {
+        private static final int EXACT_LIMIT = 256;       // severities 0..255 get their own bucket
+        private static final int SUB_BITS = 6;            // 64 sub-buckets per power of two above that
+        private static final int FIRST_LOG_EXPONENT = 8;  // log2(EXACT_LIMIT)
+        private static final int BUCKETS = 1 + EXACT_LIMIT + (31 - FIRST_LOG_EXPONENT) * (1 << SUB_BITS);
+
+        private final long[] counts = new long[BUCKETS];  // bucket 0 holds negative severities
+        private long total;
+        private int min = Integer.MAX_VALUE;
+        private int max = Integer.MIN_VALUE;
+
+        public void add(int severity) {
+            counts[bucketOf(severity)]++;
+            total++;
+            if (severity < min) min = severity;
+            if (severity > max) max = severity;
+        }
+
+        public void merge(SeveritySketch other) {
+            for (int i = 0; i < BUCKETS; i++) counts[i] += other.counts[i];
+            total += other.total;
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+        }
+
+        public long count() {
+            return total;
+        }
+
+        /**
+         * Severity at quantile q in [0, 1] (e.g. 0.99 for p99), or Integer.MIN_VALUE when empty.
+         * Scans a fixed number of buckets, independent of how many alerts were added.
+         */
+        public int quantile(double q) {
+            if (total == 0) return Integer.MIN_VALUE;
+            if (q <= 0) return min;
+            if (q >= 1) return max;
+            long rank = Math.max(1, (long) Math.ceil(q * total));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= rank) return Math.max(min, Math.min(max, representative(i)));
+            }
+            return max;
+        }
+
+        private static int bucketOf(int v) {
+            if (v < 0) return 0;
+            if (v < EXACT_LIMIT) return 1 + v;
+            int exp = 31 - Integer.numberOfLeadingZeros(v);
+            int sub = (v >>> (exp - SUB_BITS)) & ((1 << SUB_BITS) - 1);
+            return 1 + EXACT_LIMIT + (exp - FIRST_LOG_EXPONENT) * (1 << SUB_BITS) + sub;
+        }
+
+        // midpoint of the bucket's value range
+        private int representative(int bucket) {
+            if (bucket == 0) return min;
+            if (bucket <= EXACT_LIMIT) return bucket - 1;
+            int idx = bucket - 1 - EXACT_LIMIT;
+            int exp = FIRST_LOG_EXPONENT + idx / (1 << SUB_BITS);
+            int sub = idx % (1 << SUB_BITS);
+            long lower = ((long) ((1 << SUB_BITS) + sub)) << (exp - SUB_BITS);
+            long width = 1L << (exp - SUB_BITS);
+            return (int) Math.min(Integer.MAX_VALUE, lower + width / 2);
+        }
+    }
+
+    // -------------------------
+    // Incremental index
+    // -------------------------
+    /**
+     * Top-K heaps and quantile sketches kept overall, per country and per disease.
+     * add is O(log K); topK queries are O(K log K) and quantiles O(1) in the number of alerts.
+     * Not thread-safe; build one index per thread and merge.
+     */
+    public static class SeverityIndex {
+        private static class Entry {
+            final TopKHeap top;
+            final SeveritySketch sketch = new SeveritySketch();
+
+            Entry(int k) {
+                top = new TopKHeap(k);
+            }
+
+            void add(AfriGuardAWT.HealthAlert alert, int severity, long seq) {
+                top.offer(alert, severity, seq);
+                sketch.add(severity);
+            }
+
+            void merge(Entry other) {
+                top.merge(other.top);
+                sketch.merge(other.sketch);
+            }
+        }
+
+        private final int k;
+        private Entry overall;
+        // indexed by SymbolTable code (HealthAlert.getCountryId / getDiseaseId)
+        private Entry[] byCountry = new Entry[64];
+        private Entry[] byDisease = new Entry[256];
+        private long nextSeq;
+
+        public SeverityIndex(int k) {
+            this.k = k;
+            this.overall = new Entry(k);
+        }
+
+        /** Records an alert; null alerts are ignored like in processAlerts. */
+        public void add(AfriGuardAWT.HealthAlert alert) {
+            if (alert == null) return;
+            int severity = alert.calculateSeverity();
+            long seq = nextSeq++;
+            overall.add(alert, severity, seq);
+            int country = alert.getCountryId();
+            if (country >= 0) {
+                byCountry = ensure(byCountry, country);
+                entry(byCountry, country).add(alert, severity, seq);
+            }
+            int disease = alert.getDiseaseId();
+            if (disease >= 0) {
+                byDisease = ensure(byDisease, disease);
+                entry(byDisease, disease).add(alert, severity, seq);
+            }
+        }
+
+        private static Entry[] ensure(Entry[] entries, int code) {
+            return code < entries.length ? entries : Arrays.copyOf(entries, Math.max(code + 1, entries.length * 2));
+        }
+
+        private Entry entry(Entry[] entries, int code) {
+            Entry e = entries[code];
+            if (e == null) entries[code] = e = new Entry(k);
+            return e;
+        }
+
+        private static Entry lookup(Entry[] entries, int code) {
+            return code >= 0 && code < entries.length ? entries[code] : null;
+        }
+
+        /**
+         * Folds in an index built over alerts that arrived after this one's (e.g. another worker's chunk).
+         */
+        public SeverityIndex merge(SeverityIndex later) {
+            long offset = nextSeq;
+            mergeEntry(overall, later.overall, offset);
+            for (int code = 0; code < later.byCountry.length; code++) {
+                if (later.byCountry[code] == null) continue;
+                byCountry = ensure(byCountry, code);
+                mergeEntry(entry(byCountry, code), later.byCountry[code], offset);
+            }
+            for (int code = 0; code < later.byDisease.length; code++) {
+                if (later.byDisease[code] == null) continue;
+                byDisease = ensure(byDisease, code);
+                mergeEntry(entry(byDisease, code), later.byDisease[code], offset);
+            }
+            nextSeq += later.nextSeq;
+            return this;
+        }
+
+        private static void mergeEntry(Entry into, Entry from, long seqOffset) {
+            for (int i = 0; i < from.top.size; i++) {
+                into.top.offer(from.top.items[i], from.top.severities[i], from.top.sequence[i] + seqOffset);
+            }
+            into.sketch.merge(from.sketch);
+        }
+
+        public void clear() {
+            overall = new Entry(k);
+            Arrays.fill(byCountry, null);
+            Arrays.fill(byDisease, null);
+            nextSeq = 0;
+        }
+
+        public long count() {
+            return overall.sketch.count();
+        }
+
+        public List<AfriGuardAWT.HealthAlert> topK() {
+            return overall.top.sorted();
+        }
+
+        public List<AfriGuardAWT.HealthAlert> topKByCountry(String country) {
+            Entry e = lookup(byCountry, AfriGuardAWT.SymbolTable.COUNTRIES.find(country));
+            return e == null ? new ArrayList<>() : e.top.sorted();
+        }
+
+        public List<AfriGuardAWT.HealthAlert> topKByDisease(String disease) {
+            Entry e = lookup(byDisease, AfriGuardAWT.SymbolTable.DISEASES.find(disease));
+            return e == null ? new ArrayList<>() : e.top.sorted();
+        }
+
+        public int quantile(double q) {
+            return overall.sketch.quantile(q);
+        }
+
+        public int quantileByCountry(String country, double q) {
+            Entry e = lookup(byCountry, AfriGuardAWT.SymbolTable.COUNTRIES.find(country));
+            return e == null ? Integer.MIN_VALUE : e.sketch.quantile(q);
+        }
+
+        public int quantileByDisease(String disease, double q) {
+            Entry e = lookup(byDisease, AfriGuardAWT.SymbolTable.DISEASES.find(disease));
+            return e == null ? Integer.MIN_VALUE : e.sketch.quantile(q);
+        }
+
+        /** Appends top-K and p50/p90/p99 lines, optionally narrowed to a country and/or disease. */
+        public void report(AfriGuardAWT.ReportSink sink, String country, String disease) {
+            StringBuilder sb = new StringBuilder();
+            sb.append("=== SEVERITY INDEX (").append(count()).append(" alerts) ===\n");
+            appendEntry(sb, "All alerts", overall);
+            if (country != null && !country.isEmpty()) appendEntry(sb, "Country " + country, lookup(byCountry, AfriGuardAWT.SymbolTable.COUNTRIES.find(country)));
+            if (disease != null && !disease.isEmpty()) appendEntry(sb, "Disease " + disease, lookup(byDisease, AfriGuardAWT.SymbolTable.DISEASES.find(disease)));
+            sb.append("=== END SEVERITY INDEX ===\n\n");
+            sink.append(sb);
+        }
+
+        private static void appendEntry(StringBuilder sb, String label, Entry e) {
+            if (e == null || e.sketch.count() == 0) {
+                sb.append(label).append(": no alerts\n");
+                return;
+            }
+            SeveritySketch s = e.sketch;
+            sb.append(String.format("%s: p50=%d | p90=%d | p99=%d | max=%d\n", label, s.quantile(0.50), s.quantile(0.90), s.quantile(0.99), s.max));
+            int rank = 1;
+            for (AfriGuardAWT.HealthAlert a : e.top.sorted()) {
+                sb.append("  ").append(rank++).append(". ").append(a).append("\n");
+            }
+        }
+    }
+}
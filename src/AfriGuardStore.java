@@ -0,0 +1,524 @@
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * AfriGuardStore.java
+ * Columnar (struct-of-arrays) storage for surveillance alerts.
+ *
+ * Instead of one object graph per alert, every attribute lives in its own primitive column:
+ * cases (int), death rate (double), country / disease / region ids from the shared SymbolTables (int),
+ * report date as epoch day (int) and a type tag (byte). Regions are kept as one flat id column
+ * with per-row offsets. A reusable AlertView (a HealthAlert) exposes any row, so existing
+ * severity logic runs unchanged without materializing objects.
+ *
+ * Compile: javac AfriGuard*.java
+ */
+public class AfriGuardStore {
+
+    // -------------------------
+    // Columnar store
+    // -------------------------
+    public static class ColumnarAlertStore implements AlertRows {
+        public static final byte OUTBREAK = 0;
+        public static final byte ENDEMIC = 1;
+
+        /** Date column value for report dates that are not ISO yyyy-MM-dd. */
+        public static final int UNKNOWN_DAY = Integer.MIN_VALUE;
+
+        private static final int INITIAL_CAPACITY = 1024;
+
+        // ids come from the shared symbol tables, so they match HealthAlert.getCountryId() etc.
+        private final AfriGuardAWT.SymbolTable countries = AfriGuardAWT.SymbolTable.COUNTRIES;
+        private final AfriGuardAWT.SymbolTable diseases = AfriGuardAWT.SymbolTable.DISEASES;
+        private final AfriGuardAWT.SymbolTable regions = AfriGuardAWT.SymbolTable.REGIONS;
+
+        private int size;
+        private byte[] kinds = new byte[INITIAL_CAPACITY];
+        private int[] cases = new int[INITIAL_CAPACITY];
+        private double[] deathRates = new double[INITIAL_CAPACITY];
+        private int[] countryIds = new int[INITIAL_CAPACITY];
+        private int[] diseaseIds = new int[INITIAL_CAPACITY];
+        private int[] reportDays = new int[INITIAL_CAPACITY];
+
+        // regions of row r are regionIds[regionStart[r] .. regionStart[r + 1])
+        private int[] regionStart = new int[INITIAL_CAPACITY + 1];
+        private int[] regionIds = new int[INITIAL_CAPACITY];
+
+        // date labels: ISO strings cached per epoch day, free-form (non-ISO) dates kept per row
+        private DayLabels dayLabels = new DayLabels();
+        private final HashMap<Integer, String> freeFormDates = new HashMap<>();
+        // bulk loads repeat the same date string on consecutive rows
+        private String lastDate;
+        private int lastDay = UNKNOWN_DAY;
+
+        /** Appends an OutbreakAlert or EndemicAlert and returns its row index. */
+        public int add(AfriGuardAWT.HealthAlert alert) {
+            if (alert instanceof AfriGuardAWT.OutbreakAlert) {
+                AfriGuardAWT.OutbreakAlert oa = (AfriGuardAWT.OutbreakAlert) alert;
+                return addOutbreak(oa.getCountryCode(), oa.getDiseaseName(), oa.getCasesReported(), oa.getReportDate(), oa.getDeathRate());
+            }
+            if (alert instanceof AfriGuardAWT.EndemicAlert) {
+                AfriGuardAWT.EndemicAlert ea = (AfriGuardAWT.EndemicAlert) alert;
+                int row = appendRow(ENDEMIC, ea.getCountryCode(), ea.getDiseaseName(), ea.getCasesReported(), ea.getReportDate());
+                int n = ea.getRegionCount();
+                int start = regionStart[row];
+                ensureRegionCapacity(start + n);
+                for (int i = 0; i < n; i++) regionIds[start + i] = ea.getRegionId(i);
+                regionStart[row + 1] = start + n;
+                return row;
+            }
+            if (alert instanceof AlertView) {
+                return addRow((AlertView) alert);
+            }
+            throw new IllegalArgumentException("Unsupported alert type: " + (alert == null ? "null" : alert.getClass().getName()));
+        }
+
+        public int addOutbreak(String country, String disease, int casesReported, String reportDate, double deathRate) {
+            int row = appendRow(OUTBREAK, country, disease, casesReported, reportDate);
+            deathRates[row] = deathRate;
+            regionStart[row + 1] = regionStart[row];
+            return row;
+        }
+
+        public int addEndemic(String country, String disease, int casesReported, String reportDate, String[] affectedRegions) {
+            int row = appendRow(ENDEMIC, country, disease, casesReported, reportDate);
+            int n = affectedRegions != null ? affectedRegions.length : 0;
+            int start = regionStart[row];
+            ensureRegionCapacity(start + n);
+            for (int i = 0; i < n; i++) regionIds[start + i] = regions.code(affectedRegions[i]);
+            regionStart[row + 1] = start + n;
+            return row;
+        }
+
+        private int addRow(AlertView view) {
+            AlertRows src = view.rows;
+            int r = view.row;
+            int row = appendRow(src.kind(r), view.getCountryCode(), view.getDiseaseName(), src.cases(r), view.getReportDate());
+            deathRates[row] = src.deathRate(r);
+            int n = src.regionCount(r);
+            int start = regionStart[row];
+            ensureRegionCapacity(start + n);
+            for (int i = 0; i < n; i++) regionIds[start + i] = src.regionId(r, i);
+            regionStart[row + 1] = start + n;
+            return row;
+        }
+
+        private int appendRow(byte kind, String country, String disease, int casesReported, String reportDate) {
+            if (size == kinds.length) grow();
+            int row = size++;
+            kinds[row] = kind;
+            cases[row] = casesReported;
+            deathRates[row] = 0.0;
+            countryIds[row] = countries.code(country);
+            diseaseIds[row] = diseases.code(disease);
+            if (reportDate != lastDate) {
+                lastDay = toEpochDay(reportDate);
+                lastDate = reportDate;
+            }
+            int day = lastDay;
+            reportDays[row] = day;
+            if (day == UNKNOWN_DAY && reportDate != null) freeFormDates.put(row, reportDate);
+            return row;
+        }
+
+        /**
+         * Copy of the rows added so far. Later adds to this store do not affect it, so a worker
+         * thread can process the copy while the EDT keeps adding alerts.
+         */
+        public ColumnarAlertStore snapshot() {
+            return snapshot(0);
+        }
+
+        /** Copy of rows [fromRow, size()), renumbered from 0; costs O(size() - fromRow). */
+        public ColumnarAlertStore snapshot(int fromRow) {
+            if (fromRow < 0 || fromRow > size) throw new IndexOutOfBoundsException("row " + fromRow + " of " + size);
+            ColumnarAlertStore copy = new ColumnarAlertStore();
+            int n = size - fromRow;
+            int cap = Math.max(n, INITIAL_CAPACITY);
+            copy.size = n;
+            copy.kinds = Arrays.copyOfRange(kinds, fromRow, fromRow + cap);
+            copy.cases = Arrays.copyOfRange(cases, fromRow, fromRow + cap);
+            copy.deathRates = Arrays.copyOfRange(deathRates, fromRow, fromRow + cap);
+            copy.countryIds = Arrays.copyOfRange(countryIds, fromRow, fromRow + cap);
+            copy.diseaseIds = Arrays.copyOfRange(diseaseIds, fromRow, fromRow + cap);
+            copy.reportDays = Arrays.copyOfRange(reportDays, fromRow, fromRow + cap);
+            int regionBase = regionStart[fromRow];
+            int regionCount = regionStart[size] - regionBase;
+            copy.regionStart = new int[cap + 1];
+            for (int r = 0; r <= n; r++) copy.regionStart[r] = regionStart[fromRow + r] - regionBase;
+            copy.regionIds = Arrays.copyOfRange(regionIds, regionBase, regionBase + Math.max(regionCount, INITIAL_CAPACITY));
+            for (java.util.Map.Entry<Integer, String> e : freeFormDates.entrySet()) {
+                if (e.getKey() >= fromRow && e.getKey() < size) copy.freeFormDates.put(e.getKey() - fromRow, e.getValue());
+            }
+            copy.dayLabels = dayLabels; // the cache is safe to share
+            return copy;
+        }
+
+        /** Appends all rows of other, in order, with bulk column copies. */
+        public void appendAll(ColumnarAlertStore other) {
+            int n = other.size;
+            int needed = size + n;
+            while (kinds.length < needed) grow();
+            System.arraycopy(other.kinds, 0, kinds, size, n);
+            System.arraycopy(other.cases, 0, cases, size, n);
+            System.arraycopy(other.deathRates, 0, deathRates, size, n);
+            System.arraycopy(other.countryIds, 0, countryIds, size, n);
+            System.arraycopy(other.diseaseIds, 0, diseaseIds, size, n);
+            System.arraycopy(other.reportDays, 0, reportDays, size, n);
+            int regionBase = regionStart[size];
+            int regionCount = other.regionStart[n];
+            ensureRegionCapacity(regionBase + regionCount);
+            System.arraycopy(other.regionIds, 0, regionIds, regionBase, regionCount);
+            for (int r = 1; r <= n; r++) regionStart[size + r] = regionBase + other.regionStart[r];
+            for (java.util.Map.Entry<Integer, String> e : other.freeFormDates.entrySet()) freeFormDates.put(size + e.getKey(), e.getValue());
+            size = needed;
+        }
+
+        /** Removes all rows; symbol ids are global and stay stable. */
+        public void clear() {
+            size = 0;
+            regionStart[0] = 0;
+            freeFormDates.clear();
+        }
+
+        private void grow() {
+            int cap = kinds.length * 2;
+            kinds = Arrays.copyOf(kinds, cap);
+            cases = Arrays.copyOf(cases, cap);
+            deathRates = Arrays.copyOf(deathRates, cap);
+            countryIds = Arrays.copyOf(countryIds, cap);
+            diseaseIds = Arrays.copyOf(diseaseIds, cap);
+            reportDays = Arrays.copyOf(reportDays, cap);
+            regionStart = Arrays.copyOf(regionStart, cap + 1);
+        }
+
+        private void ensureRegionCapacity(int needed) {
+            if (needed > regionIds.length) regionIds = Arrays.copyOf(regionIds, Math.max(needed, regionIds.length * 2));
+        }
+
+        static int toEpochDay(String date) {
+            if (date == null) return UNKNOWN_DAY;
+            try {
+                return (int) LocalDate.parse(date).toEpochDay();
+            } catch (DateTimeParseException e) {
+                return UNKNOWN_DAY;
+            }
+        }
+
+        // -------------------------
+        // Column access
+        // -------------------------
+        @Override
+        public int size() { return size; }
+
+        @Override public byte kind(int row) { return kinds[row]; }
+        @Override public int cases(int row) { return cases[row]; }
+        @Override public double deathRate(int row) { return deathRates[row]; }
+        @Override public int countryId(int row) { return countryIds[row]; }
+        @Override public int diseaseId(int row) { return diseaseIds[row]; }
+        @Override public int reportDay(int row) { return reportDays[row]; }
+        @Override public int regionCount(int row) { return regionStart[row + 1] - regionStart[row]; }
+        @Override public int regionId(int row, int i) { return regionIds[regionStart[row] + i]; }
+
+        public AfriGuardAWT.SymbolTable countries() { return countries; }
+        public AfriGuardAWT.SymbolTable diseases() { return diseases; }
+        public AfriGuardAWT.SymbolTable regions() { return regions; }
+
+        @Override
+        public String reportDate(int row) {
+            int day = reportDays[row];
+            if (day == UNKNOWN_DAY) return freeFormDates.get(row);
+            return dayLabels.label(day);
+        }
+
+        /**
+         * ISO labels cached per epoch day over a window of at most MAX_SPAN days, so a date column
+         * hands out shared strings instead of formatting one per read. Safe for concurrent readers.
+         */
+        static final class DayLabels {
+            private static final int MAX_SPAN = 1 << 16;
+
+            private volatile Window window = new Window(0, new String[0]);
+
+            // Base and array are swapped together, so concurrent readers never pair a base with the wrong array
+            private static final class Window {
+                final int base;
+                final String[] labels;
+
+                Window(int base, String[] labels) {
+                    this.base = base;
+                    this.labels = labels;
+                }
+            }
+
+            String label(int day) {
+                Window w = window;
+                int slot = day - w.base;
+                if (slot < 0 || slot >= w.labels.length) {
+                    w = widen(w, day);
+                    if (w == null) return LocalDate.ofEpochDay(day).toString();
+                    slot = day - w.base;
+                }
+                String label = w.labels[slot];
+                if (label == null) {
+                    label = LocalDate.ofEpochDay(day).toString();
+                    w.labels[slot] = label; // racing readers at worst format the same label twice
+                }
+                return label;
+            }
+
+            // Grows the window to cover day; null if the span would exceed MAX_SPAN.
+            private Window widen(Window current, int day) {
+                Window widened;
+                if (current.labels.length == 0) {
+                    widened = new Window(day - 512, new String[1024]);
+                } else {
+                    int lo = Math.min(current.base, day - 64);
+                    int hi = Math.max(current.base + current.labels.length, day + 64);
+                    if ((long) hi - lo > MAX_SPAN) return null;
+                    String[] labels = new String[hi - lo];
+                    System.arraycopy(current.labels, 0, labels, current.base - lo, current.labels.length);
+                    widened = new Window(lo, labels);
+                }
+                window = widened;
+                return widened;
+            }
+        }
+
+        /** Severity of a row computed straight from the columns. */
+        @Override
+        public int severity(int row) {
+            return kinds[row] == OUTBREAK
+                    ? AfriGuardAWT.OutbreakAlert.severityFor(cases[row], deathRates[row])
+                    : AfriGuardAWT.EndemicAlert.severityFor(cases[row], regionCount(row));
+        }
+
+        // -------------------------
+        // Object views
+        // -------------------------
+        /** A new flyweight positioned on row 0; reposition it with moveTo. One view per thread. */
+        public AlertView view() {
+            return new AlertView(this);
+        }
+
+        /** Builds a standalone OutbreakAlert or EndemicAlert for the row. */
+        @Override
+        public AfriGuardAWT.HealthAlert materialize(int row) {
+            if (kinds[row] == OUTBREAK) {
+                return new AfriGuardAWT.OutbreakAlert(country(row), disease(row), cases[row], reportDate(row), deathRates[row]);
+            }
+            String[] names = new String[regionCount(row)];
+            for (int i = 0; i < names.length; i++) names[i] = region(row, i);
+            return new AfriGuardAWT.EndemicAlert(country(row), disease(row), cases[row], reportDate(row), names);
+        }
+
+        /**
+         * Dashboard summary computed by scanning the columns through one flyweight view,
+         * without allocating per alert. Only the highest-severity row is materialized.
+         */
+        public AfriGuardAWT.AlertSummary summarize() {
+            AfriGuardAWT.AlertSummary summary = new AfriGuardAWT.AlertSummary();
+            AlertView view = view();
+            int highestRow = -1;
+            int highestSeverity = Integer.MIN_VALUE;
+            for (int row = 0; row < size; row++) {
+                view.moveTo(row);
+                int severity = view.calculateSeverity();
+                boolean international = view.requiresInternationalResponse();
+                if (view.isOutbreak()) {
+                    summary.recordOutbreak(view.getAlertLevel(), international);
+                } else {
+                    summary.recordEndemic(view.isWidespread(), international);
+                }
+                if (severity > highestSeverity) {
+                    highestSeverity = severity;
+                    highestRow = row;
+                }
+            }
+            if (highestRow >= 0) summary.offerHighest(materialize(highestRow), highestSeverity);
+            return summary;
+        }
+
+        /**
+         * Bulk severity scoring straight from the columns: out[from + i] = severity(i) for every row.
+         */
+        public void scoreSeverities(int[] out, int from) {
+            if (out.length - from < size) throw new IllegalArgumentException("output array too small for " + size + " rows");
+            for (int row = 0; row < size; row++) out[from + row] = severity(row);
+        }
+
+        /** Approximate retained bytes of the column arrays (excluding dictionaries). */
+        public long columnBytes() {
+            return kinds.length * (1L + 4 + 8 + 4 + 4 + 4 + 4) + regionIds.length * 4L;
+        }
+    }
+
+    // -------------------------
+    // Row access
+    // -------------------------
+    /**
+     * Column-level access to the rows of a columnar source (this store, the concurrent repository
+     * and its snapshots, the mapped log), so one AlertView type can read any of them. Ids are
+     * SymbolTable codes, comparable with HealthAlert.getCountryId() etc.
+     *
+     * alertAt materializes, so its results stay valid across threads and calls; scans should use
+     * cursor(), which reads through a single reusable AlertView.
+     */
+    public interface AlertRows extends AfriGuardAWT.AlertSource {
+        byte kind(int row);
+        int cases(int row);
+        double deathRate(int row);
+        int countryId(int row);
+        int diseaseId(int row);
+        String reportDate(int row);
+        /** Epoch day of the report date, UNKNOWN_DAY if it is not YYYY-MM-DD. */
+        int reportDay(int row);
+        int regionCount(int row);
+        int regionId(int row, int i);
+        int severity(int row);
+
+        /** Builds a standalone OutbreakAlert or EndemicAlert for the row. */
+        AfriGuardAWT.HealthAlert materialize(int row);
+
+        default String country(int row) { return AfriGuardAWT.SymbolTable.COUNTRIES.symbol(countryId(row)); }
+        default String disease(int row) { return AfriGuardAWT.SymbolTable.DISEASES.symbol(diseaseId(row)); }
+        default String region(int row, int i) { return AfriGuardAWT.SymbolTable.REGIONS.symbol(regionId(row, i)); }
+
+        @Override
+        default AfriGuardAWT.HealthAlert alertAt(int index) {
+            return materialize(index);
+        }
+
+        /** A new AlertView over these rows; the alert it returns is the same object on every call. */
+        @Override
+        default AlertView cursor() {
+            return new AlertView(this);
+        }
+    }
+
+    // -------------------------
+    // Flyweight view
+    // -------------------------
+    /**
+     * A HealthAlert whose getters read a row of a columnar source. moveTo (or at, as a cursor)
+     * repositions the same object, so a scan allocates nothing; the inherited calculateSeverity /
+     * requiresInternationalResponse contract is preserved. Do not keep references across moveTo
+     * calls (use snapshot(), or standalone() where the alert may or may not be a view).
+     */
+    public static class AlertView extends AfriGuardAWT.HealthAlert implements AfriGuardAWT.AlertSource.Cursor {
+        private final AlertRows rows;
+        private int row = -1;
+        private int severity;
+
+        AlertView(AlertRows rows) {
+            super(null, null, 0, null);
+            this.rows = rows;
+        }
+
+        /** alert itself, or a standalone copy if it is a view; for code that keeps alerts it is given. */
+        public static AfriGuardAWT.HealthAlert standalone(AfriGuardAWT.HealthAlert alert) {
+            return alert instanceof AlertView ? ((AlertView) alert).snapshot() : alert;
+        }
+
+        // Kind-specific fields of an alert a cursor returned (a view, or an Outbreak/EndemicAlert),
+        // read without snapshotting the view or copying the region list
+        public static boolean isOutbreak(AfriGuardAWT.HealthAlert alert) {
+            return alert instanceof AlertView ? ((AlertView) alert).isOutbreak() : alert instanceof AfriGuardAWT.OutbreakAlert;
+        }
+
+        public static double deathRateOf(AfriGuardAWT.HealthAlert alert) {
+            return alert instanceof AlertView ? ((AlertView) alert).getDeathRate() : ((AfriGuardAWT.OutbreakAlert) alert).getDeathRate();
+        }
+
+        public static int regionCountOf(AfriGuardAWT.HealthAlert alert) {
+            return alert instanceof AlertView ? ((AlertView) alert).getRegionCount() : ((AfriGuardAWT.EndemicAlert) alert).getRegionCount();
+        }
+
+        public static String regionOf(AfriGuardAWT.HealthAlert alert, int i) {
+            return alert instanceof AlertView ? ((AlertView) alert).getRegion(i) : ((AfriGuardAWT.EndemicAlert) alert).getRegion(i);
+        }
+
+        public static int regionIdOf(AfriGuardAWT.HealthAlert alert, int i) {
+            return alert instanceof AlertView ? ((AlertView) alert).getRegionId(i) : ((AfriGuardAWT.EndemicAlert) alert).getRegionId(i);
+        }
+
+        public AlertView moveTo(int row) {
+            if (row < 0 || row >= rows.size()) throw new IndexOutOfBoundsException("row " + row + " of " + rows.size());
+            this.row = row;
+            this.severity = rows.severity(row);
+            return this;
+        }
+
+        @Override
+        public AlertView at(int index) {
+            return moveTo(index);
+        }
+
+        @Override
+        public String getCountryCode() { return rows.country(row); }
+
+        @Override
+        public int getCountryId() { return rows.countryId(row); }
+
+        @Override
+        public int getDiseaseId() { return rows.diseaseId(row); }
+
+        @Override
+        public String getDiseaseName() { return rows.disease(row); }
+
+        @Override
+        public int getCasesReported() { return rows.cases(row); }
+
+        @Override
+        public String getReportDate() { return rows.reportDate(row); }
+
+        public int getRow() { return row; }
+
+        public boolean isOutbreak() { return rows.kind(row) == ColumnarAlertStore.OUTBREAK; }
+
+        public double getDeathRate() { return rows.deathRate(row); }
+
+        public int getRegionCount() { return rows.regionCount(row); }
+
+        public String getRegion(int i) { return rows.region(row, i); }
+
+        public int getRegionId(int i) { return rows.regionId(row, i); }
+
+        /** Appends the regions in Arrays.toString form, like EndemicAlert.appendRegions. */
+        public StringBuilder appendRegions(StringBuilder sb) {
+            sb.append('[');
+            for (int i = 0, n = getRegionCount(); i < n; i++) {
+                if (i > 0) sb.append(", ");
+                sb.append(getRegion(i));
+            }
+            return sb.append(']');
+        }
+
+        public String getAlertLevel() {
+            return AfriGuardAWT.OutbreakAlert.levelFor(calculateSeverity());
+        }
+
+        public boolean isWidespread() {
+            return AfriGuardAWT.EndemicAlert.isWidespreadFor(getRegionCount());
+        }
+
+        @Override
+        public int calculateSeverity() {
+            return severity;
+        }
+
+        /** A standalone copy of the current row. */
+        public AfriGuardAWT.HealthAlert snapshot() {
+            return rows.materialize(row);
+        }
+
+        /** Same text as the materialized alert's toString(), without materializing it. */
+        @Override
+        public String toString() {
+            if (isOutbreak()) return String.format("Outbreak[%s, deathRate=%.2f%%, severity=%d]", super.toString(), getDeathRate(), severity);
+            return String.format("Endemic[%s, regions=%s, severity=%d]", super.toString(), appendRegions(new StringBuilder()), severity);
+        }
+    }
+}
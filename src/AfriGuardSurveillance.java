@@ -1,14 +1,19 @@
 // AfriGuardSurveillance.java
-// Compile: javac AfriGuardSurveillance.java
-// Run: java AfriGuardSurveillance
+// Compile: javac AfriGuard*.java
+// Run: java AfriGuardSurveillance            (built-in demo)
+//      java AfriGuardSurveillance feed.csv   (process a report feed with the shared dashboard core;
+//                                             .tsv and .agb feeds work too, see AfriGuardTransfer)
+//      java AfriGuardSurveillance a.csv b.csv ...  (ingest several feeds in parallel, see AfriGuardRepository)
+//      java AfriGuardSurveillance --log dir  (process a persistent alert log, see AfriGuardLog)
 
 import java.util.Arrays;
 
+// Alerts are immutable; subclasses compute severity once in their constructor.
 abstract class HealthAlert {
-    protected String countryCode;
-    protected String diseaseName;
-    protected int casesReported;
-    protected String reportDate;
+    protected final String countryCode;
+    protected final String diseaseName;
+    protected final int casesReported;
+    protected final String reportDate;
 
     public HealthAlert(String countryCode, String diseaseName, int casesReported, String reportDate) {
         this.countryCode = countryCode;
@@ -32,25 +37,27 @@ abstract class HealthAlert {
 }
 
 class OutbreakAlert extends HealthAlert {
-    private double deathRate; // expressed as percentage (e.g., 5.5 for 5.5%)
+    private final double deathRate; // expressed as percentage (e.g., 5.5 for 5.5%)
+    private final int severity;
+    private final String alertLevel;
 
     public OutbreakAlert(String countryCode, String diseaseName, int casesReported, String reportDate, double deathRate) {
         super(countryCode, diseaseName, casesReported, reportDate);
         this.deathRate = deathRate;
+        // formula given: (casesReported/10.0) + (deathRate * 20)
+        this.severity = (int) Math.round((casesReported / 10.0) + (deathRate * 20.0));
+        if (severity > 80) alertLevel = "CRITICAL";
+        else if (severity > 50) alertLevel = "HIGH";
+        else alertLevel = "MODERATE";
     }
 
     @Override
     public int calculateSeverity() {
-        // formula given: (casesReported/10.0) + (deathRate * 20)
-        double raw = (casesReported / 10.0) + (deathRate * 20.0);
-        return (int) Math.round(raw);
+        return severity;
     }
 
     public String getAlertLevel() {
-        int sev = calculateSeverity();
-        if (sev > 80) return "CRITICAL";
-        if (sev > 50) return "HIGH";
-        return "MODERATE";
+        return alertLevel;
     }
 
     public double getDeathRate() {
@@ -72,20 +79,21 @@ class OutbreakAlert extends HealthAlert {
 }
 
 class EndemicAlert extends HealthAlert {
-    private String[] affectedRegions;
+    private final String[] affectedRegions;
+    private final int severity;
 
     public EndemicAlert(String countryCode, String diseaseName, int casesReported, String reportDate, String[] affectedRegions) {
         super(countryCode, diseaseName, casesReported, reportDate);
         this.affectedRegions = affectedRegions != null ? affectedRegions.clone() : new String[0];
+        // The prompt's formula was garbled. Reasonable interpretation:
+        // severity = (casesReported / 100.0) + (affectedRegions.length * 10)
+        // Then convert to int.
+        this.severity = (int) Math.round((casesReported / 100.0) + (this.affectedRegions.length * 10.0));
     }
 
     @Override
     public int calculateSeverity() {
-        // The prompt's formula was garbled. Reasonable interpretation:
-        // severity = (casesReported / 100.0) + (affectedRegions.length * 10)
-        // Then convert to int.
-        double raw = (casesReported / 100.0) + (affectedRegions.length * 10.0);
-        return (int) Math.round(raw);
+        return severity;
     }
 
     public boolean isWidespread() {
@@ -96,6 +104,15 @@ class EndemicAlert extends HealthAlert {
         return affectedRegions.clone();
     }
 
+    // read-only access without the defensive copy
+    public int getRegionCount() {
+        return affectedRegions.length;
+    }
+
+    public String getRegion(int i) {
+        return affectedRegions[i];
+    }
+
     @Override
     public String toString() {
         return "EndemicAlert{" +
@@ -151,7 +168,9 @@ class SurveillanceDashboard {
                     System.out.println("    [Outbreak] Death rate (%) = " + oa.getDeathRate() + " | Alert Level = " + oa.getAlertLevel());
                 } else if (alert instanceof EndemicAlert) {
                     EndemicAlert ea = (EndemicAlert) alert;
-                    System.out.println("    [Endemic] Regions affected = " + Arrays.toString(ea.getAffectedRegions()) + " | Widespread = " + ea.isWidespread());
+                    StringBuilder regions = new StringBuilder("    [Endemic] Regions affected = [");
+                    for (int r = 0; r < ea.getRegionCount(); r++) regions.append(r > 0 ? ", " : "").append(ea.getRegion(r));
+                    System.out.println(regions.append("] | Widespread = ").append(ea.isWidespread()));
                 }
 
                 // Track highest severity
@@ -258,7 +277,100 @@ class SurveillanceDashboard {
 }
 
 public class AfriGuardSurveillance {
-    public static void main(String[] args) {
+
+    // Bulk-imports a report feed (CSV, TSV or binary, see AfriGuardTransfer) and runs it through the
+    // same processing core as the AWT dashboard, writing the report to stdout in batches.
+    static void processFeed(String file) throws java.io.IOException {
+        AfriGuardTransfer.ImportResult imported = AfriGuardTransfer.importFile(java.nio.file.Paths.get(file), java.time.LocalDate.now().toString());
+        System.out.println("Ingested " + file + ": " + imported);
+        for (AfriGuardTransfer.Rejection r : imported.getRejections()) System.out.println("  rejected " + r);
+        AfriGuardStore.ColumnarAlertStore alerts = imported.getAlerts();
+
+        AfriGuardAWT.BatchingReportSink sink = AfriGuardAWT.BatchingReportSink.forPrintStream(System.out);
+        new AfriGuardAWT.SurveillanceDashboard().processAlerts(alerts, sink, alerts.size() >= 50_000);
+        sink.flush();
+    }
+
+    // How often processFeeds reports the alerts published since its last pass
+    static final long REFRESH_MILLIS = 500;
+
+    // Ingests several national feeds in parallel, one producer thread per feed, into one lock-free
+    // repository. Producers publish each parsed chunk as they go, and this thread reports what has
+    // been published every REFRESH_MILLIS until all feeds are in, so the report keeps pace with
+    // ingestion; each pass ends with the running summary.
+    static void processFeeds(String[] files) throws java.io.IOException {
+        AfriGuardRepository.ConcurrentAlertRepository repository = new AfriGuardRepository.ConcurrentAlertRepository();
+        String today = java.time.LocalDate.now().toString();
+        String[] results = new String[files.length];
+        Thread[] producers = new Thread[files.length];
+        for (int f = 0; f < files.length; f++) {
+            int feed = f;
+            producers[f] = new Thread(() -> {
+                try {
+                    java.nio.file.Path path = java.nio.file.Paths.get(files[feed]);
+                    AfriGuardTransfer.ImportResult imported = AfriGuardTransfer.importFile(path, AfriGuardTransfer.Format.forPath(path), today, repository::appendAll);
+                    results[feed] = imported.toString();
+                } catch (java.io.IOException ex) {
+                    results[feed] = "failed: " + ex.getMessage();
+                }
+            }, "feed-" + files[feed]);
+            producers[f].start();
+        }
+
+        AfriGuardAWT.SurveillanceDashboard dashboard = new AfriGuardAWT.SurveillanceDashboard();
+        AfriGuardAWT.IncrementalState state = new AfriGuardAWT.IncrementalState();
+        AfriGuardAWT.BatchingReportSink sink = AfriGuardAWT.BatchingReportSink.forPrintStream(System.out);
+        try {
+            for (Thread t : producers) {
+                while (t.isAlive()) {
+                    t.join(REFRESH_MILLIS);
+                    processPublished(dashboard, repository, state, sink);
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new java.io.InterruptedIOException("Interrupted while ingesting feeds");
+        }
+        processPublished(dashboard, repository, state, sink);
+        sink.flush();
+        for (int f = 0; f < files.length; f++) System.out.println("Ingested " + files[f] + ": " + results[f]);
+    }
+
+    // One reader pass over the rows published since the last one; a snapshot keeps it to a fixed set
+    private static void processPublished(AfriGuardAWT.SurveillanceDashboard dashboard, AfriGuardRepository.ConcurrentAlertRepository repository,
+                                         AfriGuardAWT.IncrementalState state, AfriGuardAWT.BatchingReportSink sink) {
+        AfriGuardRepository.Snapshot snapshot = repository.snapshot();
+        int fresh = snapshot.size() - state.getWatermark();
+        if (fresh == 0) return;
+        dashboard.processNewAlerts(snapshot, state, sink, fresh >= 50_000, AfriGuardAWT.ProgressMonitor.NONE);
+        sink.flush();
+    }
+
+    // Processes the mapped records of a persistent alert log directly, without re-parsing any CSV.
+    static void processLog(String dir) throws java.io.IOException {
+        try (AfriGuardLog.MappedAlertLog log = new AfriGuardLog.MappedAlertLog(java.nio.file.Paths.get(dir))) {
+            System.out.println("Alert log " + dir + ": " + log.size() + " records in " + log.segmentCount() + " segment(s)");
+            AfriGuardAWT.BatchingReportSink sink = AfriGuardAWT.BatchingReportSink.forPrintStream(System.out);
+            new AfriGuardAWT.SurveillanceDashboard().processAlerts(log, sink, log.size() >= 50_000);
+            sink.flush();
+        }
+    }
+
+    public static void main(String[] args) throws java.io.IOException {
+        AfriGuardMetrics.PipelineMetrics.publish();
+        if (args.length > 1 && args[0].equals("--log")) {
+            processLog(args[1]);
+            return;
+        }
+        if (args.length > 1) {
+            processFeeds(args);
+            return;
+        }
+        if (args.length > 0) {
+            processFeed(args[0]);
+            return;
+        }
+
         SurveillanceDashboard dashboard = new SurveillanceDashboard();
 
         // Create sample alerts (mix of Outbreak and Endemic). At least 6 objects including a null.
@@ -0,0 +1,711 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * AfriGuardTransfer.java
+ * Bulk import and export of alert collections as CSV, TSV or a compact binary format.
+ *
+ * Text files have one alert per line in the report layout, extended with two optional columns:
+ *   country,disease,cases,deaths,regions,date,death_rate
+ * Lines follow parseReportData rules (numeric deaths -> outbreak, else regions -> endemic). Regions
+ * are ';'-separated. A deaths field of ENDEMIC_MARK ("-") marks an endemic alert explicitly, so one
+ * with no regions is not ambiguous; exports write it for exactly those. date defaults to the import
+ * date when blank. death_rate, when present, is used as is, so exported outbreaks round-trip
+ * exactly. A leading header line is skipped. Fields are not quoted: a text export fails on a value
+ * that contains the separator, a line break or surrounding blanks, or a region name containing a
+ * region separator, rather than write a file that would import differently.
+ *
+ * Text imports are split into chunks at line boundaries and parsed in parallel, a bounded number
+ * of chunks ahead of the one being merged. A streaming import hands the alerts of each chunk (or
+ * of every BINARY_BATCH .agb entries) to the caller in file order instead of keeping them, so a
+ * feed can be published while it is still being read. Rejected lines are reported with their
+ * line number and reason. Writes go through a FileChannel in large buffered blocks.
+ *
+ * The binary format (.agb) is "AGB1" followed by tagged entries: a SYMBOL entry defines the next
+ * string id once, and OUTBREAK / ENDEMIC entries reference strings by id, with varint numbers.
+ *
+ * Compile: javac AfriGuard*.java
+ * Run:     java AfriGuardTransfer check <file>          (import, print stats and rejected lines)
+ *          java AfriGuardTransfer convert <in> <out>    (formats chosen by extension .csv / .tsv / .agb;
+ *                                                       <in> may also be an AfriGuardLog directory)
+ */
+public class AfriGuardTransfer {
+
+    public enum Format {
+        CSV(','), TSV('\t'), BINARY('\0');
+
+        final char separator;
+
+        Format(char separator) {
+            this.separator = separator;
+        }
+
+        /** .tsv and .agb by extension, CSV otherwise. */
+        public static Format forPath(Path file) {
+            String name = file.getFileName().toString().toLowerCase();
+            if (name.endsWith(".tsv")) return TSV;
+            if (name.endsWith(".agb")) return BINARY;
+            return CSV;
+        }
+    }
+
+    static final String[] COLUMNS = {"country", "disease", "cases", "deaths", "regions", "date", "death_rate"};
+    static final char ENDEMIC_MARK = '-';
+    static final int BINARY_MAGIC = 0x41474231; // "AGB1"
+    static final byte TAG_SYMBOL = 1;
+    static final byte TAG_OUTBREAK = 2;
+    static final byte TAG_ENDEMIC = 3;
+    static final byte DATE_NONE = 0;
+    static final byte DATE_DAY = 1;
+    static final byte DATE_TEXT = 2;
+
+    private static final int WRITE_BUFFER = 1 << 20;
+    private static final int TEXT_CHUNK = 8 << 20;
+    private static final int BINARY_BATCH = 1 << 16;
+    private static final int MAX_REPORTED_REJECTIONS = 1000;
+
+    // -------------------------
+    // Import results
+    // -------------------------
+    public static class Rejection {
+        private final long line;
+        private final String text;
+        private final String reason;
+
+        Rejection(long line, String text, String reason) {
+            this.line = line;
+            this.text = text;
+            this.reason = reason;
+        }
+
+        public long getLine() { return line; }
+        public String getText() { return text; }
+        public String getReason() { return reason; }
+
+        @Override
+        public String toString() {
+            return "line " + line + ": " + reason + " -> \"" + text + "\"";
+        }
+    }
+
+    public static class ImportResult {
+        private AfriGuardStore.ColumnarAlertStore alerts = new AfriGuardStore.ColumnarAlertStore();
+        private long handedOff;
+        private long lines;
+        private long blankLines;
+        private long rejected;
+        private final Map<String, Long> rejectedByReason = new LinkedHashMap<>();
+        private final List<Rejection> rejections = new ArrayList<>();
+
+        /** Imported alerts in file order; empty after a streaming import, which handed them off. */
+        public AfriGuardStore.ColumnarAlertStore getAlerts() { return alerts; }
+        public long getImported() { return handedOff + alerts.size(); }
+        public long getLines() { return lines; }
+        public long getBlankLines() { return blankLines; }
+        public long getRejected() { return rejected; }
+        public Map<String, Long> getRejectedByReason() { return rejectedByReason; }
+
+        /** The first MAX_REPORTED_REJECTIONS rejected lines, in file order. */
+        public List<Rejection> getRejections() { return rejections; }
+
+        void reject(long line, String text, String reason) {
+            rejected++;
+            rejectedByReason.merge(reason, 1L, Long::sum);
+            if (rejections.size() < MAX_REPORTED_REJECTIONS) rejections.add(new Rejection(line, text, reason));
+        }
+
+        // Appends a later chunk, whose line numbers are relative to its start; its alerts go to
+        // batches instead when the import streams (batches != null)
+        void merge(ImportResult chunk, Consumer<AfriGuardStore.ColumnarAlertStore> batches) {
+            if (batches == null) {
+                alerts.appendAll(chunk.alerts);
+            } else if (chunk.alerts.size() > 0) {
+                handedOff += chunk.alerts.size();
+                batches.accept(chunk.alerts);
+            }
+            for (Map.Entry<String, Long> e : chunk.rejectedByReason.entrySet()) rejectedByReason.merge(e.getKey(), e.getValue(), Long::sum);
+            for (Rejection r : chunk.rejections) {
+                if (rejections.size() >= MAX_REPORTED_REJECTIONS) break;
+                rejections.add(new Rejection(lines + r.line, r.text, r.reason));
+            }
+            rejected += chunk.rejected;
+            blankLines += chunk.blankLines;
+            lines += chunk.lines;
+        }
+
+        // Streaming .agb import: passes the alerts read so far on and collects the next batch afresh
+        void handOff(Consumer<AfriGuardStore.ColumnarAlertStore> batches) {
+            if (alerts.size() == 0) return;
+            handedOff += alerts.size();
+            batches.accept(alerts);
+            alerts = new AfriGuardStore.ColumnarAlertStore();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("lines=%d, imported=%d, blank=%d, rejected=%d %s", lines, getImported(), blankLines, rejected, rejectedByReason);
+        }
+    }
+
+    // -------------------------
+    // Import
+    // -------------------------
+    /** Imports file in the format given by its extension; alerts without a date get defaultDate. */
+    public static ImportResult importFile(Path file, String defaultDate) throws IOException {
+        return importFile(file, Format.forPath(file), defaultDate);
+    }
+
+    public static ImportResult importFile(Path file, Format format, String defaultDate) throws IOException {
+        return importFile(file, format, defaultDate, null);
+    }
+
+    /**
+     * Streaming import: each batch of alerts goes to batches, in file order, as soon as it is
+     * parsed, on the calling thread; the result keeps counts and rejections but no alerts. A
+     * batch is not used again once handed over. With batches null this is importFile(file, format,
+     * defaultDate).
+     */
+    public static ImportResult importFile(Path file, Format format, String defaultDate,
+                                          Consumer<AfriGuardStore.ColumnarAlertStore> batches) throws IOException {
+        return format == Format.BINARY ? importBinary(file, batches) : importText(file, format.separator, defaultDate, batches);
+    }
+
+    private static ImportResult importText(Path file, char separator, String defaultDate,
+                                           Consumer<AfriGuardStore.ColumnarAlertStore> batches) throws IOException {
+        ImportResult result = new ImportResult();
+        int maxInFlight = Math.max(2, 2 * ForkJoinPool.getCommonPoolParallelism());
+        ArrayDeque<Future<ImportResult>> inFlight = new ArrayDeque<>();
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = ch.size();
+            try {
+                for (long start = 0; start < size; ) {
+                    // chunk boundaries just after a '\n', so no line is split
+                    long end = Math.min(size, start + TEXT_CHUNK);
+                    if (end < size) end = FileChunks.nextLineStart(ch, end, size);
+                    long from = start, to = end;
+                    boolean first = start == 0;
+                    inFlight.add(ForkJoinPool.commonPool().submit(() -> new TextChunkParser(separator, defaultDate).parse(FileChunks.read(ch, from, to), first)));
+                    start = end;
+                    if (inFlight.size() == maxInFlight) result.merge(join(inFlight.remove()), batches);
+                }
+                while (!inFlight.isEmpty()) result.merge(join(inFlight.remove()), batches);
+            } finally {
+                for (Future<ImportResult> f : inFlight) f.cancel(true);
+            }
+        }
+        return result;
+    }
+
+    private static ImportResult join(Future<ImportResult> f) throws IOException {
+        try {
+            return f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Import interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+            throw new IOException("Import failed", e.getCause());
+        }
+    }
+
+    // Parses one chunk of text lines; one instance per chunk (not thread-safe)
+    static final class TextChunkParser {
+        private static final int MAX_FIELDS = 7;
+
+        private final byte separator;
+        private final String defaultDate;
+        private final AfriGuardIngest.SymbolCache countries = new AfriGuardIngest.SymbolCache(AfriGuardAWT.SymbolTable.COUNTRIES);
+        private final AfriGuardIngest.SymbolCache diseases = new AfriGuardIngest.SymbolCache(AfriGuardAWT.SymbolTable.DISEASES);
+        private final AfriGuardIngest.SymbolCache regions = new AfriGuardIngest.SymbolCache(AfriGuardAWT.SymbolTable.REGIONS);
+        private final int[] fieldStart = new int[MAX_FIELDS];
+        private final int[] fieldEnd = new int[MAX_FIELDS];
+        private final long[] errors = new long[AfriGuardMetrics.ParseError.values().length];
+        // daily files repeat the same date on every line
+        private byte[] lastDateBytes = new byte[0];
+        private String lastDate;
+
+        TextChunkParser(char separator, String defaultDate) {
+            this.separator = (byte) separator;
+            this.defaultDate = defaultDate;
+        }
+
+        ImportResult parse(byte[] a, boolean mayHaveHeader) {
+            ImportResult result = new ImportResult();
+            int lineStart = 0;
+            for (int i = 0; i <= a.length; i++) {
+                if (i < a.length && a[i] != '\n') continue;
+                if (i > lineStart || i < a.length) {
+                    result.lines++;
+                    boolean header = mayHaveHeader && result.lines == 1 && isHeader(a, lineStart, i);
+                    if (!header) parseLine(a, lineStart, i, result);
+                }
+                lineStart = i + 1;
+            }
+            AfriGuardMetrics.PipelineMetrics.GLOBAL.recordParsed(result.alerts.size(), errors);
+            return result;
+        }
+
+        private boolean isHeader(byte[] a, int start, int end) {
+            byte[] h = COLUMNS[0].getBytes(StandardCharsets.US_ASCII);
+            if (end - start < h.length) return false;
+            for (int i = 0; i < h.length; i++) if ((a[start + i] | 0x20) != h[i]) return false;
+            return true;
+        }
+
+        private void parseLine(byte[] a, int start, int end, ImportResult result) {
+            if (end > start && a[end - 1] == '\r') end--;
+
+            int fields = 0;
+            int fs = start;
+            for (int i = start; i <= end && fields < MAX_FIELDS; i++) {
+                if (i == end || a[i] == separator) {
+                    int s = fs, e = i;
+                    while (s < e && (a[s] & 0xFF) <= ' ') s++;
+                    while (e > s && (a[e - 1] & 0xFF) <= ' ') e--;
+                    fieldStart[fields] = s;
+                    fieldEnd[fields] = e;
+                    fields++;
+                    fs = i + 1;
+                }
+            }
+            if (fields == 1 && fieldEnd[0] == fieldStart[0]) {
+                result.blankLines++;
+                return;
+            }
+            if (fields < 3) {
+                reject(result, a, start, end, AfriGuardMetrics.ParseError.INSUFFICIENT_FIELDS, "insufficient fields (need country, disease, cases)");
+                return;
+            }
+            long cases = AfriGuardIngest.parseInt(a, fieldStart[2], fieldEnd[2]);
+            if (cases == Long.MIN_VALUE) {
+                reject(result, a, start, end, AfriGuardMetrics.ParseError.NUMBER_FORMAT, "cases is not an integer");
+                return;
+            }
+
+            String date = fields > 5 && fieldEnd[5] > fieldStart[5] ? date(a, fieldStart[5], fieldEnd[5]) : defaultDate;
+            String country = countries.lookup(a, fieldStart[0], fieldEnd[0]);
+            String disease = diseases.lookup(a, fieldStart[1], fieldEnd[1]);
+
+            boolean deathsPresent = fields >= 4 && fieldEnd[3] > fieldStart[3];
+            if (deathsPresent) {
+                long deaths = AfriGuardIngest.parseInt(a, fieldStart[3], fieldEnd[3]);
+                if (deaths != Long.MIN_VALUE) {
+                    double deathRate = cases > 0 ? (deaths * 100.0) / cases : 0.0;
+                    if (fields > 6 && fieldEnd[6] > fieldStart[6]) {
+                        try {
+                            deathRate = Double.parseDouble(new String(a, fieldStart[6], fieldEnd[6] - fieldStart[6], StandardCharsets.US_ASCII));
+                        } catch (NumberFormatException nfe) {
+                            reject(result, a, start, end, AfriGuardMetrics.ParseError.NUMBER_FORMAT, "death_rate is not a number");
+                            return;
+                        }
+                    }
+                    result.alerts.addOutbreak(country, disease, (int) cases, date, deathRate);
+                    return;
+                }
+            }
+
+            if (deathsPresent && fieldEnd[3] - fieldStart[3] == 1 && a[fieldStart[3]] == ENDEMIC_MARK) {
+                boolean listed = fields >= 5 && fieldEnd[4] > fieldStart[4];
+                result.alerts.addEndemic(country, disease, (int) cases, date, listed ? AfriGuardIngest.splitRegions(a, fieldStart[4], fieldEnd[4], regions) : null);
+                return;
+            }
+            int regionField = fields >= 5 ? 4 : (deathsPresent ? 3 : -1);
+            if (regionField >= 0 && fieldEnd[regionField] > fieldStart[regionField]) {
+                String[] names = AfriGuardIngest.splitRegions(a, fieldStart[regionField], fieldEnd[regionField], regions);
+                result.alerts.addEndemic(country, disease, (int) cases, date, names);
+                return;
+            }
+            reject(result, a, start, end, AfriGuardMetrics.ParseError.AMBIGUOUS, "no numeric deaths and no regions");
+        }
+
+        private String date(byte[] a, int start, int end) {
+            int len = end - start;
+            if (len != lastDateBytes.length || !java.util.Arrays.equals(lastDateBytes, 0, len, a, start, end)) {
+                lastDateBytes = java.util.Arrays.copyOfRange(a, start, end);
+                lastDate = new String(lastDateBytes, StandardCharsets.UTF_8);
+            }
+            return lastDate;
+        }
+
+        private void reject(ImportResult result, byte[] a, int start, int end, AfriGuardMetrics.ParseError error, String reason) {
+            errors[error.ordinal()]++;
+            // result.lines already counts this line, so it is the chunk-relative line number
+            result.reject(result.lines, new String(a, start, end - start, StandardCharsets.UTF_8), reason);
+        }
+    }
+
+    private static ImportResult importBinary(Path file, Consumer<AfriGuardStore.ColumnarAlertStore> batches) throws IOException {
+        ImportResult result = new ImportResult();
+        List<String> symbols = new ArrayList<>();
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            BinaryReader in = new BinaryReader(ch);
+            if (!in.ensure(4) || in.buf.getInt() != BINARY_MAGIC) throw new IOException("Not an AfriGuard binary alert file: " + file);
+            while (in.ensure(1)) {
+                byte tag = in.buf.get();
+                result.lines++;
+                if (tag == TAG_SYMBOL) {
+                    int len = in.count("symbol length", result.lines);
+                    if (!in.ensure(len)) throw new IOException("Truncated symbol at entry " + result.lines);
+                    byte[] bytes = new byte[len];
+                    in.buf.get(bytes);
+                    symbols.add(new String(bytes, StandardCharsets.UTF_8));
+                    continue;
+                }
+                if (tag != TAG_OUTBREAK && tag != TAG_ENDEMIC) throw new IOException("Unknown entry tag " + tag + " at entry " + result.lines);
+                String country = symbol(symbols, in.varint(), result.lines);
+                String disease = symbol(symbols, in.varint(), result.lines);
+                int cases = in.zigzag();
+                byte dateKind = in.readByte();
+                if (dateKind != DATE_DAY && dateKind != DATE_TEXT && dateKind != DATE_NONE) {
+                    throw new IOException("Corrupt date kind " + dateKind + " at entry " + result.lines);
+                }
+                String date = dateKind == DATE_DAY ? java.time.LocalDate.ofEpochDay(in.zigzag()).toString()
+                        : dateKind == DATE_TEXT ? symbol(symbols, in.varint(), result.lines) : null;
+                double deathRate = 0.0;
+                String[] names = null;
+                if (tag == TAG_OUTBREAK) {
+                    deathRate = in.readDouble();
+                } else {
+                    names = new String[in.count("region count", result.lines)];
+                    for (int i = 0; i < names.length; i++) names[i] = symbol(symbols, in.varint(), result.lines);
+                }
+                // the entry is read in full first, so a rejected one does not desynchronize the rest
+                if (country == null || disease == null) {
+                    result.reject(result.lines, country + "," + disease + "," + cases, country == null ? "missing country" : "missing disease");
+                } else if (tag == TAG_OUTBREAK) {
+                    result.alerts.addOutbreak(country, disease, cases, date, deathRate);
+                } else {
+                    result.alerts.addEndemic(country, disease, cases, date, names);
+                }
+                if (batches != null && result.alerts.size() == BINARY_BATCH) result.handOff(batches);
+            }
+        }
+        if (batches != null) result.handOff(batches);
+        return result;
+    }
+
+    // 0 stands for null, which the caller accepts only for the date
+    private static String symbol(List<String> symbols, int id, long entry) throws IOException {
+        if (id == 0) return null;
+        if (id < 0 || id > symbols.size()) throw new IOException("Corrupt symbol id " + (id & 0xFFFFFFFFL) + " at entry " + entry);
+        return symbols.get(id - 1);
+    }
+
+    // Buffered reads with refill; ensure(n) makes n bytes available unless the file ends first
+    static final class BinaryReader {
+        private final FileChannel ch;
+        ByteBuffer buf = ByteBuffer.allocate(WRITE_BUFFER);
+        private boolean eof;
+
+        BinaryReader(FileChannel ch) {
+            this.ch = ch;
+            buf.limit(0);
+        }
+
+        boolean ensure(int n) throws IOException {
+            if (buf.remaining() >= n) return true;
+            if (n > buf.capacity()) {
+                ByteBuffer bigger = ByteBuffer.allocate(n);
+                bigger.put(buf);
+                bigger.flip();
+                buf = bigger;
+            }
+            buf.compact();
+            while (!eof && buf.position() < n) {
+                if (ch.read(buf) < 0) eof = true;
+            }
+            buf.flip();
+            return buf.remaining() >= n;
+        }
+
+        byte readByte() throws IOException {
+            if (!ensure(1)) throw new IOException("Truncated alert entry");
+            return buf.get();
+        }
+
+        double readDouble() throws IOException {
+            if (!ensure(8)) throw new IOException("Truncated alert entry");
+            return buf.getDouble();
+        }
+
+        int varint() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                byte b = readByte();
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) return value;
+            }
+            throw new IOException("Malformed varint");
+        }
+
+        int zigzag() throws IOException {
+            int v = varint();
+            return (v >>> 1) ^ -(v & 1);
+        }
+
+        /**
+         * A symbol length or region count. Each byte or region takes at least one byte of the file,
+         * so a count larger than what is left is corrupt and is refused before anything is allocated.
+         */
+        int count(String what, long entry) throws IOException {
+            int n = varint();
+            if (n < 0 || n > remaining()) throw new IOException("Corrupt " + what + " " + (n & 0xFFFFFFFFL) + " at entry " + entry);
+            return n;
+        }
+
+        // bytes not yet consumed: buffered plus still in the file
+        long remaining() throws IOException {
+            return buf.remaining() + (eof ? 0 : Math.max(0, ch.size() - ch.position()));
+        }
+    }
+
+    // -------------------------
+    // Export
+    // -------------------------
+    /** Writes every non-null alert of source; returns the number written. */
+    public static int exportFile(AfriGuardAWT.AlertSource source, Path file) throws IOException {
+        return exportFile(source, file, Format.forPath(file));
+    }
+
+    public static int exportFile(AfriGuardAWT.AlertSource source, Path file, Format format) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            return format == Format.BINARY ? exportBinary(source, ch) : exportText(source, ch, format.separator);
+        }
+    }
+
+    // Rows are read through the source's cursor: columnar sources hand out one reused view
+    private static int exportText(AfriGuardAWT.AlertSource source, FileChannel ch, char sep) throws IOException {
+        StringBuilder sb = new StringBuilder(WRITE_BUFFER);
+        sb.append(String.join(String.valueOf(sep), COLUMNS)).append('\n');
+        AfriGuardAWT.AlertSource.Cursor cursor = source.cursor();
+        int written = 0;
+        for (int i = 0; i < source.size(); i++) {
+            AfriGuardAWT.HealthAlert a = cursor.at(i);
+            if (a == null) continue;
+            appendField(sb, a.getCountryCode(), sep, "country", i).append(sep);
+            appendField(sb, a.getDiseaseName(), sep, "disease", i).append(sep).append(a.getCasesReported()).append(sep);
+            if (AfriGuardStore.AlertView.isOutbreak(a)) {
+                double rate = AfriGuardStore.AlertView.deathRateOf(a);
+                sb.append(AfriGuardTrends.deathsFor(a.getCasesReported(), rate)).append(sep).append(sep);
+                appendField(sb, a.getReportDate(), sep, "date", i).append(sep).append(rate);
+            } else {
+                int regions = AfriGuardStore.AlertView.regionCountOf(a);
+                if (regions == 0) sb.append(ENDEMIC_MARK);
+                sb.append(sep);
+                for (int r = 0; r < regions; r++) appendRegion(sb.append(r > 0 ? ";" : ""), AfriGuardStore.AlertView.regionOf(a, r), i);
+                sb.append(sep);
+                appendField(sb, a.getReportDate(), sep, "date", i).append(sep);
+            }
+            sb.append('\n');
+            written++;
+            if (sb.length() >= WRITE_BUFFER) writeText(ch, sb);
+        }
+        writeText(ch, sb);
+        return written;
+    }
+
+    // Text fields are written unquoted, so a value the importer would split or trim differently is
+    // refused instead of silently changing on the way back in. A null date is written empty.
+    private static StringBuilder appendField(StringBuilder sb, String value, char sep, String column, int row) throws IOException {
+        if (value == null) return column.equals("date") ? sb : sb.append(value);
+        if (!value.isEmpty() && (value.charAt(0) <= ' ' || value.charAt(value.length() - 1) <= ' ')) {
+            throw unexportable(row, column, value, "leading or trailing blanks");
+        }
+        for (int c = 0; c < value.length(); c++) {
+            char ch = value.charAt(c);
+            if (ch == sep || ch == '\n' || ch == '\r') throw unexportable(row, column, value, "the character " + describe(ch));
+        }
+        return sb.append(value);
+    }
+
+    // regions are ';'-joined in one field and split on blanks, ';', '|' and ',' (splitRegions)
+    private static void appendRegion(StringBuilder sb, String region, int row) throws IOException {
+        for (int c = 0; c < region.length(); c++) {
+            char ch = region.charAt(c);
+            if (ch <= ' ' || ch == ';' || ch == '|' || ch == ',') throw unexportable(row, "region", region, "the character " + describe(ch));
+        }
+        sb.append(region);
+    }
+
+    private static IOException unexportable(int row, String column, String value, String what) {
+        return new IOException("Cannot export alert " + row + " as text: its " + column + " \"" + value + "\" contains "
+                + what + ", which would not read back the same; export it as .agb instead");
+    }
+
+    private static String describe(char c) {
+        return c == '\t' ? "'\\t'" : c == '\n' ? "'\\n'" : c == '\r' ? "'\\r'" : c < ' ' ? String.format("U+%04X", (int) c) : "'" + c + "'";
+    }
+
+    private static void writeText(FileChannel ch, StringBuilder sb) throws IOException {
+        FileChunks.writeFully(ch, ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.UTF_8)));
+        sb.setLength(0);
+    }
+
+    private static int exportBinary(AfriGuardAWT.AlertSource source, FileChannel ch) throws IOException {
+        BinaryWriter out = new BinaryWriter(ch);
+        out.ensure(4);
+        out.buf.putInt(BINARY_MAGIC);
+        AfriGuardAWT.AlertSource.Cursor cursor = source.cursor();
+        int[] regionIds = new int[16];
+        int written = 0;
+        for (int i = 0; i < source.size(); i++) {
+            AfriGuardAWT.HealthAlert a = cursor.at(i);
+            if (a == null) continue;
+            boolean outbreak = AfriGuardStore.AlertView.isOutbreak(a);
+            int regions = outbreak ? 0 : AfriGuardStore.AlertView.regionCountOf(a);
+
+            // define new strings before the entry that refers to them
+            int country = out.symbol(a.getCountryCode());
+            int disease = out.symbol(a.getDiseaseName());
+            String date = a.getReportDate();
+            int day = out.epochDay(date);
+            int dateSymbol = date != null && day == AfriGuardStore.ColumnarAlertStore.UNKNOWN_DAY ? out.symbol(date) : 0;
+            if (regions > regionIds.length) regionIds = new int[Math.max(regions, regionIds.length * 2)];
+            for (int r = 0; r < regions; r++) regionIds[r] = out.symbol(AfriGuardStore.AlertView.regionOf(a, r));
+
+            out.ensure(64);
+            out.buf.put(outbreak ? TAG_OUTBREAK : TAG_ENDEMIC);
+            out.varint(country);
+            out.varint(disease);
+            out.zigzag(a.getCasesReported());
+            if (date == null) {
+                out.buf.put(DATE_NONE);
+            } else if (dateSymbol == 0) {
+                out.buf.put(DATE_DAY);
+                out.zigzag(day);
+            } else {
+                out.buf.put(DATE_TEXT);
+                out.varint(dateSymbol);
+            }
+            if (outbreak) {
+                out.buf.putDouble(AfriGuardStore.AlertView.deathRateOf(a));
+            } else {
+                out.varint(regions);
+                for (int r = 0; r < regions; r++) {
+                    out.ensure(5);
+                    out.varint(regionIds[r]);
+                }
+            }
+            written++;
+        }
+        out.flush();
+        return written;
+    }
+
+    static final class BinaryWriter {
+        private final FileChannel ch;
+        private final ByteBuffer buf = ByteBuffer.allocate(WRITE_BUFFER);
+        private final HashMap<String, Integer> ids = new HashMap<>();
+        private String lastDate;
+        private int lastDay = AfriGuardStore.ColumnarAlertStore.UNKNOWN_DAY;
+
+        BinaryWriter(FileChannel ch) {
+            this.ch = ch;
+        }
+
+        void ensure(int n) throws IOException {
+            if (buf.remaining() < n) flush();
+        }
+
+        void flush() throws IOException {
+            buf.flip();
+            FileChunks.writeFully(ch, buf);
+            buf.clear();
+        }
+
+        // consecutive alerts usually share their report date
+        int epochDay(String date) {
+            if (date == null || !date.equals(lastDate)) {
+                lastDay = AfriGuardStore.ColumnarAlertStore.toEpochDay(date);
+                lastDate = date;
+            }
+            return lastDay;
+        }
+
+        // ids start at 1; 0 stands for null
+        int symbol(String s) throws IOException {
+            if (s == null) return 0;
+            Integer id = ids.get(s);
+            if (id != null) return id;
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            ensure(6 + bytes.length);
+            if (buf.remaining() < 6 + bytes.length) {
+                // longer than the buffer: write it directly
+                ByteBuffer big = ByteBuffer.allocate(6 + bytes.length);
+                big.put(TAG_SYMBOL);
+                writeVarint(big, bytes.length);
+                big.put(bytes).flip();
+                FileChunks.writeFully(ch, big);
+            } else {
+                buf.put(TAG_SYMBOL);
+                varint(bytes.length);
+                buf.put(bytes);
+            }
+            int next = ids.size() + 1;
+            ids.put(s, next);
+            return next;
+        }
+
+        void varint(int v) {
+            writeVarint(buf, v);
+        }
+
+        void zigzag(int v) {
+            writeVarint(buf, (v << 1) ^ (v >> 31));
+        }
+
+        private static void writeVarint(ByteBuffer b, int v) {
+            while ((v & ~0x7F) != 0) {
+                b.put((byte) ((v & 0x7F) | 0x80));
+                v >>>= 7;
+            }
+            b.put((byte) v);
+        }
+    }
+
+    // -------------------------
+    // Main
+    // -------------------------
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2 || !(args[0].equals("check") || (args[0].equals("convert") && args.length >= 3))) {
+            System.out.println("Usage: java AfriGuardTransfer check <file> | convert <in> <out>");
+            return;
+        }
+        Path in = Paths.get(args[1]);
+        String today = java.time.LocalDate.now().toString();
+        long t0 = System.nanoTime();
+
+        if (args[0].equals("convert") && Files.isDirectory(in)) {
+            try (AfriGuardLog.MappedAlertLog log = new AfriGuardLog.MappedAlertLog(in)) {
+                int n = exportFile(log, Paths.get(args[2]));
+                System.out.println("Exported " + n + " alerts from log " + in + " in " + (System.nanoTime() - t0) / 1_000_000 + " ms");
+            }
+            return;
+        }
+
+        ImportResult result = importFile(in, today);
+        System.out.println("Imported " + in + " in " + (System.nanoTime() - t0) / 1_000_000 + " ms: " + result);
+        for (Rejection r : result.getRejections()) System.out.println("  rejected " + r);
+        if (args[0].equals("convert")) {
+            t0 = System.nanoTime();
+            int n = exportFile(result.getAlerts(), Paths.get(args[2]));
+            System.out.println("Exported " + n + " alerts to " + args[2] + " in " + (System.nanoTime() - t0) / 1_000_000 + " ms");
+        }
+    }
+}
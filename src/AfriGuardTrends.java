@@ -0,0 +1,333 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * AfriGuardTrends.java
+ * Time-bucketed aggregation of alerts by report date.
+ *
+ * Every (country, disease) pair keeps rolling per-day, per-week (Monday-based) and per-month
+ * buckets of alert count, case total, death total and maximum severity. Report dates are parsed
+ * once into epoch days; each add touches exactly three buckets. Buckets live in fixed rings, so
+ * the oldest periods are overwritten as newer ones arrive.
+ *
+ * Compile: javac AfriGuard*.java
+ */
+public class AfriGuardTrends {
+
+    public enum Granularity { DAY, WEEK, MONTH }
+
+    /** Aggregated values of one period (a day, week or month index). */
+    public static class TrendPoint {
+        private final Granularity granularity;
+        private final int period;
+        private final int alerts;
+        private final long cases;
+        private final long deaths;
+        private final int maxSeverity;
+
+        TrendPoint(Granularity granularity, int period, int alerts, long cases, long deaths, int maxSeverity) {
+            this.granularity = granularity;
+            this.period = period;
+            this.alerts = alerts;
+            this.cases = cases;
+            this.deaths = deaths;
+            this.maxSeverity = maxSeverity;
+        }
+
+        public Granularity getGranularity() { return granularity; }
+        public int getPeriod() { return period; }
+        public int getAlerts() { return alerts; }
+        public long getCases() { return cases; }
+        public long getDeaths() { return deaths; }
+        /** Integer.MIN_VALUE when the period has no alerts. */
+        public int getMaxSeverity() { return maxSeverity; }
+
+        /** Human readable period label: 2025-10-27, week of 2025-10-27, or 2025-10. */
+        public String label() {
+            switch (granularity) {
+                case DAY: return java.time.LocalDate.ofEpochDay(period).toString();
+                case WEEK: return "week of " + java.time.LocalDate.ofEpochDay(weekStartDay(period));
+                default: return String.format("%04d-%02d", Math.floorDiv(period, 12), Math.floorMod(period, 12) + 1);
+            }
+        }
+
+        String values() {
+            return String.format("alerts=%d, cases=%d, deaths=%d, maxSeverity=%s",
+                    alerts, cases, deaths, alerts == 0 ? "-" : String.valueOf(maxSeverity));
+        }
+
+        @Override
+        public String toString() {
+            return label() + ": " + values();
+        }
+    }
+
+    // -------------------------
+    // Bucket ring
+    // -------------------------
+    // Fixed ring of buckets for one granularity; slot = period mod capacity, tagged with its period.
+    static final class BucketRing {
+        private final int[] period;
+        private final int[] alerts;
+        private final long[] cases;
+        private final long[] deaths;
+        private final int[] maxSeverity;
+
+        BucketRing(int capacity) {
+            period = new int[capacity];
+            Arrays.fill(period, Integer.MIN_VALUE);
+            alerts = new int[capacity];
+            cases = new long[capacity];
+            deaths = new long[capacity];
+            maxSeverity = new int[capacity];
+        }
+
+        /** @return false if the period is older than what the slot already holds (expired) */
+        boolean add(int p, int caseCount, long deathCount, int severity) {
+            int slot = Math.floorMod(p, period.length);
+            if (period[slot] != p) {
+                if (period[slot] > p) return false;
+                period[slot] = p;
+                alerts[slot] = 0;
+                cases[slot] = 0;
+                deaths[slot] = 0;
+                maxSeverity[slot] = Integer.MIN_VALUE;
+            }
+            alerts[slot]++;
+            cases[slot] += caseCount;
+            deaths[slot] += deathCount;
+            if (severity > maxSeverity[slot]) maxSeverity[slot] = severity;
+            return true;
+        }
+
+        TrendPoint point(Granularity g, int p) {
+            int slot = Math.floorMod(p, period.length);
+            if (period[slot] != p) return new TrendPoint(g, p, 0, 0, 0, Integer.MIN_VALUE);
+            return new TrendPoint(g, p, alerts[slot], cases[slot], deaths[slot], maxSeverity[slot]);
+        }
+
+        // Folds periods [from, to] into one point; periods that are not retained count as empty.
+        TrendPoint total(Granularity g, int from, int to) {
+            int n = 0, max = Integer.MIN_VALUE;
+            long c = 0, d = 0;
+            for (int p = Math.max(from, to - period.length + 1); p <= to; p++) {
+                int slot = Math.floorMod(p, period.length);
+                if (period[slot] != p) continue;
+                n += alerts[slot];
+                c += cases[slot];
+                d += deaths[slot];
+                max = Math.max(max, maxSeverity[slot]);
+            }
+            return new TrendPoint(g, to, n, c, d, max);
+        }
+    }
+
+    // All three rings for one (country, disease) pair
+    static final class Series {
+        final BucketRing days;
+        final BucketRing weeks;
+        final BucketRing months;
+
+        Series(int daySlots, int weekSlots, int monthSlots) {
+            days = new BucketRing(daySlots);
+            weeks = new BucketRing(weekSlots);
+            months = new BucketRing(monthSlots);
+        }
+
+        BucketRing ring(Granularity g) {
+            switch (g) {
+                case DAY: return days;
+                case WEEK: return weeks;
+                default: return months;
+            }
+        }
+    }
+
+    // -------------------------
+    // Aggregator
+    // -------------------------
+    /**
+     * Incremental trend aggregation keyed by (country id, disease id) from the shared SymbolTables.
+     * Not thread-safe; build one per thread and query from the owning thread.
+     */
+    public static class TrendAggregator {
+        public static final int DEFAULT_DAY_SLOTS = 120;
+        public static final int DEFAULT_WEEK_SLOTS = 104;
+        public static final int DEFAULT_MONTH_SLOTS = 36;
+        private static final int DATE_CACHE_LIMIT = 4096;
+
+        private final int daySlots;
+        private final int weekSlots;
+        private final int monthSlots;
+
+        // series[countryId][diseaseId]
+        private Series[][] series = new Series[64][];
+
+        // report date string -> epoch day, so repeated dates are parsed once
+        private final HashMap<String, Integer> dayCache = new HashMap<>();
+
+        private long added;
+        private long undated;
+        private long expired;
+
+        public TrendAggregator() {
+            this(DEFAULT_DAY_SLOTS, DEFAULT_WEEK_SLOTS, DEFAULT_MONTH_SLOTS);
+        }
+
+        public TrendAggregator(int daySlots, int weekSlots, int monthSlots) {
+            this.daySlots = daySlots;
+            this.weekSlots = weekSlots;
+            this.monthSlots = monthSlots;
+        }
+
+        public void add(AfriGuardAWT.HealthAlert alert) {
+            if (alert == null) return;
+            int day = epochDay(alert.getReportDate());
+            add(alert.getCountryId(), alert.getDiseaseId(), day, alert.getCasesReported(), deathsOf(alert), alert.calculateSeverity());
+        }
+
+        /** Aggregates every row of a columnar source (dates are already epoch days there). */
+        public void addAll(AfriGuardStore.AlertRows rows) {
+            addRows(rows, 0, rows.size());
+        }
+
+        /** Aggregates rows [from, to) straight from the columns, without building alerts. */
+        public void addRows(AfriGuardStore.AlertRows rows, int from, int to) {
+            for (int row = from; row < to; row++) {
+                long deaths = rows.kind(row) == AfriGuardStore.ColumnarAlertStore.OUTBREAK
+                        ? deathsFor(rows.cases(row), rows.deathRate(row)) : 0;
+                add(rows.countryId(row), rows.diseaseId(row), rows.reportDay(row), rows.cases(row), deaths, rows.severity(row));
+            }
+        }
+
+        /** O(1): updates the day, week and month bucket of the pair. */
+        public void add(int countryId, int diseaseId, int epochDay, int cases, long deaths, int severity) {
+            if (epochDay == AfriGuardStore.ColumnarAlertStore.UNKNOWN_DAY || countryId < 0 || diseaseId < 0) {
+                undated++;
+                return;
+            }
+            Series s = seriesFor(countryId, diseaseId);
+            boolean kept = s.days.add(epochDay, cases, deaths, severity);
+            kept &= s.weeks.add(weekOf(epochDay), cases, deaths, severity);
+            kept &= s.months.add(monthOf(epochDay), cases, deaths, severity);
+            if (kept) added++; else expired++;
+        }
+
+        public void clear() {
+            series = new Series[64][];
+            added = undated = expired = 0;
+        }
+
+        public long getAdded() { return added; }
+        public long getUndated() { return undated; }
+        /** Alerts dropped from at least one granularity because their period was already overwritten. */
+        public long getExpired() { return expired; }
+
+        /** Totals over the `days` days ending at endDay (inclusive), e.g. the last 30 days. */
+        public TrendPoint lastDays(String country, String disease, int endDay, int days) {
+            Series s = find(country, disease);
+            if (s == null) return new TrendPoint(Granularity.DAY, endDay, 0, 0, 0, Integer.MIN_VALUE);
+            return s.days.total(Granularity.DAY, endDay - days + 1, endDay);
+        }
+
+        /** One point per period in [fromPeriod, toPeriod] (day, week or month indexes). */
+        public List<TrendPoint> series(String country, String disease, Granularity g, int fromPeriod, int toPeriod) {
+            List<TrendPoint> out = new ArrayList<>();
+            Series s = find(country, disease);
+            for (int p = fromPeriod; p <= toPeriod; p++) {
+                out.add(s == null ? new TrendPoint(g, p, 0, 0, 0, Integer.MIN_VALUE) : s.ring(g).point(g, p));
+            }
+            return out;
+        }
+
+        /** Last 30 days total plus the last 8 weeks and 6 months for one (country, disease) pair. */
+        public void report(AfriGuardAWT.ReportSink sink, String country, String disease, int endDay) {
+            StringBuilder sb = new StringBuilder();
+            sb.append("=== TRENDS ").append(country).append(" / ").append(disease).append(" ===\n");
+            if (find(country, disease) == null) {
+                sb.append("No dated alerts for this country and disease.\n");
+            } else {
+                sb.append("Last 30 days to ").append(java.time.LocalDate.ofEpochDay(endDay)).append(": ")
+                        .append(lastDays(country, disease, endDay, 30).values()).append("\n");
+                sb.append("Weekly:\n");
+                int week = weekOf(endDay);
+                for (TrendPoint p : series(country, disease, Granularity.WEEK, week - 7, week)) sb.append("  ").append(p).append("\n");
+                sb.append("Monthly:\n");
+                int month = monthOf(endDay);
+                for (TrendPoint p : series(country, disease, Granularity.MONTH, month - 5, month)) sb.append("  ").append(p).append("\n");
+            }
+            sb.append("=== END TRENDS ===\n\n");
+            sink.append(sb);
+        }
+
+        private Series find(String country, String disease) {
+            int c = AfriGuardAWT.SymbolTable.COUNTRIES.find(country);
+            int d = AfriGuardAWT.SymbolTable.DISEASES.find(disease);
+            if (c < 0 || d < 0 || c >= series.length || series[c] == null || d >= series[c].length) return null;
+            return series[c][d];
+        }
+
+        private Series seriesFor(int c, int d) {
+            if (c >= series.length) series = Arrays.copyOf(series, Math.max(c + 1, series.length * 2));
+            Series[] row = series[c];
+            if (row == null) series[c] = row = new Series[Math.max(16, d + 1)];
+            else if (d >= row.length) series[c] = row = Arrays.copyOf(row, Math.max(d + 1, row.length * 2));
+            Series s = row[d];
+            if (s == null) row[d] = s = new Series(daySlots, weekSlots, monthSlots);
+            return s;
+        }
+
+        private int epochDay(String date) {
+            if (date == null) return AfriGuardStore.ColumnarAlertStore.UNKNOWN_DAY;
+            Integer day = dayCache.get(date);
+            if (day != null) return day;
+            int parsed = AfriGuardStore.ColumnarAlertStore.toEpochDay(date);
+            if (dayCache.size() < DATE_CACHE_LIMIT) dayCache.put(date, parsed);
+            return parsed;
+        }
+    }
+
+    // -------------------------
+    // Calendar helpers
+    // -------------------------
+    /** Deaths implied by an alert: cases * deathRate% for outbreaks, 0 otherwise. */
+    public static long deathsOf(AfriGuardAWT.HealthAlert alert) {
+        if (alert instanceof AfriGuardAWT.OutbreakAlert) {
+            return deathsFor(alert.getCasesReported(), ((AfriGuardAWT.OutbreakAlert) alert).getDeathRate());
+        }
+        if (alert instanceof AfriGuardStore.AlertView && ((AfriGuardStore.AlertView) alert).isOutbreak()) {
+            return deathsFor(alert.getCasesReported(), ((AfriGuardStore.AlertView) alert).getDeathRate());
+        }
+        return 0;
+    }
+
+    static long deathsFor(int cases, double deathRate) {
+        return Math.round(cases * deathRate / 100.0);
+    }
+
+    /** Monday-based week index (epoch day 0, 1970-01-01, was a Thursday). */
+    public static int weekOf(int epochDay) {
+        return Math.floorDiv(epochDay + 3, 7);
+    }
+
+    public static int weekStartDay(int week) {
+        return week * 7 - 3;
+    }
+
+    /** Month index year * 12 + (month - 1), computed without allocating a LocalDate. */
+    public static int monthOf(int epochDay) {
+        // civil-from-days (proleptic Gregorian), era-based
+        int z = epochDay + 719468;
+        int era = Math.floorDiv(z, 146097);
+        int doe = z - era * 146097;
+        int yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        int y = yoe + era * 400;
+        int doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        int mp = (5 * doy + 2) / 153;
+        int m = mp < 10 ? mp + 3 : mp - 9;
+        if (m <= 2) y++;
+        return y * 12 + (m - 1);
+    }
+}
@@ -0,0 +1,303 @@
+import java.awt.AWTEventMulticaster;
+import java.awt.BorderLayout;
+import java.awt.Canvas;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Image;
+import java.awt.Panel;
+import java.awt.Scrollbar;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.AdjustmentEvent;
+import java.awt.event.AdjustmentListener;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+
+/**
+ * AfriGuardViews.java
+ * Lightweight AWT views for large alert volumes.
+ *
+ * VirtualListView replaces java.awt.List: it keeps no items of its own, asks a RowModel for the
+ * text of the rows currently on screen and paints them on a Canvas. Adding rows, scrolling and
+ * repainting cost O(visible rows) regardless of how many alerts the model holds.
+ *
+ * LogView replaces an ever-growing TextArea: it keeps the last maxLines lines in a ring buffer,
+ * shows them through a VirtualListView and optionally spills evicted lines to a ReportSink
+ * (e.g. a RollingFileSink), so memory stays flat however long the dashboard runs.
+ *
+ * Compile: javac AfriGuard*.java
+ */
+public class AfriGuardViews {
+
+    // -------------------------
+    // Virtual list
+    // -------------------------
+    public static class VirtualListView extends Panel implements AdjustmentListener {
+
+        /** Backing rows; rowText is only called for rows that are painted. */
+        public interface RowModel {
+            int rowCount();
+
+            String rowText(int row);
+        }
+
+        private static final Color SELECTION = new Color(51, 102, 204);
+
+        private final RowModel model;
+        private final Scrollbar scrollbar = new Scrollbar(Scrollbar.VERTICAL);
+        private final Canvas canvas = new Canvas() {
+            @Override
+            public void update(Graphics g) {
+                paint(g); // no background clear, the back buffer covers everything
+            }
+
+            @Override
+            public void paint(Graphics g) {
+                paintRows(g);
+            }
+        };
+
+        private int rowCount;
+        private int firstRow;
+        private int selectedRow = -1;
+        private Image backBuffer;
+        private transient ActionListener actionListener;
+
+        public VirtualListView(RowModel model) {
+            super(new BorderLayout());
+            this.model = model;
+            canvas.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+            canvas.setBackground(Color.WHITE);
+            canvas.setPreferredSize(new Dimension(320, 200));
+            add(canvas, BorderLayout.CENTER);
+            add(scrollbar, BorderLayout.EAST);
+            scrollbar.addAdjustmentListener(this);
+
+            canvas.addMouseListener(new MouseAdapter() {
+                @Override
+                public void mousePressed(MouseEvent e) {
+                    canvas.requestFocus();
+                    int row = firstRow + e.getY() / rowHeight();
+                    if (row < rowCount) select(row, true);
+                }
+            });
+            canvas.addMouseWheelListener(e -> scrollTo(firstRow + e.getUnitsToScroll()));
+            canvas.addKeyListener(new KeyAdapter() {
+                @Override
+                public void keyPressed(KeyEvent e) {
+                    switch (e.getKeyCode()) {
+                        case KeyEvent.VK_UP: moveSelection(-1); break;
+                        case KeyEvent.VK_DOWN: moveSelection(1); break;
+                        case KeyEvent.VK_PAGE_UP: moveSelection(-visibleRows()); break;
+                        case KeyEvent.VK_PAGE_DOWN: moveSelection(visibleRows()); break;
+                        case KeyEvent.VK_ENTER: if (selectedRow >= 0) fireAction(); break;
+                        default: break;
+                    }
+                }
+            });
+        }
+
+        /** Same contract as java.awt.List: fired when a row is clicked (or Enter is pressed on it). */
+        public synchronized void addActionListener(ActionListener l) {
+            actionListener = AWTEventMulticaster.add(actionListener, l);
+        }
+
+        public synchronized void removeActionListener(ActionListener l) {
+            actionListener = AWTEventMulticaster.remove(actionListener, l);
+        }
+
+        public int getSelectedIndex() {
+            return selectedRow;
+        }
+
+        /**
+         * Call after the model grew or shrank. Only the scrollbar and the visible rows are touched;
+         * the view keeps following the newest row while it is scrolled to the bottom.
+         */
+        public void rowsChanged() {
+            boolean atBottom = firstRow + visibleRows() >= rowCount;
+            rowCount = model.rowCount();
+            if (selectedRow >= rowCount) selectedRow = -1;
+            if (atBottom) firstRow = Math.max(0, rowCount - visibleRows());
+            else firstRow = Math.min(firstRow, Math.max(0, rowCount - 1));
+            updateScrollbar();
+            canvas.repaint();
+        }
+
+        public void scrollTo(int row) {
+            int max = Math.max(0, rowCount - visibleRows());
+            int clamped = Math.max(0, Math.min(row, max));
+            if (clamped == firstRow) return;
+            firstRow = clamped;
+            scrollbar.setValue(firstRow);
+            canvas.repaint();
+        }
+
+        @Override
+        public void adjustmentValueChanged(AdjustmentEvent e) {
+            if (e.getValue() != firstRow) {
+                firstRow = e.getValue();
+                canvas.repaint();
+            }
+        }
+
+        private void moveSelection(int delta) {
+            if (rowCount == 0) return;
+            int row = Math.max(0, Math.min(rowCount - 1, (selectedRow < 0 ? firstRow : selectedRow) + delta));
+            select(row, false);
+            if (row < firstRow) scrollTo(row);
+            else if (row >= firstRow + visibleRows()) scrollTo(row - visibleRows() + 1);
+        }
+
+        private void select(int row, boolean fire) {
+            selectedRow = row;
+            canvas.repaint();
+            if (fire) fireAction();
+        }
+
+        private void fireAction() {
+            ActionListener l = actionListener;
+            if (l != null) l.actionPerformed(new ActionEvent(this, ActionEvent.ACTION_PERFORMED, String.valueOf(selectedRow)));
+        }
+
+        private void updateScrollbar() {
+            int visible = visibleRows();
+            scrollbar.setValues(firstRow, visible, 0, Math.max(rowCount, visible));
+            scrollbar.setBlockIncrement(Math.max(1, visible - 1));
+        }
+
+        private int rowHeight() {
+            FontMetrics fm = canvas.getFontMetrics(canvas.getFont());
+            return fm.getHeight() + 2;
+        }
+
+        private int visibleRows() {
+            int h = canvas.getHeight();
+            return h <= 0 ? 1 : Math.max(1, h / rowHeight());
+        }
+
+        // Paints only rows [firstRow, firstRow + visible] into a back buffer
+        private void paintRows(Graphics screen) {
+            int w = canvas.getWidth(), h = canvas.getHeight();
+            if (w <= 0 || h <= 0) return;
+            if (backBuffer == null || backBuffer.getWidth(null) != w || backBuffer.getHeight(null) != h) {
+                backBuffer = canvas.createImage(w, h);
+                // the number of visible rows depends on the height: keep the last page full
+                firstRow = Math.max(0, Math.min(firstRow, rowCount - visibleRows()));
+                updateScrollbar();
+            }
+            Graphics g = backBuffer.getGraphics();
+            try {
+                g.setColor(canvas.getBackground());
+                g.fillRect(0, 0, w, h);
+                g.setFont(canvas.getFont());
+                FontMetrics fm = g.getFontMetrics();
+                int rh = rowHeight();
+                int last = Math.min(rowCount, firstRow + h / rh + 1);
+                for (int row = firstRow, y = 0; row < last; row++, y += rh) {
+                    boolean selected = row == selectedRow;
+                    if (selected) {
+                        g.setColor(SELECTION);
+                        g.fillRect(0, y, w, rh);
+                    }
+                    g.setColor(selected ? Color.WHITE : Color.BLACK);
+                    g.drawString(model.rowText(row), 4, y + 1 + fm.getAscent());
+                }
+            } finally {
+                g.dispose();
+            }
+            screen.drawImage(backBuffer, 0, 0, null);
+        }
+    }
+
+    // -------------------------
+    // Bounded log
+    // -------------------------
+    /** Append-only text view holding at most maxLines lines. Use from the event dispatch thread. */
+    public static class LogView extends Panel implements AfriGuardAWT.ReportSink {
+        private final String[] lines;
+        private int head;  // index of the oldest line
+        private int count;
+        private final StringBuilder partial = new StringBuilder(); // text after the last '\n'
+        private final AfriGuardAWT.ReportSink spill;               // null: evicted lines are dropped
+        private long evicted;
+
+        private final VirtualListView view = new VirtualListView(new VirtualListView.RowModel() {
+            @Override
+            public int rowCount() {
+                return count + (partial.length() > 0 ? 1 : 0);
+            }
+
+            @Override
+            public String rowText(int row) {
+                return row < count ? lines[(head + row) % lines.length] : partial.toString();
+            }
+        });
+
+        public LogView(int maxLines, AfriGuardAWT.ReportSink spill) {
+            super(new BorderLayout());
+            if (maxLines <= 0) throw new IllegalArgumentException("maxLines must be positive: " + maxLines);
+            this.lines = new String[maxLines];
+            this.spill = spill;
+            add(view, BorderLayout.CENTER);
+        }
+
+        /** Splits text into lines; a trailing fragment without '\n' is continued by the next append. */
+        @Override
+        public void append(CharSequence text) {
+            int start = 0;
+            boolean spilled = false;
+            for (int i = 0; i < text.length(); i++) {
+                if (text.charAt(i) != '\n') continue;
+                String line;
+                if (partial.length() > 0) {
+                    line = partial.append(text, start, i).toString();
+                    partial.setLength(0);
+                } else {
+                    line = text.subSequence(start, i).toString();
+                }
+                spilled |= push(line);
+                start = i + 1;
+            }
+            if (start < text.length()) partial.append(text, start, text.length());
+            if (spilled) spill.flush();
+            view.rowsChanged();
+        }
+
+        // true if a line was handed to the spill sink
+        private boolean push(String line) {
+            if (count < lines.length) {
+                lines[(head + count++) % lines.length] = line;
+                return false;
+            }
+            String oldest = lines[head];
+            lines[head] = line;
+            head = (head + 1) % lines.length;
+            evicted++;
+            if (spill == null) return false;
+            spill.append(oldest);
+            spill.append("\n");
+            return true;
+        }
+
+        public void clear() {
+            java.util.Arrays.fill(lines, null);
+            head = 0;
+            count = 0;
+            partial.setLength(0);
+            view.rowsChanged();
+        }
+
+        public int getLineCount() { return count; }
+
+        public int getMaxLines() { return lines.length; }
+
+        /** Lines pushed out of the ring so far (spilled, if a spill sink is set). */
+        public long getEvictedCount() { return evicted; }
+    }
+}
@@ -1,11 +1,19 @@
 import java.awt.*;
 import java.awt.event.*;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.CancellationException;
 
 public class FertilizerAdvisoryAWT extends Frame implements ActionListener {
 
     TextField tFarmer, tDistrict, tCrop, tN, tP, tK;
     TextArea output;
-    Button submit;
+    Button submit, processFile, cancel;
+    Label progress;
+
+    // file run in progress, if any; only touched on the event thread
+    private Thread fileWorker;
+    private volatile boolean cancelRequested;
 
     public FertilizerAdvisoryAWT() {
         setLayout(null);
@@ -19,21 +27,39 @@ public class FertilizerAdvisoryAWT extends Frame implements ActionListener {
         addLabel("Potassium (ppm):", 40, 250); tK = addTextField(160, 250);
 
         submit = new Button("Submit");
-        submit.setBounds(120, 290, 80, 30);
+        submit.setBounds(40, 290, 80, 30);
         submit.addActionListener(this);
         add(submit);
 
+        processFile = new Button("Process File...");
+        processFile.setBounds(130, 290, 100, 30);
+        processFile.addActionListener(this);
+        add(processFile);
+
+        cancel = new Button("Cancel");
+        cancel.setBounds(240, 290, 70, 30);
+        cancel.setEnabled(false);
+        cancel.addActionListener(this);
+        add(cancel);
+
         output = new TextArea();
         output.setBounds(50, 340, 260, 150);
         output.setEditable(false);
         add(output);
 
+        progress = new Label("");
+        progress.setBounds(50, 495, 300, 25);
+        add(progress);
+
         setTitle("IhindukaConnect  Fertilizer Advisory");
-        setSize(400, 520);
+        setSize(400, 540);
         setVisible(true);
 
         addWindowListener(new WindowAdapter() {
-            public void windowClosing(WindowEvent e) { dispose(); }
+            public void windowClosing(WindowEvent e) {
+                cancelRequested = true;
+                dispose();
+            }
         });
     }
 
@@ -52,33 +78,108 @@ public class FertilizerAdvisoryAWT extends Frame implements ActionListener {
 
     @Override
     public void actionPerformed(ActionEvent e) {
-        try {
-            String farmer = tFarmer.getText().trim();
-            String district = tDistrict.getText().trim();
-            String crop = tCrop.getText().trim();
-            double n = Double.parseDouble(tN.getText().trim());
-            double p = Double.parseDouble(tP.getText().trim());
-            double k = Double.parseDouble(tK.getText().trim());
-
-            SoilAnalysis s = new SoilAnalysis(farmer, district, n, p, k, crop);
-            String rec = s.calculateFertilizerNeeded();
-
-            output.setText(
-                    "Farmer: " + farmer +
-                            "\nDistrict: " + district +
-                            "\nCrop: " + crop +
-                            "\n\nRecommendation:\n" + rec
-            );
-
-        } catch (NumberFormatException ex) {
-            output.setText("ERROR: Please enter valid numeric values for N, P, K.");
-        } catch (IllegalArgumentException ex) {
-            output.setText("ERROR: " + ex.getMessage());
-        } catch (Exception ex) {
-            output.setText("Unexpected error: " + ex.getMessage());
+        if (e.getSource() == processFile) {
+            processSampleFile();
+            return;
+        }
+        if (e.getSource() == cancel) {
+            cancelRequested = true;
+            progress.setText("Cancelling...");
+            return;
+        }
+        String farmer = tFarmer.getText().trim();
+        String district = tDistrict.getText().trim();
+        String crop = tCrop.getText().trim();
+
+        // checked without exceptions; bad input comes back as a status with a message
+        SoilAnalysis.Validation v = SoilAnalysis.validate(tN.getText(), tP.getText(), tK.getText());
+        switch (v.getStatus()) {
+            case SoilAnalysis.Validation.VALID:
+                output.setText(
+                        "Farmer: " + farmer +
+                                "\nDistrict: " + district +
+                                "\nCrop: " + crop +
+                                "\n\nRecommendation:\n" + v.getRecommendation()
+                );
+                break;
+            case SoilAnalysis.Validation.MISSING:
+            case SoilAnalysis.Validation.NOT_A_NUMBER:
+                output.setText("ERROR: Please enter valid numeric values for N, P, K.\n" + v.getMessage() + ".");
+                break;
+            default:
+                output.setText("ERROR: " + v.getMessage());
+                break;
         }
     }
 
+    // Lab exports: stream a CSV of samples into a recommendations file on a worker thread
+    private void processSampleFile() {
+        if (fileWorker != null) return;
+        Path in = chooseFile("Soil samples (CSV)", FileDialog.LOAD);
+        if (in == null) return;
+        Path out = chooseFile("Save recommendations as", FileDialog.SAVE);
+        if (out == null) return;
+        if (out.toAbsolutePath().equals(in.toAbsolutePath())) {
+            output.setText("ERROR: Choose a different file for the recommendations.");
+            return;
+        }
+
+        String district = tDistrict.getText().trim();
+        String crop = tCrop.getText().trim();
+        cancelRequested = false;
+        processFile.setEnabled(false);
+        cancel.setEnabled(true);
+        output.setText("Processing " + in + "\n-> " + out + "\n");
+        long t0 = System.nanoTime();
+        fileWorker = new Thread(() -> {
+            String report;
+            try {
+                SoilFileProcessor.Result result = SoilFileProcessor.process(in, out, new SoilFileProcessor.Listener() {
+                    @Override
+                    public void progress(SoilFileProcessor.Result soFar, long bytesDone, long totalBytes) {
+                        String text = String.format("%.0f%%  %,d samples, %,d errors",
+                                totalBytes == 0 ? 100.0 : bytesDone * 100.0 / totalBytes, soFar.getSamples(), soFar.getErrors());
+                        EventQueue.invokeLater(() -> progress.setText(text));
+                    }
+
+                    @Override
+                    public boolean isCancelled() {
+                        return cancelRequested;
+                    }
+                });
+                StringBuilder sb = new StringBuilder("Done in " + (System.nanoTime() - t0) / 1_000_000 + " ms\n" + result + "\n");
+                for (int i = 0; i < Math.min(20, result.getRejections().size()); i++) sb.append(result.getRejections().get(i)).append('\n');
+                if (result.getErrors() > 20) sb.append("... ").append(result.getErrors() - 20).append(" more errors\n");
+                // the District / Crop fields, when filled in, pick the statistics to show
+                SoilCube cube = result.getCube();
+                if (!district.isEmpty() && !crop.isEmpty()) sb.append(district).append(" / ").append(crop).append(": ").append(cube.get(district, crop)).append('\n');
+                else if (!district.isEmpty()) sb.append(district).append(": ").append(cube.district(district)).append('\n');
+                else if (!crop.isEmpty()) sb.append(crop).append(": ").append(cube.crop(crop)).append('\n');
+                sb.append("All samples: ").append(cube.total()).append('\n');
+                report = sb.toString();
+            } catch (CancellationException ex) {
+                report = ex.getMessage() + "\n";
+            } catch (Exception ex) {
+                report = "ERROR: " + ex + "\n";
+            }
+            String text = report;
+            EventQueue.invokeLater(() -> {
+                output.append(text);
+                processFile.setEnabled(true);
+                cancel.setEnabled(false);
+                fileWorker = null;
+            });
+        }, "soil-file-processor");
+        fileWorker.setDaemon(true);
+        fileWorker.start();
+    }
+
+    private Path chooseFile(String title, int mode) {
+        FileDialog fd = new FileDialog(this, title, mode);
+        fd.setVisible(true);
+        return fd.getFile() == null ? null : Paths.get(fd.getDirectory(), fd.getFile());
+    }
+
     public static void main(String[] args) {
         new FertilizerAdvisoryAWT();
     }
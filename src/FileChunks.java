@@ -0,0 +1,46 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * FileChunks.java
+ * FileChannel helpers for the tools that read a file in line-aligned chunks parsed in parallel
+ * (AfriGuardTransfer imports, SoilFileProcessor) and write their output in large blocks.
+ *
+ * Reads are positional and leave the channel position alone, so several threads may read one
+ * channel at once.
+ */
+final class FileChunks {
+
+    private static final int PROBE = 8192;
+
+    private FileChunks() {
+    }
+
+    /** First line start at or after from: just past the next '\n', or size at end of file. */
+    static long nextLineStart(FileChannel ch, long from, long size) throws IOException {
+        ByteBuffer probe = ByteBuffer.allocate(PROBE);
+        for (long pos = from; pos < size; ) {
+            probe.clear();
+            int n = ch.read(probe, pos);
+            if (n <= 0) break;
+            for (int i = 0; i < n; i++) if (probe.get(i) == '\n') return pos + i + 1;
+            pos += n;
+        }
+        return size;
+    }
+
+    /** Bytes [start, end) of the file. */
+    static byte[] read(FileChannel ch, long start, long end) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate((int) (end - start));
+        while (buf.hasRemaining()) {
+            if (ch.read(buf, start + buf.position()) < 0) throw new IOException("File shrank while reading at " + (start + buf.position()));
+        }
+        return buf.array();
+    }
+
+    /** Writes all of buf at the channel position; one write call may take only part of it. */
+    static void writeFully(FileChannel ch, ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining()) ch.write(buf);
+    }
+}
@@ -0,0 +1,74 @@
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * RecommendationCache.java
+ * Fertilizer recommendations keyed by the band tuple of a sample: for each nutrient, below 20 ppm,
+ * within range or above 100 ppm. The text depends on nothing else, so each of the 27 tuples is
+ * rendered once, interned, and every later sample in the same bands gets the same String without
+ * building anything. The key is the SoilBatch code, which encodes exactly that tuple.
+ *
+ * Thread-safe and lock-free; the hit and miss counters are there to watch from the SMS gateway.
+ *
+ * Compile: javac SoilAnalysis.java SoilBatch.java RecommendationCache.java
+ */
+public class RecommendationCache {
+
+    /** The cache calculateFertilizerNeeded() and SoilBatch.render() go through. */
+    public static final RecommendationCache SHARED = new RecommendationCache();
+
+    private final AtomicReferenceArray<String> texts = new AtomicReferenceArray<>(SoilBatch.INVALID_BIT);
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * The recommendation for these readings, as calculateFertilizerNeeded() words it.
+     * @throws IllegalArgumentException for an invalid reading (any nutrient <= 0)
+     */
+    public String recommend(double nitrogen, double phosphorus, double potassium) {
+        return recommend(SoilBatch.classify(nitrogen, phosphorus, potassium));
+    }
+
+    /**
+     * The recommendation for a SoilBatch code.
+     * @throws IllegalArgumentException for a code marking an invalid reading
+     */
+    public String recommend(byte code) {
+        if ((code & SoilBatch.INVALID_BIT) != 0) throw new IllegalArgumentException("Invalid nutrient reading (must be > 0)");
+        String text = texts.get(code);
+        if (text != null) {
+            hits.increment();
+            return text;
+        }
+        misses.increment();
+        // two threads may both render a tuple the first time; intern() makes them agree on one String
+        text = SoilBatch.buildText(code).intern();
+        texts.set(code, text);
+        return text;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /** Share (0..1) of lookups answered from the cache; NaN before the first lookup. */
+    public double getHitRate() {
+        long h = hits.sum(), m = misses.sum();
+        return h + m == 0 ? Double.NaN : (double) h / (h + m);
+    }
+
+    /** Zeroes the counters; cached texts stay. */
+    public void resetCounters() {
+        hits.reset();
+        misses.reset();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("RecommendationCache{hits=%d, misses=%d, hitRate=%.4f}", getHits(), getMisses(), getHitRate());
+    }
+}
@@ -1,4 +1,8 @@
 public class SoilAnalysis {
+    // ppm thresholds shared with the batch engine (SoilBatch)
+    static final double DEFICIENT_BELOW = 20;
+    static final double EXCESS_ABOVE = 100;
+
     private String farmerId;
     private String districtName;
     private double nitrogenLevel;
@@ -20,28 +24,185 @@ public class SoilAnalysis {
     public String getFarmerId() { return farmerId; }
     public String getDistrictName() { return districtName; }
     public String getCropType() { return cropType; }
+    public double getNitrogenLevel() { return nitrogenLevel; }
+    public double getPhosphorusLevel() { return phosphorusLevel; }
+    public double getPotassiumLevel() { return potassiumLevel; }
 
+    /** @throws IllegalArgumentException for a non-positive reading; validate() reports it instead */
     public String calculateFertilizerNeeded() {
-        if (nitrogenLevel <= 0 || phosphorusLevel <= 0 || potassiumLevel <= 0) {
-            throw new IllegalArgumentException("Invalid nutrient reading (must be > 0)");
+        Validation v = validate();
+        if (!v.isValid()) throw new IllegalArgumentException(v.getMessage());
+        return v.getRecommendation();
+    }
+
+    /** Checks the readings without throwing; the result carries the recommendation when valid. */
+    public Validation validate() {
+        return validate(nitrogenLevel, phosphorusLevel, potassiumLevel);
+    }
+
+    // -------------------------
+    // Exception-free validation
+    // -------------------------
+    /**
+     * Outcome of checking one sample: a status code, the nutrient it is about and, when valid, the
+     * recommendation. Instances are shared (one per outcome), so checking allocates nothing and
+     * bad rows cost no more than good ones.
+     */
+    public static final class Validation {
+        public static final int VALID = 0;
+        public static final int MISSING = 1;       // empty reading
+        public static final int NOT_A_NUMBER = 2;  // reading text is not a decimal number
+        public static final int NOT_POSITIVE = 3;  // reading <= 0
+
+        private static final String[] NUTRIENT_NAMES = {"Nitrogen", "Phosphorus", "Potassium"};
+        private static final Validation[] BY_CODE = new Validation[SoilBatch.INVALID_BIT];
+        private static final Validation[][] FAILURES = new Validation[4][3];
+        static {
+            for (int code = 0; code < BY_CODE.length; code++) BY_CODE[code] = new Validation(VALID, 0, (byte) code, null);
+            for (int i = 0; i < 3; i++) {
+                FAILURES[MISSING][i] = new Validation(MISSING, 1 << i, (byte) SoilBatch.INVALID_BIT, NUTRIENT_NAMES[i] + " reading is missing");
+                FAILURES[NOT_A_NUMBER][i] = new Validation(NOT_A_NUMBER, 1 << i, (byte) SoilBatch.INVALID_BIT, NUTRIENT_NAMES[i] + " is not a number");
+                // same wording calculateFertilizerNeeded() has always thrown with
+                FAILURES[NOT_POSITIVE][i] = new Validation(NOT_POSITIVE, 1 << i, (byte) SoilBatch.INVALID_BIT, "Invalid nutrient reading (must be > 0)");
+            }
+        }
+
+        private final int status;
+        private final int nutrient;
+        private final byte code;
+        private final String message;
+
+        private Validation(int status, int nutrient, byte code, String message) {
+            this.status = status;
+            this.nutrient = nutrient;
+            this.code = code;
+            this.message = message;
+        }
+
+        /** nutrient is SoilBatch.NITROGEN, PHOSPHORUS or POTASSIUM. */
+        static Validation failure(int status, int nutrient) {
+            return FAILURES[status][Integer.numberOfTrailingZeros(nutrient)];
+        }
+
+        public int getStatus() { return status; }
+        public boolean isValid() { return status == VALID; }
+        /** The failing nutrient (SoilBatch.NITROGEN, PHOSPHORUS or POTASSIUM); 0 when valid. */
+        public int getNutrient() { return nutrient; }
+        /** The SoilBatch code of the readings when valid. */
+        public byte getCode() { return code; }
+
+        /** The recommendation, or null when not valid. */
+        public String getRecommendation() {
+            return status == VALID ? RecommendationCache.SHARED.recommend(code) : null;
         }
 
-        boolean balanced = true;
-        StringBuilder deficient = new StringBuilder();
-        StringBuilder excess = new StringBuilder();
+        /** Why the sample is not valid, or null when it is. */
+        public String getMessage() { return message; }
 
-        if (nitrogenLevel < 20) { deficient.append("Nitrogen "); balanced = false; }
-        if (phosphorusLevel < 20) { deficient.append("Phosphorus "); balanced = false; }
-        if (potassiumLevel < 20) { deficient.append("Potassium "); balanced = false; }
+        @Override
+        public String toString() {
+            return status == VALID ? "VALID: " + getRecommendation().trim() : message;
+        }
+    }
+
+    /** The readings checked in N, P, K order; the first non-positive one is reported. */
+    public static Validation validate(double nitrogen, double phosphorus, double potassium) {
+        byte code = SoilBatch.classify(nitrogen, phosphorus, potassium);
+        if ((code & SoilBatch.INVALID_BIT) == 0) return Validation.BY_CODE[code];
+        int nutrient = nitrogen <= 0 ? SoilBatch.NITROGEN : phosphorus <= 0 ? SoilBatch.PHOSPHORUS : SoilBatch.POTASSIUM;
+        return Validation.failure(Validation.NOT_POSITIVE, nutrient);
+    }
+
+    /** Parses and checks readings as typed or read from a file, without throwing. */
+    public static Validation validate(CharSequence nitrogen, CharSequence phosphorus, CharSequence potassium) {
+        double n = parseReading(nitrogen);
+        if (n != n) return parseFailure(nitrogen, SoilBatch.NITROGEN);
+        double p = parseReading(phosphorus);
+        if (p != p) return parseFailure(phosphorus, SoilBatch.PHOSPHORUS);
+        double k = parseReading(potassium);
+        if (k != k) return parseFailure(potassium, SoilBatch.POTASSIUM);
+        return validate(n, p, k);
+    }
+
+    private static Validation parseFailure(CharSequence text, int nutrient) {
+        return Validation.failure(isBlank(text) ? Validation.MISSING : Validation.NOT_A_NUMBER, nutrient);
+    }
+
+    private static boolean isBlank(CharSequence s) {
+        if (s == null) return true;
+        for (int i = 0; i < s.length(); i++) if (s.charAt(i) > ' ') return false;
+        return true;
+    }
 
-        if (nitrogenLevel > 100) { excess.append("Nitrogen "); balanced = false; }
-        if (phosphorusLevel > 100) { excess.append("Phosphorus "); balanced = false; }
-        if (potassiumLevel > 100) { excess.append("Potassium "); balanced = false; }
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
 
-        if (balanced) return " OPTIMAL - Maintenance fertilizer only";
-        if (deficient.length() > 0) return " DEFICIENT - High application needed for: " + deficient.toString().trim();
-        if (excess.length() > 0) return " EXCESS - Reduce application for: " + excess.toString().trim();
+    /**
+     * A decimal reading such as "42", "-3.5" or "1.2e2" (surrounding blanks allowed), or NaN when s
+     * is empty or not such a number. Never throws. Results equal Double.parseDouble's; unlike it,
+     * "NaN", "Infinity", hex and 'd'/'f' suffixes are not readings.
+     */
+    public static double parseReading(CharSequence s) {
+        if (s == null) return Double.NaN;
+        int i = 0, end = s.length();
+        while (i < end && s.charAt(i) <= ' ') i++;
+        while (end > i && s.charAt(end - 1) <= ' ') end--;
+        int start = i;
+        boolean negative = false;
+        if (i < end && (s.charAt(i) == '-' || s.charAt(i) == '+')) negative = s.charAt(i++) == '-';
 
-        return "Normal";
+        long mantissa = 0;
+        int significant = 0;    // digits in mantissa, leading zeros excluded
+        int scale = 0;          // power of ten to apply to mantissa
+        int digits = 0;
+        boolean dot = false;
+        for (; i < end; i++) {
+            char c = s.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits++;
+                if (mantissa == 0 && c == '0') {
+                    if (dot) scale--;
+                } else if (significant < 19) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    significant++;
+                    if (dot) scale--;
+                } else {
+                    // digits beyond what a long holds; the slow path parses them exactly
+                    significant++;
+                    if (!dot) scale++;
+                }
+            } else if (c == '.' && !dot) {
+                dot = true;
+            } else {
+                break;
+            }
+        }
+        if (digits == 0) return Double.NaN;
+        if (i < end && (s.charAt(i) == 'e' || s.charAt(i) == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < end && (s.charAt(i) == '-' || s.charAt(i) == '+')) negativeExponent = s.charAt(i++) == '-';
+            int exponentStart = i;
+            int exponent = 0;
+            for (; i < end && s.charAt(i) >= '0' && s.charAt(i) <= '9'; i++) {
+                if (exponent < 100_000) exponent = exponent * 10 + (s.charAt(i) - '0');
+            }
+            if (i == exponentStart) return Double.NaN;
+            scale += negativeExponent ? -exponent : exponent;
+        }
+        if (i != end) return Double.NaN;
+
+        double value;
+        if (mantissa == 0) {
+            value = 0.0;
+        } else if (significant <= 15 && scale >= -22 && scale <= 22) {
+            // both operands are exact doubles, so one correctly rounded operation gives the exact result
+            value = scale < 0 ? mantissa / POWERS_OF_TEN[-scale] : mantissa * POWERS_OF_TEN[scale];
+        } else {
+            // long or extreme readings: the syntax is checked, so this cannot throw
+            return Double.parseDouble(s.subSequence(start, end).toString());
+        }
+        return negative ? -value : value;
     }
 }
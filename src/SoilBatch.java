@@ -0,0 +1,185 @@
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * SoilBatch.java
+ * Batch fertilizer recommendations over primitive N/P/K columns, for soil campaigns with millions
+ * of samples where building a SoilAnalysis per sample is too slow.
+ *
+ * Each sample is classified into a one-byte code: bits 0-2 hold the deficient nutrients, bits 3-5
+ * the nutrients in excess and bit 6 marks an invalid reading (any nutrient <= 0). For valid
+ * readings the thresholds are tested on the raw bits without branches, so throughput does not
+ * depend on how the readings are distributed. Text is built
+ * only when render() is asked for it (once per band tuple, see RecommendationCache), and is identical
+ * to SoilAnalysis.calculateFertilizerNeeded().
+ *
+ * Compile: javac SoilAnalysis.java SoilBatch.java
+ * Run:     java SoilBatch [samples]   (compares batch and per-object throughput)
+ */
+public final class SoilBatch {
+
+    private SoilBatch() {
+    }
+
+    // Nutrient bits, as used in deficientMask() / excessMask() / nutrients()
+    public static final int NITROGEN = 1;
+    public static final int PHOSPHORUS = 2;
+    public static final int POTASSIUM = 4;
+
+    // Verdicts, in the priority calculateFertilizerNeeded() reports them
+    public static final int OPTIMAL = 0;
+    public static final int DEFICIENT = 1;
+    public static final int EXCESS = 2;
+    public static final int INVALID = 3;
+
+    static final int EXCESS_SHIFT = 3;
+    static final int INVALID_BIT = 1 << 6;
+
+    private static final int PARALLEL_CHUNK = 1 << 16;
+
+    // -------------------------
+    // Classification
+    // -------------------------
+    // Positive finite doubles order exactly like their bit patterns read as longs
+    private static final long DEFICIENT_BITS = Double.doubleToRawLongBits(SoilAnalysis.DEFICIENT_BELOW);
+    private static final long EXCESS_BITS = Double.doubleToRawLongBits(SoilAnalysis.EXCESS_ABOVE);
+    private static final long MAX_FINITE_BITS = Double.doubleToRawLongBits(Double.MAX_VALUE);
+
+    public static byte classify(double n, double p, double k) {
+        long bn = Double.doubleToRawLongBits(n), bp = Double.doubleToRawLongBits(p), bk = Double.doubleToRawLongBits(k);
+        // all three positive and finite: bits in [1, MAX_FINITE_BITS], i.e. neither difference is negative
+        if (((bn - 1) | (MAX_FINITE_BITS - bn) | (bp - 1) | (MAX_FINITE_BITS - bp) | (bk - 1) | (MAX_FINITE_BITS - bk)) >= 0) {
+            // Random lab data would mispredict a compare-and-branch on every threshold about half
+            // the time; the sign of the bit difference answers it without a branch.
+            return (byte) ((bn - DEFICIENT_BITS) >>> 63 | (bp - DEFICIENT_BITS) >>> 63 << 1 | (bk - DEFICIENT_BITS) >>> 63 << 2
+                    | (EXCESS_BITS - bn) >>> 63 << 3 | (EXCESS_BITS - bp) >>> 63 << 4 | (EXCESS_BITS - bk) >>> 63 << 5);
+        }
+        // invalid, infinite or NaN readings are rare: plain comparisons (NaN sets no bit, as in calculateFertilizerNeeded())
+        return (byte) ((n < SoilAnalysis.DEFICIENT_BELOW ? NITROGEN : 0)
+                | (p < SoilAnalysis.DEFICIENT_BELOW ? PHOSPHORUS : 0)
+                | (k < SoilAnalysis.DEFICIENT_BELOW ? POTASSIUM : 0)
+                | (n > SoilAnalysis.EXCESS_ABOVE ? NITROGEN << EXCESS_SHIFT : 0)
+                | (p > SoilAnalysis.EXCESS_ABOVE ? PHOSPHORUS << EXCESS_SHIFT : 0)
+                | (k > SoilAnalysis.EXCESS_ABOVE ? POTASSIUM << EXCESS_SHIFT : 0)
+                | (n <= 0 || p <= 0 || k <= 0 ? INVALID_BIT : 0));
+    }
+
+    /** Classifies samples [from, to) of the columns into codes[from, to). */
+    public static void classify(double[] nitrogen, double[] phosphorus, double[] potassium, byte[] codes, int from, int to) {
+        checkColumns(nitrogen, phosphorus, potassium, codes, to);
+        if (from < 0 || from > to) throw new IllegalArgumentException("bad range [" + from + ", " + to + ")");
+        for (int i = from; i < to; i++) codes[i] = classify(nitrogen[i], phosphorus[i], potassium[i]);
+    }
+
+    /** Codes for every sample; large columns are split into chunks classified in parallel. */
+    public static byte[] classify(double[] nitrogen, double[] phosphorus, double[] potassium) {
+        int n = nitrogen.length;
+        byte[] codes = new byte[n];
+        checkColumns(nitrogen, phosphorus, potassium, codes, n);
+        int chunks = (n + PARALLEL_CHUNK - 1) / PARALLEL_CHUNK;
+        IntStream ids = IntStream.range(0, chunks);
+        (chunks > 1 ? ids.parallel() : ids).forEach(c ->
+                classify(nitrogen, phosphorus, potassium, codes, c * PARALLEL_CHUNK, Math.min(n, (c + 1) * PARALLEL_CHUNK)));
+        return codes;
+    }
+
+    private static void checkColumns(double[] nitrogen, double[] phosphorus, double[] potassium, byte[] codes, int to) {
+        if (nitrogen.length < to || phosphorus.length < to || potassium.length < to || codes.length < to) {
+            throw new IllegalArgumentException("columns shorter than " + to + ": N=" + nitrogen.length + ", P=" + phosphorus.length
+                    + ", K=" + potassium.length + ", codes=" + codes.length);
+        }
+    }
+
+    // -------------------------
+    // Decoding
+    // -------------------------
+    public static int verdict(byte code) {
+        if ((code & INVALID_BIT) != 0) return INVALID;
+        if (deficientMask(code) != 0) return DEFICIENT;
+        if (excessMask(code) != 0) return EXCESS;
+        return OPTIMAL;
+    }
+
+    public static int deficientMask(byte code) {
+        return code & 7;
+    }
+
+    public static int excessMask(byte code) {
+        return (code >>> EXCESS_SHIFT) & 7;
+    }
+
+    /** The nutrients the verdict is about: deficient ones, else those in excess. */
+    public static int nutrients(byte code) {
+        int deficient = deficientMask(code);
+        return deficient != 0 ? deficient : excessMask(code);
+    }
+
+    /** Samples per verdict in codes[from, to), indexed by OPTIMAL / DEFICIENT / EXCESS / INVALID. */
+    public static long[] countVerdicts(byte[] codes, int from, int to) {
+        long[] counts = new long[4];
+        for (int i = from; i < to; i++) counts[verdict(codes[i])]++;
+        return counts;
+    }
+
+    /**
+     * The recommendation text calculateFertilizerNeeded() returns for this code, from the shared
+     * RecommendationCache (each distinct text is built once).
+     * @throws IllegalArgumentException for an invalid reading, like calculateFertilizerNeeded()
+     */
+    public static String render(byte code) {
+        return RecommendationCache.SHARED.recommend(code);
+    }
+
+    // Builds the text; RecommendationCache calls this once per band tuple
+    static String buildText(byte code) {
+        switch (verdict(code)) {
+            case INVALID: throw new IllegalArgumentException("Invalid nutrient reading (must be > 0)");
+            case DEFICIENT: return " DEFICIENT - High application needed for: " + nutrientNames(deficientMask(code));
+            case EXCESS: return " EXCESS - Reduce application for: " + nutrientNames(excessMask(code));
+            default: return " OPTIMAL - Maintenance fertilizer only";
+        }
+    }
+
+    static String nutrientNames(int mask) {
+        StringBuilder sb = new StringBuilder();
+        if ((mask & NITROGEN) != 0) sb.append("Nitrogen ");
+        if ((mask & PHOSPHORUS) != 0) sb.append("Phosphorus ");
+        if ((mask & POTASSIUM) != 0) sb.append("Potassium ");
+        return sb.toString().trim();
+    }
+
+    // -------------------------
+    // Main
+    // -------------------------
+    public static void main(String[] args) {
+        int samples = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        Random rnd = new Random(42);
+        double[] n = new double[samples], p = new double[samples], k = new double[samples];
+        for (int i = 0; i < samples; i++) {
+            n[i] = rnd.nextDouble() * 130 - 5;
+            p[i] = rnd.nextDouble() * 130 - 5;
+            k[i] = rnd.nextDouble() * 130 - 5;
+        }
+        for (int round = 0; round < 5; round++) {
+            long t0 = System.nanoTime();
+            byte[] codes = classify(n, p, k);
+            long batchNanos = System.nanoTime() - t0;
+
+            t0 = System.nanoTime();
+            long textChars = 0;
+            for (int i = 0; i < samples; i++) {
+                try {
+                    textChars += new SoilAnalysis("F" + i, "D", n[i], p[i], k[i], "C").calculateFertilizerNeeded().length();
+                } catch (IllegalArgumentException e) {
+                    textChars++;
+                }
+            }
+            long objectNanos = System.nanoTime() - t0;
+
+            long[] counts = countVerdicts(codes, 0, samples);
+            System.out.printf("%,d samples: batch %.2f ns/sample, per-object %.2f ns/sample (%d chars); optimal=%d deficient=%d excess=%d invalid=%d%n",
+                    samples, batchNanos / (double) samples, objectNanos / (double) samples, textChars,
+                    counts[OPTIMAL], counts[DEFICIENT], counts[EXCESS], counts[INVALID]);
+        }
+    }
+}
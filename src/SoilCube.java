@@ -0,0 +1,212 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * SoilCube.java
+ * Running statistics of soil samples per (district, crop): sample counts, N/P/K mean and variance
+ * (Welford's online algorithm) and the share of samples deficient or in excess for each nutrient.
+ *
+ * add() is O(1) per sample. A cube is not thread-safe: each thread fills its own and the partial
+ * cubes are merged (Chan et al.'s pairwise combination keeps mean and variance exact), which is how
+ * SoilFileProcessor builds one per chunk. Questions such as "share of maize farms in Musanze
+ * deficient in phosphorus" are then a lookup:
+ *   cube.get("Musanze", "maize").deficientRate(SoilBatch.PHOSPHORUS)
+ *
+ * Samples with an invalid reading (any nutrient <= 0) or a non-finite one (NaN, infinite) are
+ * counted as invalid but not part of the statistics; one such reading would otherwise turn the
+ * running mean and variance into NaN for the rest of the cell.
+ *
+ * Compile: javac SoilAnalysis.java SoilBatch.java SoilCube.java
+ */
+public class SoilCube {
+
+    /** Statistics of one (district, crop) cell, or of a roll-up of cells. */
+    public static class Stats {
+        private long count;
+        private long invalid;
+        private final double[] mean = new double[3];
+        private final double[] m2 = new double[3];      // sum of squared deviations from the mean
+        private final long[] deficient = new long[3];
+        private final long[] excess = new long[3];
+
+        void add(double n, double p, double k) {
+            add(n, p, k, SoilBatch.classify(n, p, k));
+        }
+
+        // code is SoilBatch.classify(n, p, k), for callers that have it already; the verdict of a
+        // non-finite reading is left as classify gives it, only the statistics skip the sample
+        void add(double n, double p, double k, byte code) {
+            if (SoilBatch.verdict(code) == SoilBatch.INVALID || !Double.isFinite(n) || !Double.isFinite(p) || !Double.isFinite(k)) {
+                invalid++;
+                return;
+            }
+            count++;
+            update(0, n);
+            update(1, p);
+            update(2, k);
+            for (int i = 0; i < 3; i++) {
+                deficient[i] += (code >>> i) & 1;
+                excess[i] += (code >>> (SoilBatch.EXCESS_SHIFT + i)) & 1;
+            }
+        }
+
+        private void update(int i, double x) {
+            double delta = x - mean[i];
+            mean[i] += delta / count;
+            m2[i] += delta * (x - mean[i]);
+        }
+
+        Stats merge(Stats other) {
+            long total = count + other.count;
+            if (total > 0) {
+                for (int i = 0; i < 3; i++) {
+                    double delta = other.mean[i] - mean[i];
+                    m2[i] += other.m2[i] + delta * delta * ((double) count * other.count / total);
+                    mean[i] += delta * other.count / total;
+                    deficient[i] += other.deficient[i];
+                    excess[i] += other.excess[i];
+                }
+            }
+            count = total;
+            invalid += other.invalid;
+            return this;
+        }
+
+        /** Samples in the statistics (valid readings). */
+        public long getCount() { return count; }
+        /** Samples left out because of an invalid or non-finite reading. */
+        public long getInvalidCount() { return invalid; }
+
+        // nutrient is SoilBatch.NITROGEN, PHOSPHORUS or POTASSIUM
+        public double mean(int nutrient) {
+            return count == 0 ? Double.NaN : mean[index(nutrient)];
+        }
+
+        /** Sample variance (n - 1 denominator); NaN below two samples. */
+        public double variance(int nutrient) {
+            return count < 2 ? Double.NaN : m2[index(nutrient)] / (count - 1);
+        }
+
+        public double stdDev(int nutrient) {
+            return Math.sqrt(variance(nutrient));
+        }
+
+        /** Share (0..1) of samples below the deficiency threshold for the nutrient. */
+        public double deficientRate(int nutrient) {
+            return count == 0 ? Double.NaN : (double) deficient[index(nutrient)] / count;
+        }
+
+        /** Share (0..1) of samples above the excess threshold for the nutrient. */
+        public double excessRate(int nutrient) {
+            return count == 0 ? Double.NaN : (double) excess[index(nutrient)] / count;
+        }
+
+        private static int index(int nutrient) {
+            switch (nutrient) {
+                case SoilBatch.NITROGEN: return 0;
+                case SoilBatch.PHOSPHORUS: return 1;
+                case SoilBatch.POTASSIUM: return 2;
+                default: throw new IllegalArgumentException("Not a nutrient: " + nutrient + " (use SoilBatch.NITROGEN, PHOSPHORUS or POTASSIUM)");
+            }
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder("samples=").append(count);
+            if (invalid > 0) sb.append(" (+").append(invalid).append(" invalid)");
+            if (count == 0) return sb.toString();
+            String[] names = {"N", "P", "K"};
+            for (int i = 0; i < 3; i++) {
+                int nutrient = 1 << i;
+                sb.append(String.format(", %s mean=%.1f sd=%.1f deficient=%.1f%% excess=%.1f%%", names[i],
+                        mean(nutrient), stdDev(nutrient), deficientRate(nutrient) * 100, excessRate(nutrient) * 100));
+            }
+            return sb.toString();
+        }
+    }
+
+    // district -> crop -> cell
+    private final Map<String, Map<String, Stats>> cells = new HashMap<>();
+
+    public void add(SoilAnalysis s) {
+        add(s.getDistrictName(), s.getCropType(), s.getNitrogenLevel(), s.getPhosphorusLevel(), s.getPotassiumLevel());
+    }
+
+    public void add(String district, String crop, double nitrogen, double phosphorus, double potassium) {
+        cell(district, crop).add(nitrogen, phosphorus, potassium);
+    }
+
+    /** The cell's statistics, for adding to in place; created empty if new. */
+    Stats cell(String district, String crop) {
+        if (district == null || crop == null) throw new IllegalArgumentException("district and crop are required");
+        return cells.computeIfAbsent(district, d -> new HashMap<>()).computeIfAbsent(crop, c -> new Stats());
+    }
+
+    /** Folds another cube (e.g. one filled by another thread) into this one. */
+    public SoilCube merge(SoilCube other) {
+        other.cells.forEach((district, crops) -> {
+            Map<String, Stats> mine = cells.computeIfAbsent(district, d -> new HashMap<>());
+            crops.forEach((crop, stats) -> mine.computeIfAbsent(crop, c -> new Stats()).merge(stats));
+        });
+        return this;
+    }
+
+    /** Statistics for one district and crop; empty if there were no such samples. */
+    public Stats get(String district, String crop) {
+        Map<String, Stats> crops = cells.get(district);
+        Stats s = crops == null ? null : crops.get(crop);
+        return s != null ? s : new Stats();
+    }
+
+    /** All crops of a district. */
+    public Stats district(String district) {
+        Stats total = new Stats();
+        Map<String, Stats> crops = cells.get(district);
+        if (crops != null) crops.values().forEach(total::merge);
+        return total;
+    }
+
+    /** One crop across all districts. */
+    public Stats crop(String crop) {
+        Stats total = new Stats();
+        for (Map<String, Stats> crops : cells.values()) {
+            Stats s = crops.get(crop);
+            if (s != null) total.merge(s);
+        }
+        return total;
+    }
+
+    public Stats total() {
+        Stats total = new Stats();
+        for (Map<String, Stats> crops : cells.values()) crops.values().forEach(total::merge);
+        return total;
+    }
+
+    /** Samples added, valid or not. */
+    public long getSamples() {
+        Stats all = total();
+        return all.getCount() + all.getInvalidCount();
+    }
+
+    public int getCellCount() {
+        int n = 0;
+        for (Map<String, Stats> crops : cells.values()) n += crops.size();
+        return n;
+    }
+
+    /** One line per cell, sorted by district then crop. */
+    public void report(Appendable out) {
+        try {
+            for (Map.Entry<String, Map<String, Stats>> d : new TreeMap<>(cells).entrySet()) {
+                for (Map.Entry<String, Stats> c : new TreeMap<>(d.getValue()).entrySet()) {
+                    out.append(d.getKey()).append(" / ").append(c.getKey()).append(": ").append(c.getValue().toString()).append('\n');
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
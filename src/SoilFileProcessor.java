@@ -0,0 +1,418 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * SoilFileProcessor.java
+ * Streams a CSV file of soil samples through the fertilizer rules and writes one recommendation
+ * per sample, for lab exports too large to type into FertilizerAdvisoryAWT.
+ *
+ * Input, one sample per line (a UTF-8 byte order mark and a leading header line are skipped; the
+ * first line is a header when none of its three readings is a number):
+ *   farmer_id,district,crop,nitrogen,phosphorus,potassium
+ * Output, in input order:
+ *   farmer_id,district,crop,verdict,recommendation
+ * Lines that cannot be used are written with verdict ERROR and the reason, and counted.
+ *
+ * The file is read in chunks that end at line boundaries; chunks are parsed in parallel, but only
+ * a few are in flight at a time and each is written out (through a FileChannel) as soon as the
+ * chunks before it are, so memory use does not grow with the file.
+ *
+ * Compile: javac SoilAnalysis.java SoilBatch.java SoilCube.java FileChunks.java SoilFileProcessor.java
+ * Run:     java SoilFileProcessor samples.csv recommendations.csv
+ */
+public class SoilFileProcessor {
+
+    static final String[] COLUMNS = {"farmer_id", "district", "crop", "nitrogen", "phosphorus", "potassium"};
+    static final String OUTPUT_HEADER = "farmer_id,district,crop,verdict,recommendation\n";
+    static final String[] VERDICT_NAMES = {"OPTIMAL", "DEFICIENT", "EXCESS", "INVALID"};
+
+    private static final int CHUNK = 1 << 20;
+    private static final int MAX_REPORTED_ERRORS = 1000;
+    private static final String[] FIELD_COUNT_REASONS = new String[COLUMNS.length + 1];
+    static {
+        for (int n = 0; n < COLUMNS.length; n++) FIELD_COUNT_REASONS[n] = "expected 6 fields but got " + n;
+        FIELD_COUNT_REASONS[COLUMNS.length] = "more than 6 fields";
+    }
+
+    // "<verdict>,<recommendation>\n" for the 27 valid codes classify can produce (no nutrient both
+    // deficient and in excess), built directly so the shared RecommendationCache is not touched
+    private static final byte[][] RECOMMENDATION_COLUMNS = new byte[SoilBatch.INVALID_BIT][];
+    static {
+        for (int code = 0; code < RECOMMENDATION_COLUMNS.length; code++) {
+            if ((SoilBatch.deficientMask((byte) code) & SoilBatch.excessMask((byte) code)) != 0) continue;
+            String text = VERDICT_NAMES[SoilBatch.verdict((byte) code)] + "," + SoilBatch.buildText((byte) code).trim() + "\n";
+            RECOMMENDATION_COLUMNS[code] = text.getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    /** Told about progress after each chunk is written, on the thread running process(). */
+    public interface Listener {
+        void progress(Result soFar, long bytesDone, long totalBytes);
+
+        /** Checked before each chunk is written; true stops the run. */
+        default boolean isCancelled() {
+            return false;
+        }
+    }
+
+    public static class Rejection {
+        private final long line;
+        private final String reason;
+        private final String text;
+
+        Rejection(long line, String reason, String text) {
+            this.line = line;
+            this.reason = reason;
+            this.text = text;
+        }
+
+        public long getLine() { return line; }
+        public String getReason() { return reason; }
+        public String getText() { return text; }
+
+        @Override
+        public String toString() {
+            return "line " + line + ": " + reason + ": " + text;
+        }
+    }
+
+    public static class Result {
+        long lines;
+        long blankLines;
+        long samples;
+        long errors;
+        final long[] verdicts = new long[VERDICT_NAMES.length];
+        final Map<String, Long> errorsByReason = new LinkedHashMap<>();
+        final List<Rejection> rejections = new ArrayList<>();
+        final SoilCube cube = new SoilCube();
+
+        void reject(long line, String reason, String text) {
+            errors++;
+            errorsByReason.merge(reason, 1L, Long::sum);
+            if (rejections.size() < MAX_REPORTED_ERRORS) rejections.add(new Rejection(line, reason, text));
+        }
+
+        /** Folds in the result of the chunk that follows this one, renumbering its lines. */
+        Result merge(Result later) {
+            for (Rejection r : later.rejections) {
+                if (rejections.size() == MAX_REPORTED_ERRORS) break;
+                rejections.add(new Rejection(lines + r.line, r.reason, r.text));
+            }
+            lines += later.lines;
+            blankLines += later.blankLines;
+            samples += later.samples;
+            errors += later.errors;
+            for (int v = 0; v < verdicts.length; v++) verdicts[v] += later.verdicts[v];
+            later.errorsByReason.forEach((reason, n) -> errorsByReason.merge(reason, n, Long::sum));
+            cube.merge(later.cube);
+            return this;
+        }
+
+        public long getLines() { return lines; }
+        public long getBlankLines() { return blankLines; }
+        /** Lines that produced a recommendation. */
+        public long getSamples() { return samples; }
+        public long getErrors() { return errors; }
+        public long getVerdictCount(int verdict) { return verdicts[verdict]; }
+        public Map<String, Long> getErrorsByReason() { return errorsByReason; }
+        /** The first errors, at most 1000, with their line numbers. */
+        public List<Rejection> getRejections() { return rejections; }
+        /** Statistics per district and crop of every line with three numeric readings. */
+        public SoilCube getCube() { return cube; }
+
+        @Override
+        public String toString() {
+            return "lines=" + lines + ", samples=" + samples + " (OPTIMAL=" + verdicts[SoilBatch.OPTIMAL]
+                    + ", DEFICIENT=" + verdicts[SoilBatch.DEFICIENT] + ", EXCESS=" + verdicts[SoilBatch.EXCESS]
+                    + "), errors=" + errors + (errorsByReason.isEmpty() ? "" : " " + errorsByReason) + ", blank=" + blankLines;
+        }
+    }
+
+    // -------------------------
+    // Processing
+    // -------------------------
+    /**
+     * Processes in into out (replaced if present). When the listener asks to cancel, the run stops
+     * with a CancellationException between chunks; out then holds the chunks written so far.
+     */
+    public static Result process(Path in, Path out, Listener listener) throws IOException {
+        Result total = new Result();
+        int maxInFlight = Math.max(2, 2 * ForkJoinPool.getCommonPoolParallelism());
+        ArrayDeque<Future<Chunk>> inFlight = new ArrayDeque<>();
+        try (FileChannel src = FileChannel.open(in, StandardOpenOption.READ);
+             FileChannel dst = FileChannel.open(out, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            long size = src.size();
+            FileChunks.writeFully(dst, ByteBuffer.wrap(OUTPUT_HEADER.getBytes(StandardCharsets.US_ASCII)));
+            try {
+                for (long start = 0; start < size; ) {
+                    long end = FileChunks.nextLineStart(src, Math.min(size, start + CHUNK), size);
+                    byte[] bytes = FileChunks.read(src, start, end);
+                    boolean first = start == 0;
+                    inFlight.add(ForkJoinPool.commonPool().submit(() -> new ChunkParser().parse(bytes, first, end)));
+                    start = end;
+                    if (inFlight.size() == maxInFlight) writeNext(inFlight, dst, total, size, listener);
+                }
+                while (!inFlight.isEmpty()) writeNext(inFlight, dst, total, size, listener);
+            } finally {
+                for (Future<Chunk> f : inFlight) f.cancel(true);
+            }
+        }
+        return total;
+    }
+
+    private static void writeNext(ArrayDeque<Future<Chunk>> inFlight, FileChannel dst, Result total, long size, Listener listener) throws IOException {
+        if (listener != null && listener.isCancelled()) throw new CancellationException("Processing cancelled after " + total.lines + " lines");
+        Chunk chunk;
+        try {
+            chunk = inFlight.remove().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Processing cancelled after " + total.lines + " lines");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new IOException(cause);
+        }
+        FileChunks.writeFully(dst, ByteBuffer.wrap(chunk.output.buffer(), 0, chunk.output.size()));
+        total.merge(chunk.result);
+        if (listener != null) listener.progress(total, chunk.end, size);
+    }
+
+    // Exposes the backing array so the chunk is written without another copy
+    static final class ChunkOutput extends ByteArrayOutputStream {
+        ChunkOutput(int size) {
+            super(size);
+        }
+
+        byte[] buffer() {
+            return buf;
+        }
+    }
+
+    static final class Chunk {
+        final Result result;
+        final ChunkOutput output;
+        final long end;
+
+        Chunk(Result result, ChunkOutput output, long end) {
+            this.result = result;
+            this.output = output;
+            this.end = end;
+        }
+    }
+
+    // An ASCII field of the chunk seen as a CharSequence, reused for every reading
+    static final class ByteField implements CharSequence {
+        private byte[] a;
+        private int start;
+        private int end;
+
+        ByteField of(byte[] a, int start, int end) {
+            this.a = a;
+            this.start = start;
+            this.end = end;
+            return this;
+        }
+
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (a[start + index] & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            return new String(a, start + from, to - from, StandardCharsets.ISO_8859_1);
+        }
+
+        @Override
+        public String toString() {
+            return new String(a, start, end - start, StandardCharsets.ISO_8859_1);
+        }
+    }
+
+    // -------------------------
+    // Chunk parser
+    // -------------------------
+    static final class ChunkParser {
+        private static final byte[] ERROR_COLUMN = ",ERROR,".getBytes(StandardCharsets.US_ASCII);
+        private static final byte[] UTF8_BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+
+        private final int[] fieldStart = new int[COLUMNS.length];
+        private final int[] fieldEnd = new int[COLUMNS.length];
+        private final double[] readings = new double[3];
+        private final ByteField field = new ByteField();
+        private final Map<String, byte[]> reasonBytes = new HashMap<>();
+        // exports are usually grouped by district and crop: reuse the cell while they repeat
+        private byte[] lastDistrict = new byte[0];
+        private byte[] lastCrop = new byte[0];
+        private SoilCube.Stats lastCell;
+
+        Chunk parse(byte[] a, boolean mayHaveHeader, long end) {
+            Result result = new Result();
+            ChunkOutput out = new ChunkOutput(a.length + a.length / 2);
+            int lineStart = mayHaveHeader && hasByteOrderMark(a) ? UTF8_BOM.length : 0;
+            for (int i = lineStart; i <= a.length; i++) {
+                if (i < a.length && a[i] != '\n') continue;
+                if (i > lineStart || i < a.length) {
+                    result.lines++;
+                    boolean header = mayHaveHeader && result.lines == 1 && isHeader(a, lineStart, i);
+                    if (!header) parseLine(a, lineStart, i, result, out);
+                }
+                lineStart = i + 1;
+            }
+            return new Chunk(result, out, end);
+        }
+
+        private static boolean hasByteOrderMark(byte[] a) {
+            return a.length >= UTF8_BOM.length && Arrays.equals(a, 0, UTF8_BOM.length, UTF8_BOM, 0, UTF8_BOM.length);
+        }
+
+        // A header has the six columns and three readings that are present but not numbers, so a
+        // sample line is never taken for one, whatever its farmer_id starts with
+        private boolean isHeader(byte[] a, int start, int end) {
+            if (end > start && a[end - 1] == '\r') end--;
+            if (split(a, start, end) != COLUMNS.length) return false;
+            for (int f = 3; f < COLUMNS.length; f++) {
+                if (fieldStart[f] == fieldEnd[f]) return false;
+                double reading = SoilAnalysis.parseReading(field.of(a, fieldStart[f], fieldEnd[f]));
+                if (reading == reading) return false;
+            }
+            return true;
+        }
+
+        // Splits the line [start, end) at commas into trimmed fieldStart / fieldEnd and returns the
+        // field count, COLUMNS.length + 1 standing for "more"
+        private int split(byte[] a, int start, int end) {
+            int fields = 0;
+            int fs = start;
+            for (int i = start; i <= end; i++) {
+                if (i == end || a[i] == ',') {
+                    if (fields == COLUMNS.length) return fields + 1;
+                    int s = fs, e = i;
+                    while (s < e && (a[s] & 0xFF) <= ' ') s++;
+                    while (e > s && (a[e - 1] & 0xFF) <= ' ') e--;
+                    fieldStart[fields] = s;
+                    fieldEnd[fields] = e;
+                    fields++;
+                    fs = i + 1;
+                }
+            }
+            return fields;
+        }
+
+        private void parseLine(byte[] a, int start, int end, Result result, ChunkOutput out) {
+            if (end > start && a[end - 1] == '\r') end--;
+
+            int fields = split(a, start, end);
+            if (fields == 1 && fieldEnd[0] == fieldStart[0]) {
+                result.blankLines++;
+                return;
+            }
+            if (fields != COLUMNS.length) {
+                reject(a, start, end, fields, result, out, FIELD_COUNT_REASONS[Math.min(fields, COLUMNS.length)]);
+                return;
+            }
+            // dirty exports have many bad readings: they are reported without any exception
+            double[] npk = readings;
+            for (int f = 3; f < COLUMNS.length; f++) {
+                npk[f - 3] = SoilAnalysis.parseReading(field.of(a, fieldStart[f], fieldEnd[f]));
+                if (npk[f - 3] != npk[f - 3]) {
+                    int status = fieldStart[f] == fieldEnd[f] ? SoilAnalysis.Validation.MISSING : SoilAnalysis.Validation.NOT_A_NUMBER;
+                    reject(a, start, end, fields, result, out, SoilAnalysis.Validation.failure(status, 1 << (f - 3)).getMessage());
+                    return;
+                }
+            }
+            SoilAnalysis.Validation v = SoilAnalysis.validate(npk[0], npk[1], npk[2]);
+            byte code = v.getCode();
+            cell(a, result.cube).add(npk[0], npk[1], npk[2], code);
+            if (!v.isValid()) {
+                reject(a, start, end, fields, result, out, v.getMessage());
+                return;
+            }
+            writeIdentity(a, out);
+            out.write(RECOMMENDATION_COLUMNS[code], 0, RECOMMENDATION_COLUMNS[code].length);
+            result.samples++;
+            result.verdicts[SoilBatch.verdict(code)]++;
+        }
+
+        private SoilCube.Stats cell(byte[] a, SoilCube cube) {
+            int ds = fieldStart[1], de = fieldEnd[1], cs = fieldStart[2], ce = fieldEnd[2];
+            if (lastCell == null || !Arrays.equals(lastDistrict, 0, lastDistrict.length, a, ds, de)
+                    || !Arrays.equals(lastCrop, 0, lastCrop.length, a, cs, ce)) {
+                lastDistrict = Arrays.copyOfRange(a, ds, de);
+                lastCrop = Arrays.copyOfRange(a, cs, ce);
+                lastCell = cube.cell(new String(lastDistrict, StandardCharsets.UTF_8), new String(lastCrop, StandardCharsets.UTF_8));
+            }
+            return lastCell;
+        }
+
+        // farmer_id,district,crop, as found in the input (trimmed)
+        private void writeIdentity(byte[] a, ChunkOutput out) {
+            for (int f = 0; f < 3; f++) {
+                out.write(a, fieldStart[f], fieldEnd[f] - fieldStart[f]);
+                out.write(',');
+            }
+        }
+
+        // reason becomes the last output column, so it must not contain commas
+        private void reject(byte[] a, int start, int end, int fields, Result result, ChunkOutput out, String reason) {
+            // parse() counted this sample's line before handing it here, so result.lines is its
+            // number within the chunk (Result.merge adds the chunk's offset); text is kept only for
+            // the first MAX_REPORTED_ERRORS rejections
+            String text = result.rejections.size() < MAX_REPORTED_ERRORS ? new String(a, start, end - start, StandardCharsets.UTF_8) : null;
+            result.reject(result.lines, reason, text);
+            for (int f = 0; f < 3; f++) {
+                if (f < fields) out.write(a, fieldStart[f], fieldEnd[f] - fieldStart[f]);
+                if (f < 2) out.write(',');
+            }
+            out.write(ERROR_COLUMN, 0, ERROR_COLUMN.length);
+            byte[] r = reasonBytes.computeIfAbsent(reason, x -> x.getBytes(StandardCharsets.US_ASCII));
+            out.write(r, 0, r.length);
+            out.write('\n');
+        }
+    }
+
+    // -------------------------
+    // Main
+    // -------------------------
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: java SoilFileProcessor <samples.csv> <recommendations.csv>");
+            return;
+        }
+        long t0 = System.nanoTime();
+        Result result = process(Paths.get(args[0]), Paths.get(args[1]), (soFar, done, size) ->
+                System.out.printf("\r%5.1f%%  %,d samples, %,d errors", size == 0 ? 100.0 : done * 100.0 / size, soFar.getSamples(), soFar.getErrors()));
+        long millis = (System.nanoTime() - t0) / 1_000_000;
+        System.out.println();
+        System.out.println("Processed " + args[0] + " in " + millis + " ms: " + result);
+        for (int i = 0; i < Math.min(20, result.getRejections().size()); i++) System.out.println("  " + result.getRejections().get(i));
+        SoilCube cube = result.getCube();
+        System.out.println("By district and crop (" + cube.getCellCount() + " cells):");
+        if (cube.getCellCount() <= 100) cube.report(System.out);
+        System.out.println("All samples: " + cube.total());
+    }
+}